@@ -0,0 +1,61 @@
+package com.smartcalender.app.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves PostgreSQL databases created while users, categories, activities and tasks used IDENTITY columns onto the
+ * pooled sequences these entities now take their IDs from. Hibernate's schema update creates each sequence at 1,
+ * so every sequence that is behind the highest existing ID of its table is advanced to it before the first insert.
+ * The check runs after the schema update and before the web server accepts requests, and leaves sequences that are
+ * already ahead untouched, so it only changes anything on the first startup after the upgrade.
+ * Databases whose schema is not managed by Hibernate can be migrated with {@code db/postgresql/pooled-sequences.sql}.
+ */
+@Component
+public class IdSequenceMigration {
+
+    // Sequence to table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users_seq", "users",
+            "categories_seq", "categories",
+            "activities_seq", "activities",
+            "tasks_seq", "tasks");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // The EntityManagerFactory dependency makes the schema update run first
+    public IdSequenceMigration(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                               @Value("${id-sequences.align-on-startup:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void alignSequences() {
+        if (!enabled) {
+            return;
+        }
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+
+        SEQUENCES.forEach((sequence, table) -> {
+            List<Long> advancedTo = jdbcTemplate.queryForList(
+                    "SELECT setval('" + sequence + "', ids.max_id) FROM (SELECT MAX(id) AS max_id FROM " + table + ") ids " +
+                            "WHERE ids.max_id > (SELECT last_value FROM " + sequence + ")", Long.class);
+            if (!advancedTo.isEmpty()) {
+                System.out.println("🔢 Advanced " + sequence + " past the existing " + table + " IDs to " + advancedTo.get(0));
+            }
+        });
+    }
+}
@@ -4,6 +4,7 @@ import com.smartcalender.app.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -13,6 +14,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * A Spring Security filter that authenticates incoming HTTP requests using JWT tokens.
@@ -24,23 +26,23 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Autowired
     private UserService userDetailsService;
 
     /**
      * Filters each HTTP request to enforce JWT-based authentication within Spring Security.
-     * This method extracts the JWT token from the "Authorization" header, validates it using JwtUtil,
+     * This method extracts the JWT token from the "Authorization" header, verifies it once using VerifiedTokenCache,
      * and, if valid, constructs an authentication token to store in Spring Security’s SecurityContextHolder.
-     * It leverages Spring Boot’s dependency injection for JwtUtil and UserService to perform token validation
-     * and user lookup, ensuring seamless integration with the application’s security configuration.
      *
      * The filter operates as follows:
      * 1. Checks for a "Bearer " token in the Authorization header.
-     * 2. Extracts the username from the token using JwtUtil.
-     * 3. Loads user details via UserService if no authentication exists in the current context.
-     * 4. Validates the token against the user details and, if successful, sets the authentication in the SecurityContextHolder.
+     * 2. Verifies the token's signature and expiration in a single parse, or reuses the claims of a token that was
+     *    already verified.
+     * 3. Builds the user details from the claims if the token embeds the user's authorities, and otherwise
+     *    loads them via UserService, for tokens issued before authorities were embedded.
+     * 4. Sets the authentication in the SecurityContextHolder.
      * 5. Passes the request to the next filter in the chain, maintaining Spring Boot’s request processing flow.
      *
      * @param request     the incoming HTTP request containing headers and context
@@ -52,17 +54,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
 
-        if (header != null && header.startsWith("Bearer ")) {
-            token = header.substring(7);
-            username = jwtUtil.extractUsername(token);
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(token, userDetails)) {
+        if (header != null && header.startsWith("Bearer ") && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<JwtClaims> claims = verifiedTokenCache.verify(header.substring(7));
+            if (claims.isPresent()) {
+                UserDetails userDetails = toUserDetails(claims.get());
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -70,4 +66,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails toUserDetails(JwtClaims claims) {
+        if (!claims.hasAuthorities()) {
+            return userDetailsService.loadUserByUsername(claims.subject());
+        }
+        return User.withUsername(claims.subject())
+                .password("")
+                .authorities(claims.authorities().toArray(String[]::new))
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.smartcalender.app.config;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The verified claims of an access token, read by {@link JwtUtil#parseToken(String)} in a single parse.
+ *
+ * @param subject the username the token was issued to
+ * @param issuedAt when the token was issued, to the second
+ * @param expiresAt when the token expires
+ * @param authorities the authorities granted to the user, or an empty list for tokens issued without them
+ */
+public record JwtClaims(String subject, Instant issuedAt, Instant expiresAt, List<String> authorities) {
+
+    /**
+     * Checks whether the token carries the user's authorities, so the user does not need to be loaded.
+     *
+     * @return true if the token embeds authorities, false otherwise
+     */
+    public boolean hasAuthorities() {
+        return !authorities.isEmpty();
+    }
+}
@@ -1,25 +1,29 @@
 package com.smartcalender.app.config;
 
-import com.smartcalender.app.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
 
 /**
  * Utility class for managing JSON Web Tokens (JWT) in a Spring Boot application.
- * This class handles the generation, validation, and extraction of data from JWT tokens,
+ * This class handles the generation and verification of JWT tokens,
  * which serve as the backbone of stateless authentication and authorization.
  * It integrates seamlessly with Spring Security's UserDetails to support secure user identification
  * and session-less request handling.
@@ -33,7 +37,15 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}")
     private long jwtExpiration;
 
-    private Key key;
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    static final String AUTHORITIES_CLAIM = "authorities";
+
+    private SecretKey key;
+
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private JwtParser parser;
 
     /**
      * Initializes the JWT signing key from the environment variable.
@@ -45,18 +57,22 @@ public class JwtUtil {
         // Decode base64 secret and create signing key
         byte[] keyBytes = Base64.getDecoder().decode(jwtSecret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser().verifyWith(key).build();
     }
 
     /**
      * Generates a JWT token for a user based on their UserDetails.
-     * The token encapsulates the username as the subject and is signed with a secure key,
-     * enabling stateless authentication for subsequent API requests.
+     * The token encapsulates the username as the subject and the user's authorities, and is signed with a
+     * secure key, enabling stateless authentication for subsequent API requests without loading the user.
      *
      * @param userDetails the UserDetails object containing the username and authorities
      * @return a signed JWT token as a string
      */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -80,77 +96,25 @@ public class JwtUtil {
     }
 
     /**
-     * Validates a JWT token by checking its username and expiration status.
-     * This method ensures the token matches the provided UserDetails and hasn’t expired,
-     * forming a critical step in securing API endpoints against unauthorized access.
-     *
-     * @param token       the JWT token to validate
-     * @param userDetails the UserDetails to compare against the token's subject
-     * @return true if the token is valid and unexpired, false otherwise
-     */
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    /**
-     * Extracts the username from a JWT token’s subject claim.
-     * This utility method retrieves the user identifier embedded in the token,
-     * facilitating user-specific authentication checks.
-     *
-     * @param token the JWT token
-     * @return the username stored in the token
-     */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    /**
-     * Retrieves the expiration date from a JWT token.
-     * This method supports expiration checks to ensure tokens remain valid only for their intended duration.
-     *
-     * @param token the JWT token
-     * @return the expiration Date of the token
-     */
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    /**
-     * Extracts a specific claim from a JWT token using a provided resolver function.
-     * This generic method optimizes token parsing by allowing flexible claim retrieval,
-     * supporting extensibility for future claim-based features.
-     *
-     * @param token          the JWT token
-     * @param claimsResolver a function to extract the desired claim from the token’s claims
-     * @param <T>            the type of the claim to extract
-     * @return the extracted claim value
-     */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    /**
-     * Parses a JWT token to retrieve all embedded claims.
-     * This method verifies the token’s signature using the secure key,
-     * ensuring its integrity and authenticity before exposing its payload.
-     *
-     * @param token the JWT token
-     * @return all claims contained within the token
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody();
-    }
-
-    /**
-     * Checks if a JWT token has expired by comparing its expiration claim to the current time.
-     * This method enforces time-based security by rejecting expired tokens.
+     * Verifies a JWT token and returns its claims in a single parse.
+     * The signature and expiration are checked once, so callers should use the returned claims
+     * instead of extracting individual claims from the token again.
      *
      * @param token the JWT token
-     * @return true if the token is expired, false otherwise
+     * @return the verified claims, or an empty Optional if the token is malformed, forged, expired or revoked
      */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Optional<JwtClaims> parseToken(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+            JwtClaims verified = new JwtClaims(
+                    claims.getSubject(),
+                    claims.getIssuedAt() == null ? Instant.EPOCH : claims.getIssuedAt().toInstant(),
+                    claims.getExpiration().toInstant(),
+                    authorities == null ? List.of() : authorities.stream().map(String::valueOf).toList());
+            return tokenRevocations.isRevoked(verified) ? Optional.empty() : Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.smartcalender.app.config;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * The password hashing algorithms {@link TunablePasswordEncoder} can hash with, each with a single strength knob:
+ * the log2 cost for BCrypt and the iteration count for PBKDF2 and Argon2.
+ * The minimum strengths are the defaults Spring Security ships with, so calibration never weakens a hash.
+ */
+public enum PasswordHashAlgorithm {
+
+    BCRYPT("bcrypt", 10, 31) {
+        @Override
+        PasswordEncoder encoder(int strength) {
+            return new BCryptPasswordEncoder(strength);
+        }
+
+        @Override
+        int scale(int strength, double factor) {
+            // Every step of the cost doubles the work
+            return strength + (int) Math.floor(Math.log(factor) / Math.log(2));
+        }
+    },
+
+    PBKDF2("pbkdf2", 310_000, 100_000_000) {
+        @Override
+        PasswordEncoder encoder(int strength) {
+            return new Pbkdf2PasswordEncoder("", 16, strength, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+        }
+    },
+
+    ARGON2("argon2", 2, 1_000) {
+        @Override
+        PasswordEncoder encoder(int strength) {
+            return new Argon2PasswordEncoder(16, 32, 1, 1 << 14, strength);
+        }
+    };
+
+    private final String id;
+    private final int minimumStrength;
+    private final int maximumStrength;
+
+    PasswordHashAlgorithm(String id, int minimumStrength, int maximumStrength) {
+        this.id = id;
+        this.minimumStrength = minimumStrength;
+        this.maximumStrength = maximumStrength;
+    }
+
+    /**
+     * Creates an encoder hashing with this algorithm at the given strength.
+     *
+     * @param strength the cost or iteration count
+     * @return the encoder
+     */
+    abstract PasswordEncoder encoder(int strength);
+
+    /**
+     * Returns the strength that makes a hash take {@code factor} times as long as one at {@code strength}.
+     * The work grows linearly with the iteration count unless the algorithm says otherwise.
+     *
+     * @param strength the measured strength
+     * @param factor how many times longer the hash may take
+     * @return the scaled strength
+     */
+    int scale(int strength, double factor) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.floor(strength * factor));
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public int minimumStrength() {
+        return minimumStrength;
+    }
+
+    public int maximumStrength() {
+        return maximumStrength;
+    }
+
+    /**
+     * Looks up an algorithm by its id, as used in the {@code password-hashing.algorithm} property and in stored hashes.
+     *
+     * @param id the algorithm id, e.g. "bcrypt"
+     * @return the algorithm
+     * @throws IllegalArgumentException if no algorithm has that id
+     */
+    public static PasswordHashAlgorithm fromId(String id) {
+        return Arrays.stream(values())
+                .filter(algorithm -> algorithm.id.equalsIgnoreCase(id.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown password hashing algorithm: " + id));
+    }
+}
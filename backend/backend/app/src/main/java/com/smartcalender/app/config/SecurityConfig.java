@@ -1,5 +1,6 @@
 package com.smartcalender.app.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -10,12 +11,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 /**
  * Configures Spring Security for the SmartCalender application.
  * This class defines the security policies, including URL-based access control,
@@ -74,14 +75,32 @@ public class SecurityConfig {
 
     /**
      * Provides a password encoder bean for secure password hashing.
-     * This method configures BCryptPasswordEncoder, a strong, adaptive hashing algorithm,
-     * to ensure passwords are securely stored and verified during authentication.
+     * This method configures a {@link TunablePasswordEncoder}, which hashes new passwords with the configured
+     * algorithm (BCrypt, PBKDF2 or Argon2) and strength, records both in every stored hash and still verifies
+     * the plain BCrypt hashes stored before. Hashes below the target are rehashed on the next successful login.
+     * Without a configured strength, the strength is calibrated on this host at startup to meet the target duration.
+     * Hashing runs on a bounded pool of its own (see {@link BoundedPasswordEncoder}), so bursts of logins
+     * cannot starve the request threads serving the rest of the API.
      *
-     * @return a PasswordEncoder instance using BCrypt
+     * @param algorithm the id of the algorithm new hashes are made with
+     * @param strength the cost or iteration count of new hashes, or 0 to calibrate it at startup
+     * @param targetDuration how long one hash should take when calibrating
+     * @param threads the number of hashing threads, or 0 for half of the available processors
+     * @param queueCapacity how many hashes may wait for a thread before requests are rejected with 503
+     * @return the PasswordEncoder instance
      */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "close")
+    public BoundedPasswordEncoder passwordEncoder(@Value("${password-hashing.algorithm:bcrypt}") String algorithm,
+                                                  @Value("${password-hashing.strength:0}") int strength,
+                                                  @Value("${password-hashing.target-duration:PT0.1S}") Duration targetDuration,
+                                                  @Value("${password-hashing.threads:0}") int threads,
+                                                  @Value("${password-hashing.queue-capacity:32}") int queueCapacity) {
+        PasswordHashAlgorithm hashAlgorithm = PasswordHashAlgorithm.fromId(algorithm);
+        int hashStrength = strength > 0 ? strength : TunablePasswordEncoder.calibrate(hashAlgorithm, targetDuration);
+        System.out.println("Password hashing: " + hashAlgorithm.id() + " with strength " + hashStrength);
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new TunablePasswordEncoder(hashAlgorithm, hashStrength), poolSize, queueCapacity);
     }
 
     /**
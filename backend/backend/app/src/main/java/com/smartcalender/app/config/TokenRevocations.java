@@ -0,0 +1,97 @@
+package com.smartcalender.app.config;
+
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "not before" instants of access tokens. Access tokens are stateless and are no longer checked against the
+ * user on every request, so revoking a user's sessions or changing their password records the instant here and every
+ * token of the user issued before it is refused by {@link JwtUtil} and {@link VerifiedTokenCache}.
+ *
+ * The instant is stored on the user in the surrounding transaction and takes effect once it commits. Instants are
+ * kept in memory for as long as a token issued before them could still be valid, and are reloaded on startup.
+ * Tokens carry their issue time to the second, so the instant is rounded down to the second as well: a token issued
+ * in the same second before the revocation stays valid, while a token issued right after it is never refused.
+ */
+@Component
+public class TokenRevocations {
+
+    private final UserRepository userRepository;
+    private final long tokenLifetimeMillis;
+    private final Map<String, Instant> notBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocations(UserRepository userRepository, @Value("${jwt.expiration:86400000}") long tokenLifetimeMillis) {
+        this.userRepository = userRepository;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+    }
+
+    @PostConstruct
+    void load() {
+        for (UserRepository.TokenRevocation revocation : userRepository.findTokenRevocationsSince(oldestRelevant())) {
+            notBefore.merge(revocation.getUsername(), revocation.getTokensNotBefore(), TokenRevocations::later);
+        }
+    }
+
+    /**
+     * Revokes every access token issued to a user until now. The instant is set on the user, which the caller saves
+     * in the surrounding transaction, and is enforced once that transaction commits.
+     *
+     * @param user the user whose tokens are revoked
+     */
+    public void revokeTokensOf(User user) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        user.setTokensNotBefore(now);
+        String username = user.getUsername();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(username, now);
+                }
+            });
+        } else {
+            apply(username, now);
+        }
+    }
+
+    /**
+     * Checks whether a token was issued before its user's tokens were revoked.
+     *
+     * @param claims the verified claims of the token
+     * @return true if the token must be refused, false otherwise
+     */
+    public boolean isRevoked(JwtClaims claims) {
+        Instant revokedAt = notBefore.get(claims.subject());
+        if (revokedAt == null) {
+            return false;
+        }
+        if (revokedAt.isBefore(oldestRelevant())) {
+            // Every token issued before it has expired, so it can no longer refuse anything
+            notBefore.remove(claims.subject(), revokedAt);
+            return false;
+        }
+        return claims.issuedAt().isBefore(revokedAt);
+    }
+
+    private void apply(String username, Instant now) {
+        notBefore.merge(username, now, TokenRevocations::later);
+    }
+
+    private Instant oldestRelevant() {
+        return Instant.now().minusMillis(tokenLifetimeMillis);
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
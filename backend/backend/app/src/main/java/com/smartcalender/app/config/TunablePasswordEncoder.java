@@ -0,0 +1,150 @@
+package com.smartcalender.app.config;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Delegating password encoder that records the algorithm and strength of every hash it produces, and reports hashes
+ * made with a different algorithm or a lower strength than the configured target as needing an upgrade.
+ * New hashes are stored as {@code {algorithm:strength}hash}, e.g. {@code {bcrypt:12}$2a$12$...}.
+ * Hashes without that prefix are the plain BCrypt hashes stored before, and are read as BCrypt with the cost
+ * embedded in the hash.
+ *
+ * A hash is only upgraded to a lower strength when the algorithm changes, so hosts calibrated to slightly different
+ * strengths do not keep rehashing each other's passwords.
+ */
+public class TunablePasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern PREFIX = Pattern.compile("^\\{([a-z0-9]+):(\\d+)}");
+    private static final Pattern LEGACY_BCRYPT = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final HashSpec target;
+    private final Map<HashSpec, PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+    public TunablePasswordEncoder(PasswordHashAlgorithm algorithm, int strength) {
+        if (strength < algorithm.minimumStrength() || strength > algorithm.maximumStrength()) {
+            throw new IllegalArgumentException("Strength of " + algorithm.id() + " must be between "
+                    + algorithm.minimumStrength() + " and " + algorithm.maximumStrength() + ", was " + strength);
+        }
+        this.target = new HashSpec(algorithm, strength);
+    }
+
+    /**
+     * The algorithm and strength of a stored hash.
+     *
+     * @param algorithm the algorithm the hash was made with
+     * @param strength the cost or iteration count it was made with
+     */
+    public record HashSpec(PasswordHashAlgorithm algorithm, int strength) {
+    }
+
+    /**
+     * Returns the algorithm and strength new hashes are made with.
+     *
+     * @return the target of this encoder
+     */
+    public HashSpec target() {
+        return target;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return "{" + target.algorithm().id() + ":" + target.strength() + "}" + encoderFor(target).encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Optional<HashSpec> spec = describe(encodedPassword);
+        if (rawPassword == null || spec.isEmpty()) {
+            return false;
+        }
+        return encoderFor(spec.get()).matches(rawPassword, stripPrefix(encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return describe(encodedPassword)
+                .map(spec -> spec.algorithm() != target.algorithm() || spec.strength() < target.strength())
+                .orElse(false);
+    }
+
+    /**
+     * Reads the algorithm and strength a stored hash was made with.
+     *
+     * @param encodedPassword the stored hash
+     * @return the algorithm and strength, or an empty Optional if the hash is not in a known format
+     */
+    public static Optional<HashSpec> describe(String encodedPassword) {
+        if (encodedPassword == null) {
+            return Optional.empty();
+        }
+
+        Matcher prefix = PREFIX.matcher(encodedPassword);
+        if (prefix.find()) {
+            return Arrays.stream(PasswordHashAlgorithm.values())
+                    .filter(algorithm -> algorithm.id().equals(prefix.group(1)))
+                    .findFirst()
+                    .flatMap(algorithm -> parseStrength(prefix.group(2)).map(strength -> new HashSpec(algorithm, strength)));
+        }
+
+        Matcher legacy = LEGACY_BCRYPT.matcher(encodedPassword);
+        if (legacy.find()) {
+            return Optional.of(new HashSpec(PasswordHashAlgorithm.BCRYPT, Integer.parseInt(legacy.group(1))));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Benchmarks an algorithm on this host and returns the highest strength whose hash still fits the target
+     * duration, but never less than the algorithm's minimum strength.
+     *
+     * @param algorithm the algorithm to calibrate
+     * @param target how long one hash may take
+     * @return the calibrated strength
+     */
+    public static int calibrate(PasswordHashAlgorithm algorithm, Duration target) {
+        int strength = algorithm.minimumStrength();
+        PasswordEncoder encoder = algorithm.encoder(strength);
+
+        // The first hash warms up the JIT and is not measured
+        encoder.encode("calibration");
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        double factor = (double) target.toNanos() / Math.max(1, fastest);
+        if (factor <= 1) {
+            return strength;
+        }
+        int scaled = algorithm.scale(strength, factor);
+        return Math.max(strength, Math.min(algorithm.maximumStrength(), scaled));
+    }
+
+    private PasswordEncoder encoderFor(HashSpec spec) {
+        return encoders.computeIfAbsent(spec, key -> key.algorithm().encoder(key.strength()));
+    }
+
+    private static String stripPrefix(String encodedPassword) {
+        Matcher prefix = PREFIX.matcher(encodedPassword);
+        return prefix.find() ? encodedPassword.substring(prefix.end()) : encodedPassword;
+    }
+
+    private static Optional<Integer> parseStrength(String strength) {
+        try {
+            return Optional.of(Integer.parseInt(strength));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.smartcalender.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size-bounded cache of verified access tokens in front of {@link JwtUtil}.
+ * Clients send the same access token on every request of a session, so the claims of a token are kept after
+ * its first verification and repeat requests skip decoding, parsing and signature verification entirely.
+ *
+ * Tokens are keyed by their SHA-256 hash, so the cache never holds usable credentials. An entry is never
+ * served after its token expires or after {@link TokenRevocations} revoked the tokens of its user, e.g. when
+ * their sessions are revoked or their password changes.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocations tokenRevocations;
+    private final int maxEntries;
+    private final Map<String, JwtClaims> entries;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil, TokenRevocations tokenRevocations,
+                              @Value("${token-cache.max-entries:10000}") int maxEntries) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocations = tokenRevocations;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtClaims> eldest) {
+                return size() > VerifiedTokenCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the verified claims of a token, verifying it with {@link JwtUtil#parseToken(String)} on a miss.
+     *
+     * @param token the JWT token
+     * @return the verified claims, or an empty Optional if the token is malformed, forged, expired or revoked
+     */
+    public Optional<JwtClaims> verify(String token) {
+        String hash = hash(token);
+        Instant now = Instant.now();
+        synchronized (this) {
+            JwtClaims cached = entries.get(hash);
+            if (cached != null) {
+                boolean revoked = tokenRevocations.isRevoked(cached);
+                if (cached.expiresAt().isAfter(now) && !revoked) {
+                    return Optional.of(cached);
+                }
+                entries.remove(hash);
+                if (revoked) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        Optional<JwtClaims> verified = jwtUtil.parseToken(token);
+        verified.ifPresent(claims -> {
+            synchronized (this) {
+                entries.put(hash, claims);
+            }
+        });
+        return verified;
+    }
+
+    /**
+     * Returns the number of cached tokens.
+     *
+     * @return the number of cached tokens
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.smartcalender.app.config;
 
+import com.smartcalender.app.service.KeysetCursor;
+import jakarta.persistence.EntityManagerFactory;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -13,6 +17,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final EntityManagerFactory entityManagerFactory;
+
+    public WebConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
     /**
      * Configures CORS mappings to enable cross-origin requests for the API.
      * This method allows the frontend to access
@@ -28,6 +38,22 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/api/**")
                 .allowedOrigins("*", "http://localhost:3000")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("*");
+                .allowedHeaders("*")
+                .exposedHeaders(KeysetCursor.NEXT_CURSOR_HEADER);
+    }
+
+    /**
+     * Keeps an EntityManager open for the whole request, as Spring Boot's open-in-view does, except on the
+     * authentication endpoints. A login waits for the password hashing pool, and an open EntityManager would hold
+     * the database connection of its user lookup until the response is written, so a storm of logins could drain
+     * the connection pool. Boot's own interceptor is turned off with {@code spring.jpa.open-in-view=false}.
+     *
+     * @param registry the InterceptorRegistry to add the interceptor to
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/api/auth/**");
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,29 @@
 package com.smartcalender.app.controller;
 
 import com.smartcalender.app.auth.SecurityUtils;
+import com.smartcalender.app.dto.ActivityBatchOperation;
 import com.smartcalender.app.dto.ActivityDTO;
+import com.smartcalender.app.dto.BatchResultDTO;
 import com.smartcalender.app.dto.CreateActivityRequest;
+import com.smartcalender.app.dto.IcsImportDTO;
 import com.smartcalender.app.service.ActivityService;
+import com.smartcalender.app.service.BatchOperations;
+import com.smartcalender.app.service.ExportService;
+import com.smartcalender.app.service.IcsImportService;
+import com.smartcalender.app.service.KeysetCursor;
+import com.smartcalender.app.service.KeysetPage;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * ActivityController is a REST controller that provides endpoints for managing and retrieving activities.
@@ -24,10 +36,14 @@ import java.time.LocalDate;
 @RequestMapping("/api/activities")
 public class ActivityController {
     private final ActivityService activityService;
+    private final ExportService exportService;
+    private final IcsImportService icsImportService;
 
 
-    public ActivityController(ActivityService activityService) {
+    public ActivityController(ActivityService activityService, ExportService exportService, IcsImportService icsImportService) {
         this.activityService = activityService;
+        this.exportService = exportService;
+        this.icsImportService = icsImportService;
     }
 
     /**
@@ -50,23 +66,99 @@ public class ActivityController {
     }
 
     /**
-     * Retrieves all activities associated with the currently authenticated user.
-     * If the user is authenticated, a list of activities is returned with a status of 200 (OK).
+     * Applies a list of create, update and delete operations to the activities of the currently authenticated user
+     * in one transaction, e.g. to replay a device's offline queue in a single request. Each operation has an
+     * {@code action}, the {@code id} of the activity for updates and deletes, and the {@code activity} to save for
+     * creates and updates. An operation that fails does not stop the others; its result carries the error and status.
+     * The saved activities carry warnings about the activities they overlap after the whole batch was applied.
+     * If the user is not authenticated, an unauthorized response is returned.
+     *
+     * @param operations the operations, at most {@value BatchOperations#MAX_OPERATIONS}
+     * @return a ResponseEntity containing one BatchResultDTO per operation and a status of 200 (OK) if the user is
+     *         authenticated, or a ResponseEntity with a status of 401 (Unauthorized) if the user is not authenticated
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(@RequestBody List<ActivityBatchOperation> operations) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+
+        if (currentUser != null) {
+            List<BatchResultDTO<ActivityDTO>> results = activityService.applyBatch(currentUser, operations);
+            return ResponseEntity.status(HttpStatus.OK).body(results);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    /**
+     * Retrieves a page of the activities associated with the currently authenticated user.
+     * If the user is authenticated, a list of activities is returned with a status of 200 (OK). If there are more
+     * activities, the continuation token for the next page is returned in the {@value KeysetCursor#NEXT_CURSOR_HEADER}
+     * header and can be passed back as the {@code cursor} parameter.
      * If the user is not authenticated, an unauthorized response is returned with a status of 401 (Unauthorized).
      *
+     * @param cursor the continuation token returned with the previous page, omitted for the first page
+     * @param size the maximum number of activities to return, capped at {@value KeysetCursor#MAX_PAGE_SIZE}; every
+     *             activity is returned if neither a size nor a cursor is given
      * @return a ResponseEntity containing a list of ActivityDTO objects and a status of 200 (OK) if the user is authenticated,
      *         or an empty ResponseEntity with a status of 401 (Unauthorized) if the user is not authenticated
      */
     @GetMapping("/all")
-    public ResponseEntity<?> getAllActivities() {
+    public ResponseEntity<?> getAllActivities(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size) {
         UserDetails currentUser = SecurityUtils.getCurrentUser();
         if (currentUser != null) {
-            return ResponseEntity.status(HttpStatus.OK).body(activityService.getAllActivities(currentUser));
+            KeysetPage<ActivityDTO> activities = activityService.getAllActivities(currentUser, cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (activities.nextCursor() != null) {
+                response.header(KeysetCursor.NEXT_CURSOR_HEADER, activities.nextCursor());
+            }
+            // Wrapped like the other activity listings, which clients read from the body field
+            return response.body(ResponseEntity.status(HttpStatus.OK).body(activities.items()));
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
     }
 
+    /**
+     * Exports every activity of the currently authenticated user as a JSON array.
+     * The response is streamed from the database as it is written, so exporting a large history
+     * does not load it into memory. If the user is not authenticated, an unauthorized response
+     * is returned with a status of 401 (Unauthorized).
+     *
+     * @return a ResponseEntity streaming a JSON array of ActivityDTO objects with a status of 200 (OK) if the user
+     *         is authenticated, or an empty ResponseEntity with a status of 401 (Unauthorized) if the user is not authenticated
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportActivities() {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+        if (currentUser != null) {
+            return ResponseEntity.status(HttpStatus.OK)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> exportService.exportActivities(currentUser, out));
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    /**
+     * Imports the events of an iCalendar (.ics) file, e.g. a Google Calendar or Outlook export, as activities of the
+     * currently authenticated user. The file is sent as the raw request body and is read while it is uploaded, so
+     * exports of any size can be imported. If the user is not authenticated, an unauthorized response is returned
+     * with a status of 401 (Unauthorized).
+     *
+     * @param body the iCalendar data
+     * @return a ResponseEntity containing the number of imported and skipped events with a status of 200 (OK) if the
+     *         user is authenticated, or an empty ResponseEntity with a status of 401 (Unauthorized) if the user is not
+     *         authenticated
+     */
+    @PostMapping("/import/ics")
+    public ResponseEntity<?> importIcs(InputStream body) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+        if (currentUser != null) {
+            IcsImportDTO result = icsImportService.importActivities(currentUser, body);
+            return ResponseEntity.status(HttpStatus.OK).body(result);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
     /**
      * Retrieves a specific activity by its unique identifier for the currently authenticated user.
      * The method checks the current user's authentication status, and fetches the activity data if authorized.
@@ -148,20 +240,32 @@ public class ActivityController {
     }
 
     /**
-     * Retrieves a list of future activities for the currently authenticated user.
+     * Retrieves a page of future activities for the currently authenticated user.
      * If the user is authenticated, the method fetches the future activities
-     * using the activity service and returns them with an HTTP status of 200 (OK).
+     * using the activity service and returns them with an HTTP status of 200 (OK). If there are more
+     * activities, the continuation token for the next page is returned in the {@value KeysetCursor#NEXT_CURSOR_HEADER}
+     * header and can be passed back as the {@code cursor} parameter.
      * If the user is not authenticated, an HTTP status of 401 (Unauthorized) is returned.
      *
+     * @param cursor the continuation token returned with the previous page, omitted for the first page
+     * @param size the maximum number of activities to return, capped at {@value KeysetCursor#MAX_PAGE_SIZE}; every
+     *             activity is returned if neither a size nor a cursor is given
      * @return a ResponseEntity containing a list of ActivityDTO objects with a status of 200 (OK)
      *         if the user is authenticated, or an empty ResponseEntity with a status of 401 (Unauthorized)
      *         if the user is not authenticated
      */
     @GetMapping("/future")
-    public ResponseEntity<?> getFutureActivities() {
+    public ResponseEntity<?> getFutureActivities(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size) {
         UserDetails currentUser = SecurityUtils.getCurrentUser();
         if (currentUser != null) {
-            return ResponseEntity.status(HttpStatus.OK).body(activityService.getFutureActivities(currentUser));
+            KeysetPage<ActivityDTO> activities = activityService.getFutureActivities(currentUser, cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (activities.nextCursor() != null) {
+                response.header(KeysetCursor.NEXT_CURSOR_HEADER, activities.nextCursor());
+            }
+            // Wrapped like the other activity listings, which clients read from the body field
+            return response.body(ResponseEntity.status(HttpStatus.OK).body(activities.items()));
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
@@ -208,4 +312,25 @@ public class ActivityController {
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves every pair of overlapping activities for the currently authenticated user within the
+     * specified date range. If the user is not authenticated, an HTTP status of 401 (Unauthorized) is returned.
+     *
+     * @param start the starting date of the range (inclusive), formatted as ISO date
+     * @param end the ending date of the range (inclusive), formatted as ISO date
+     * @return a ResponseEntity containing a list of ActivityConflictDTO objects with a status of 200 (OK)
+     *         if the user is authenticated, or an empty ResponseEntity with a status of 401 (Unauthorized)
+     *         if the user is not authenticated
+     */
+    @GetMapping("/conflicts")
+    public ResponseEntity<?> getConflictsBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+        if (currentUser != null) {
+            return ResponseEntity.status(HttpStatus.OK).body(activityService.getConflictsBetween(currentUser, start, end));
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+}
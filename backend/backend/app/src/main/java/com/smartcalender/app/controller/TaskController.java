@@ -2,16 +2,24 @@ package com.smartcalender.app.controller;
 
 import com.smartcalender.app.auth.SecurityUtils;
 import com.smartcalender.app.dto.ActivityDTO;
+import com.smartcalender.app.dto.BatchResultDTO;
 import com.smartcalender.app.dto.ConvertTaskRequest;
 import com.smartcalender.app.dto.CreateTaskRequest;
+import com.smartcalender.app.dto.TaskBatchOperation;
 import com.smartcalender.app.dto.TaskDTO;
+import com.smartcalender.app.service.BatchOperations;
+import com.smartcalender.app.service.ExportService;
+import com.smartcalender.app.service.KeysetCursor;
+import com.smartcalender.app.service.KeysetPage;
 import com.smartcalender.app.service.TaskService;
 import jakarta.validation.Valid;
 import org.springframework.boot.actuate.autoconfigure.observation.ObservationProperties;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -28,25 +36,57 @@ import java.util.List;
 @RequestMapping("/api/tasks")
 public class TaskController {
     private final TaskService taskService;
+    private final ExportService exportService;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, ExportService exportService) {
         this.taskService = taskService;
+        this.exportService = exportService;
     }
 
     /**
-     * Retrieves all tasks associated with the currently authenticated user.
+     * Retrieves a page of the tasks associated with the currently authenticated user.
+     * If there are more tasks, the continuation token for the next page is returned in the
+     * {@value KeysetCursor#NEXT_CURSOR_HEADER} header and can be passed back as the {@code cursor} parameter.
      * If the user is not authenticated, the request will return an HTTP 401 Unauthorized status.
      *
+     * @param cursor the continuation token returned with the previous page, omitted for the first page
+     * @param size the maximum number of tasks to return, capped at {@value KeysetCursor#MAX_PAGE_SIZE}; every task
+     *             is returned if neither a size nor a cursor is given
      * @return a ResponseEntity containing a list of TaskDTO objects if the user is authenticated,
      *         or an HTTP 401 Unauthorized response if authentication fails
      * @author David Lexe, Carl Lundholm
      */
     @GetMapping("/all")
-    public ResponseEntity<?> getTasks() {
+    public ResponseEntity<?> getTasks(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size) {
         UserDetails currentUser = SecurityUtils.getCurrentUser();
         if (currentUser != null) {
-            List<TaskDTO> tasks = taskService.getTasksForUser(currentUser);
-            return ResponseEntity.ok(tasks);
+            KeysetPage<TaskDTO> tasks = taskService.getTasksForUser(currentUser, cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (tasks.nextCursor() != null) {
+                response.header(KeysetCursor.NEXT_CURSOR_HEADER, tasks.nextCursor());
+            }
+            return response.body(tasks.items());
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    /**
+     * Exports every task of the currently authenticated user as a JSON array.
+     * The response is streamed from the database as it is written, so exporting a large history
+     * does not load it into memory.
+     * If the user is not authenticated, the request will return an HTTP 401 Unauthorized status.
+     *
+     * @return a ResponseEntity streaming a JSON array of TaskDTO objects if the user is authenticated,
+     *         or an HTTP 401 Unauthorized response if authentication fails
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+        if (currentUser != null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> exportService.exportTasks(currentUser, out));
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
@@ -90,6 +130,27 @@ public class TaskController {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
+    /**
+     * Applies a list of create, update and delete operations to the tasks of the currently authenticated user in one
+     * transaction, e.g. to replay a device's offline queue in a single request. Each operation has an
+     * {@code action}, the {@code id} of the task for updates and deletes, and the {@code task} to save for creates
+     * and updates. An operation that fails does not stop the others; its result carries the error and status.
+     * If the user is not authenticated, the request will return an HTTP 401 Unauthorized status.
+     *
+     * @param operations the operations, at most {@value BatchOperations#MAX_OPERATIONS}
+     * @return a ResponseEntity containing one BatchResultDTO per operation if the user is authenticated,
+     *         or an HTTP 401 Unauthorized response if authentication fails
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(@RequestBody List<TaskBatchOperation> operations) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+        if (currentUser != null) {
+            List<BatchResultDTO<TaskDTO>> results = taskService.applyBatch(currentUser, operations);
+            return ResponseEntity.status(HttpStatus.OK).body(results);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
     /**
      * Updates an existing task identified by its unique identifier with new details.
      * The details of the task to be updated are provided in the request body as a TaskDTO object.
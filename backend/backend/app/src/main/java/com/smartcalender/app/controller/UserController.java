@@ -3,22 +3,35 @@ package com.smartcalender.app.controller;
 import com.smartcalender.app.auth.SecurityUtils;
 import com.smartcalender.app.dto.*;
 import com.smartcalender.app.entity.User;
+import com.smartcalender.app.service.ExportService;
 import com.smartcalender.app.service.UserService;
+import com.smartcalender.app.service.UserStatsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
     private final UserService userService;
+    private final ExportService exportService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ExportService exportService) {
         this.userService = userService;
+        this.exportService = exportService;
     }
 
     @GetMapping("/me")
@@ -56,6 +69,49 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
+    @GetMapping("/me/stats/timeseries")
+    public ResponseEntity<?> getActivityTimeseries(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+
+        if (currentUser != null) {
+            ActivityTimeseriesDTO timeseries = userService.getActivityTimeseries(currentUser, granularity, from, to);
+            return ResponseEntity.status(HttpStatus.OK).body(timeseries);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    /**
+     * Streams the activities and tasks of the currently authenticated user as an iCalendar feed for calendar clients
+     * to subscribe to. The feed carries a weak ETag derived from the user's calendar version, so a client polling
+     * with If-None-Match gets a 304 (Not Modified) after a single primary-key lookup until the calendar changes. If the
+     * user is not authenticated, an unauthorized response is returned with a status of 401 (Unauthorized).
+     *
+     * @param request the request, checked for a matching If-None-Match header
+     * @return a ResponseEntity streaming the calendar with a status of 200 (OK), no body if the client's copy is
+     *         current, or an empty ResponseEntity with a status of 401 (Unauthorized) if the user is not authenticated
+     */
+    @GetMapping("/me/calendar.ics")
+    public ResponseEntity<StreamingResponseBody> getCalendarFeed(WebRequest request) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+
+        if (currentUser != null) {
+            UserStatsService.CalendarVersion version = exportService.getCalendarVersion(currentUser);
+            if (request.checkNotModified(version.eTag())) {
+                // The response is already a 304 carrying the ETag
+                return null;
+            }
+            return ResponseEntity.status(HttpStatus.OK)
+                    .contentType(TEXT_CALENDAR)
+                    .eTag(version.eTag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(out -> exportService.exportCalendar(currentUser, out));
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
     @GetMapping("/me/profile-icon")
     public ResponseEntity<?> getProfileIcon() {
         UserDetails currentUser = SecurityUtils.getCurrentUser();
@@ -78,12 +134,25 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
+    @GetMapping("/search/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String q) {
+        UserDetails currentUser = SecurityUtils.getCurrentUser();
+
+        if (currentUser != null) {
+            List<SuggestionDTO> suggestions = userService.suggest(currentUser, q);
+            return ResponseEntity.status(HttpStatus.OK).body(suggestions);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<?> searchForActivitiesOrTasks(@RequestParam String query) {
+    public ResponseEntity<?> searchForActivitiesOrTasks(@RequestParam String query,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(required = false) Integer size) {
         UserDetails currentUser = SecurityUtils.getCurrentUser();
 
         if (currentUser != null) {
-            SearchDTO searchResults = userService.searchForActivitiesOrTasks(currentUser, query);
+            SearchDTO searchResults = userService.searchForActivitiesOrTasks(currentUser, query, page, size);
             if (searchResults != null) {
                 return ResponseEntity.status(HttpStatus.OK).body(searchResults);
             } else {
@@ -0,0 +1,40 @@
+package com.smartcalender.app.dto;
+
+public class ActivityBatchOperation {
+    private BatchAction action;
+    private Long id;
+    private CreateActivityRequest activity;
+
+    public ActivityBatchOperation() {
+    }
+
+    public ActivityBatchOperation(BatchAction action, Long id, CreateActivityRequest activity) {
+        this.action = action;
+        this.id = id;
+        this.activity = activity;
+    }
+
+    public BatchAction getAction() {
+        return action;
+    }
+
+    public void setAction(BatchAction action) {
+        this.action = action;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public CreateActivityRequest getActivity() {
+        return activity;
+    }
+
+    public void setActivity(CreateActivityRequest activity) {
+        this.activity = activity;
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartcalender.app.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class ActivityBucketDTO {
+    private LocalDate start;
+    private long activities;
+    private long minutes;
+    private List<CategoryActivityStatsDTO> categories;
+
+    public ActivityBucketDTO() {
+    }
+
+    public ActivityBucketDTO(LocalDate start, long activities, long minutes, List<CategoryActivityStatsDTO> categories) {
+        this.start = start;
+        this.activities = activities;
+        this.minutes = minutes;
+        this.categories = categories;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDate start) {
+        this.start = start;
+    }
+
+    public long getActivities() {
+        return activities;
+    }
+
+    public void setActivities(long activities) {
+        this.activities = activities;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(long minutes) {
+        this.minutes = minutes;
+    }
+
+    public List<CategoryActivityStatsDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryActivityStatsDTO> categories) {
+        this.categories = categories;
+    }
+}
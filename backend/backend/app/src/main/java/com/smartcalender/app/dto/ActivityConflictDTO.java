@@ -0,0 +1,65 @@
+package com.smartcalender.app.dto;
+
+import com.smartcalender.app.entity.Activity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class ActivityConflictDTO {
+    private LocalDate date;
+    private LocalTime overlapStart;
+    private LocalTime overlapEnd;
+    private ActivityDTO first;
+    private ActivityDTO second;
+
+    public ActivityConflictDTO() {
+    }
+
+    public ActivityConflictDTO(Activity first, Activity second) {
+        this.date = first.getDate();
+        this.overlapStart = first.getStartTime().isAfter(second.getStartTime()) ? first.getStartTime() : second.getStartTime();
+        this.overlapEnd = first.getEndTime().isBefore(second.getEndTime()) ? first.getEndTime() : second.getEndTime();
+        this.first = new ActivityDTO(first);
+        this.second = new ActivityDTO(second);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getOverlapStart() {
+        return overlapStart;
+    }
+
+    public void setOverlapStart(LocalTime overlapStart) {
+        this.overlapStart = overlapStart;
+    }
+
+    public LocalTime getOverlapEnd() {
+        return overlapEnd;
+    }
+
+    public void setOverlapEnd(LocalTime overlapEnd) {
+        this.overlapEnd = overlapEnd;
+    }
+
+    public ActivityDTO getFirst() {
+        return first;
+    }
+
+    public void setFirst(ActivityDTO first) {
+        this.first = first;
+    }
+
+    public ActivityDTO getSecond() {
+        return second;
+    }
+
+    public void setSecond(ActivityDTO second) {
+        this.second = second;
+    }
+}
@@ -2,13 +2,16 @@ package com.smartcalender.app.dto;
 
 import com.smartcalender.app.entity.Activity;
 import com.smartcalender.app.entity.Recurrence;
+import com.smartcalender.app.entity.TimeSlot;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ActivityDTO {
+public class ActivityDTO implements TimeSlot {
     private Long id;
     private String name;
     private String description;
@@ -40,6 +43,8 @@ public class ActivityDTO {
         this.startTime = activity.getStartTime();
         this.endTime = activity.getEndTime();
         this.categoryId = activity.getCategory() != null ? activity.getCategory().getId() : null;
+        this.categoryName = activity.getCategory() != null ? activity.getCategory().getName() : null;
+        this.categoryColor = activity.getCategory() != null ? activity.getCategory().getColor() : null;
         this.userId = activity.getUser() != null ? activity.getUser().getId() : null;
         this.duration = activity.getDuration();
         this.onGoing = activity.isOnGoing();
@@ -58,6 +63,8 @@ public class ActivityDTO {
         this.startTime = activity.getStartTime();
         this.endTime = activity.getEndTime();
         this.categoryId = activity.getCategory() != null ? activity.getCategory().getId() : null;
+        this.categoryName = activity.getCategory() != null ? activity.getCategory().getName() : null;
+        this.categoryColor = activity.getCategory() != null ? activity.getCategory().getColor() : null;
         this.userId = activity.getUser() != null ? activity.getUser().getId() : null;
         this.duration = activity.getDuration();
         this.onGoing = activity.isOnGoing();
@@ -67,6 +74,35 @@ public class ActivityDTO {
         this.recurrence = activity.getRecurrence();
     }
 
+    /**
+     * Creates an activity DTO directly from selected columns. Used by JPQL constructor expressions,
+     * so read-only endpoints do not need to hydrate managed {@code Activity} entities.
+     */
+    public ActivityDTO(Long id, String name, String description, String location, LocalDate date, LocalTime startTime,
+                       LocalTime endTime, Long categoryId, String categoryName, String categoryColor, Long userId,
+                       Recurrence recurrence) {
+        LocalDate today = LocalDate.now();
+        LocalTime now = LocalTime.now();
+
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.location = location;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryColor = categoryColor;
+        this.userId = userId;
+        this.duration = Duration.between(startTime, endTime).toMinutes();
+        this.onGoing = date.equals(today) && now.isAfter(startTime) && now.isBefore(endTime);
+        this.future = LocalDateTime.now().isBefore(LocalDateTime.of(date, startTime));
+        this.validTimeRange = startTime.isBefore(endTime);
+        this.warnings = new ArrayList<>();
+        this.recurrence = recurrence;
+    }
+
     public Long getId() {
         return id;
     }
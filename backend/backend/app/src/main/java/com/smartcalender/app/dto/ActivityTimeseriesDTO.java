@@ -0,0 +1,53 @@
+package com.smartcalender.app.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class ActivityTimeseriesDTO {
+    private String granularity;
+    private LocalDate from;
+    private LocalDate to;
+    private List<ActivityBucketDTO> buckets;
+
+    public ActivityTimeseriesDTO() {
+    }
+
+    public ActivityTimeseriesDTO(String granularity, LocalDate from, LocalDate to, List<ActivityBucketDTO> buckets) {
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.buckets = buckets;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public List<ActivityBucketDTO> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<ActivityBucketDTO> buckets) {
+        this.buckets = buckets;
+    }
+}
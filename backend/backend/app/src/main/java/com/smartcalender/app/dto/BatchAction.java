@@ -0,0 +1,27 @@
+package com.smartcalender.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+public enum BatchAction {
+    CREATE,
+    UPDATE,
+    DELETE;
+
+    /**
+     * Reads an action case-insensitively. Unknown actions are read as {@code null}, so they are reported in the
+     * result of their operation instead of failing the whole batch.
+     */
+    @JsonCreator
+    public static BatchAction fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartcalender.app.dto;
+
+/**
+ * The outcome of one operation of a batch request.
+ *
+ * @param <T> the type of the created or updated item
+ */
+public class BatchResultDTO<T> {
+    private int index;
+    private BatchAction action;
+    private int status;
+    private Long id;
+    private T item;
+    private String error;
+
+    public BatchResultDTO() {
+    }
+
+    public BatchResultDTO(int index, BatchAction action, int status, Long id, String error) {
+        this.index = index;
+        this.action = action;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public BatchAction getAction() {
+        return action;
+    }
+
+    public void setAction(BatchAction action) {
+        this.action = action;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public void setItem(T item) {
+        this.item = item;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,60 @@
+package com.smartcalender.app.dto;
+
+public class CategoryActivityStatsDTO {
+    private Long categoryId;
+    private String categoryName;
+    private String categoryColor;
+    private long activities;
+    private long minutes;
+
+    public CategoryActivityStatsDTO() {
+    }
+
+    public CategoryActivityStatsDTO(Long categoryId, String categoryName, String categoryColor, long activities, long minutes) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryColor = categoryColor;
+        this.activities = activities;
+        this.minutes = minutes;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public String getCategoryColor() {
+        return categoryColor;
+    }
+
+    public void setCategoryColor(String categoryColor) {
+        this.categoryColor = categoryColor;
+    }
+
+    public long getActivities() {
+        return activities;
+    }
+
+    public void setActivities(long activities) {
+        this.activities = activities;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(long minutes) {
+        this.minutes = minutes;
+    }
+}
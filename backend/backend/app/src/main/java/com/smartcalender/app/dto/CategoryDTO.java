@@ -18,6 +18,13 @@ public class CategoryDTO {
         this.userId = userId;
     }
 
+    public CategoryDTO(Long id, String name, String color, Long userId) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.userId = userId.toString();
+    }
+
     public CategoryDTO(Category category) {
         this.id = category.getId();
         this.name = category.getName();
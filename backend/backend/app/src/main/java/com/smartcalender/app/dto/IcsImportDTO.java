@@ -0,0 +1,40 @@
+package com.smartcalender.app.dto;
+
+public class IcsImportDTO {
+    private int imported;
+    private int skipped;
+    private int unsupportedRecurrences;
+
+    public IcsImportDTO() {
+    }
+
+    public IcsImportDTO(int imported, int skipped, int unsupportedRecurrences) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.unsupportedRecurrences = unsupportedRecurrences;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public int getUnsupportedRecurrences() {
+        return unsupportedRecurrences;
+    }
+
+    public void setUnsupportedRecurrences(int unsupportedRecurrences) {
+        this.unsupportedRecurrences = unsupportedRecurrences;
+    }
+}
@@ -1,9 +1,15 @@
 package com.smartcalender.app.dto;
 
+import java.util.List;
+
 public class SearchDTO {
     private String searchText;
+    // Each in rank order; hits gives the order across both
     private ActivityDTO[] activity;
     private TaskDTO[] task;
+    private List<SearchHitDTO> hits;
+    private int totalResults;
+    private int page;
 
     public SearchDTO() {
     }
@@ -14,6 +20,14 @@ public class SearchDTO {
         this.task = tasks;
     }
 
+    public SearchDTO(String searchText, ActivityDTO[] activities, TaskDTO[] tasks, List<SearchHitDTO> hits,
+                     int totalResults, int page) {
+        this(searchText, activities, tasks);
+        this.hits = hits;
+        this.totalResults = totalResults;
+        this.page = page;
+    }
+
     public String getSearchText() {
         return searchText;
     }
@@ -37,4 +51,28 @@ public class SearchDTO {
     public void setTask(TaskDTO[] task) {
         this.task = task;
     }
+
+    public List<SearchHitDTO> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<SearchHitDTO> hits) {
+        this.hits = hits;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public void setTotalResults(int totalResults) {
+        this.totalResults = totalResults;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
 }
@@ -0,0 +1,40 @@
+package com.smartcalender.app.dto;
+
+public class SearchHitDTO {
+    private String type;
+    private Long id;
+    private double score;
+
+    public SearchHitDTO() {
+    }
+
+    public SearchHitDTO(String type, Long id, double score) {
+        this.type = type;
+        this.id = id;
+        this.score = score;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,30 @@
+package com.smartcalender.app.dto;
+
+public class SuggestionDTO {
+    private String name;
+    private String type;
+
+    public SuggestionDTO() {
+    }
+
+    public SuggestionDTO(String name, String type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+}
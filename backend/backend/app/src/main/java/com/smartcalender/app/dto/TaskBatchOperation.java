@@ -0,0 +1,40 @@
+package com.smartcalender.app.dto;
+
+public class TaskBatchOperation {
+    private BatchAction action;
+    private Long id;
+    private CreateTaskRequest task;
+
+    public TaskBatchOperation() {
+    }
+
+    public TaskBatchOperation(BatchAction action, Long id, CreateTaskRequest task) {
+        this.action = action;
+        this.id = id;
+        this.task = task;
+    }
+
+    public BatchAction getAction() {
+        return action;
+    }
+
+    public void setAction(BatchAction action) {
+        this.action = action;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public CreateTaskRequest getTask() {
+        return task;
+    }
+
+    public void setTask(CreateTaskRequest task) {
+        this.task = task;
+    }
+}
@@ -15,10 +15,26 @@ public class TaskDTO {
     private String location;
     private boolean completed;
     private Long categoryId;
+    private String categoryName;
+    private String categoryColor;
     private Recurrence recurrence;
 
     public TaskDTO() {}
 
+    public TaskDTO(Long id, String name, String description, LocalDate date, String location, boolean completed,
+                   Long categoryId, String categoryName, String categoryColor, Recurrence recurrence) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.date = date;
+        this.location = location;
+        this.completed = completed;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryColor = categoryColor;
+        this.recurrence = recurrence;
+    }
+
     public TaskDTO(Task task) {
         this.id = task.getId();
         this.name = task.getName();
@@ -27,6 +43,8 @@ public class TaskDTO {
         this.location = task.getLocation();
         this.completed = task.isCompleted();
         this.categoryId = task.getCategory() != null ? task.getCategory().getId() : null;
+        this.categoryName = task.getCategory() != null ? task.getCategory().getName() : null;
+        this.categoryColor = task.getCategory() != null ? task.getCategory().getColor() : null;
         this.recurrence = task.getRecurrence();
     }
 
@@ -86,6 +104,22 @@ public class TaskDTO {
         this.categoryId = categoryId;
     }
 
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public String getCategoryColor() {
+        return categoryColor;
+    }
+
+    public void setCategoryColor(String categoryColor) {
+        this.categoryColor = categoryColor;
+    }
+
     public Recurrence getRecurrence() {
         return recurrence;
     }
@@ -15,9 +15,10 @@ import java.time.LocalTime;
     @Index(name = "idx_activity_category", columnList = "category_id"),
     @Index(name = "idx_activity_date", columnList = "date")
 })
-public class Activity {
+public class Activity implements TimeSlot {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_seq")
+    @SequenceGenerator(name = "activities_seq", sequenceName = "activities_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -32,11 +33,11 @@ public class Activity {
     @NotNull
     private LocalTime endTime;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @NotNull
     private User user;
@@ -58,6 +59,21 @@ public class Activity {
         this.user = user;
     }
 
+    /**
+     * Creates a detached copy of this activity moved to the given date, representing one occurrence
+     * of a recurring series. The copy keeps the ID of the series so clients can edit it, and must
+     * therefore never be persisted.
+     *
+     * @param occurrenceDate the date of the occurrence
+     * @return a transient copy of this activity on the given date
+     */
+    public Activity occurrenceOn(LocalDate occurrenceDate) {
+        Activity occurrence = new Activity(name, description, occurrenceDate, startTime, endTime, location, category, user);
+        occurrence.id = id;
+        occurrence.recurrence = recurrence;
+        return occurrence;
+    }
+
     public boolean isOnGoing() {
         LocalDate today = LocalDate.now();
         LocalTime now = LocalTime.now();
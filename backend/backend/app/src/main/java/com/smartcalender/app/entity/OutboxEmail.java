@@ -0,0 +1,123 @@
+package com.smartcalender.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * An email waiting in the outbox. Rows are written in the same transaction as the change that triggers the email
+ * and are sent in the background by the EmailOutboxDispatcher, which deletes them once they are delivered.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class OutboxEmail {
+
+    public enum Status {
+        PENDING,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Column(name = "template_id", nullable = false)
+    private long templateId;
+
+    // Template parameters as a JSON object
+    @Column(length = 4000)
+    private String params;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Version
+    private long version;
+
+    public OutboxEmail() {
+    }
+
+    public OutboxEmail(String recipient, String subject, long templateId, String params, Instant createdAt) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.templateId = templateId;
+        this.params = params;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getTemplateId() {
+        return templateId;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,41 @@
+package com.smartcalender.app.entity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * The periods the activity statistics are rolled up by. Weeks are ISO weeks starting on Monday.
+ */
+public enum StatsGranularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * Returns the first day of the period containing a date, which identifies the period.
+     *
+     * @param date a date in the period
+     * @return the first day of the period
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Returns the first day of the period following the one starting on a date.
+     *
+     * @param periodStart the first day of a period
+     * @return the first day of the next period
+     */
+    public LocalDate next(LocalDate periodStart) {
+        return switch (this) {
+            case DAY -> periodStart.plusDays(1);
+            case WEEK -> periodStart.plusWeeks(1);
+            case MONTH -> periodStart.plusMonths(1);
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartcalender.app.entity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Something scheduled on a date between a start and an end time, such as an activity
+ * or a read-only projection of one.
+ */
+public interface TimeSlot {
+
+    String getName();
+
+    LocalDate getDate();
+
+    LocalTime getStartTime();
+
+    LocalTime getEndTime();
+}
@@ -3,6 +3,7 @@ package com.smartcalender.app.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,7 +13,8 @@ import java.util.List;
 })
 public class User {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -30,6 +32,11 @@ public class User {
     @Column(name = "profile_icon")
     private String profileIcon = "icon1";
 
+    // Access tokens issued before this instant are refused, see TokenRevocations
+    @JsonIgnore
+    @Column(name = "tokens_not_before")
+    private Instant tokensNotBefore;
+
     @JsonIgnore
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<RefreshToken> refreshTokens = new ArrayList<>();
@@ -67,6 +74,14 @@ public class User {
         this.password = password;
     }
 
+    public Instant getTokensNotBefore() {
+        return tokensNotBefore;
+    }
+
+    public void setTokensNotBefore(Instant tokensNotBefore) {
+        this.tokensNotBefore = tokensNotBefore;
+    }
+
     public String getEmailAddress() {
         return emailAddress;
     }
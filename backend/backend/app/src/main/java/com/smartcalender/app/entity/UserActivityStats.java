@@ -0,0 +1,121 @@
+package com.smartcalender.app.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The number of activities and their total minutes in one category and day, ISO week or month of a user, kept up
+ * to date by the activity mutators in the same transaction as the change. The UserStatsReconciler recomputes them
+ * from the activities. Activities without a category are counted under {@link #NO_CATEGORY}.
+ */
+@Entity
+@Table(name = "user_activity_stats")
+@IdClass(UserActivityStats.Key.class)
+public class UserActivityStats {
+
+    public static final long NO_CATEGORY = 0L;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private StatsGranularity granularity;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    @Id
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private long activities;
+
+    @Column(nullable = false)
+    private long minutes;
+
+    public UserActivityStats() {
+    }
+
+    public UserActivityStats(Long userId, StatsGranularity granularity, LocalDate periodStart, Long categoryId,
+                             long activities, long minutes) {
+        this.userId = userId;
+        this.granularity = granularity;
+        this.periodStart = periodStart;
+        this.categoryId = categoryId;
+        this.activities = activities;
+        this.minutes = minutes;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public StatsGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getActivities() {
+        return activities;
+    }
+
+    public void setActivities(long activities) {
+        this.activities = activities;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(long minutes) {
+        this.minutes = minutes;
+    }
+
+    public Key getKey() {
+        return new Key(userId, granularity, periodStart, categoryId);
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private StatsGranularity granularity;
+        private LocalDate periodStart;
+        private Long categoryId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, StatsGranularity granularity, LocalDate periodStart, Long categoryId) {
+            this.userId = userId;
+            this.granularity = granularity;
+            this.periodStart = periodStart;
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(userId, key.userId)
+                    && granularity == key.granularity && Objects.equals(periodStart, key.periodStart)
+                    && Objects.equals(categoryId, key.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, granularity, periodStart, categoryId);
+        }
+    }
+}
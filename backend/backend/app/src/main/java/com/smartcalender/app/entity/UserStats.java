@@ -0,0 +1,76 @@
+package com.smartcalender.app.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * The task counters of a user, kept up to date by the task mutators in the same transaction as the change so the
+ * dashboard can read them with a single primary-key lookup. The UserStatsReconciler recomputes them from the tasks.
+ *
+ * The calendar version counts the changes to the user's activities, tasks and categories and is only written by the
+ * upsert in UserStatsRepository, so the calendar feed can tell whether it changed without reading either table.
+ */
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "total_tasks", nullable = false)
+    private long totalTasks;
+
+    @Column(name = "completed_tasks", nullable = false)
+    private long completedTasks;
+
+    @ColumnDefault("0")
+    @Column(name = "calendar_version", nullable = false, updatable = false)
+    private long calendarVersion;
+
+    @Column(name = "calendar_changed_at", updatable = false)
+    private Instant calendarChangedAt;
+
+    public UserStats() {
+    }
+
+    public UserStats(Long userId, long totalTasks, long completedTasks) {
+        this.userId = userId;
+        this.totalTasks = totalTasks;
+        this.completedTasks = completedTasks;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getTotalTasks() {
+        return totalTasks;
+    }
+
+    public void setTotalTasks(long totalTasks) {
+        this.totalTasks = totalTasks;
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    public void setCompletedTasks(long completedTasks) {
+        this.completedTasks = completedTasks;
+    }
+
+    public long getCalendarVersion() {
+        return calendarVersion;
+    }
+
+    public Instant getCalendarChangedAt() {
+        return calendarChangedAt;
+    }
+
+    public long getActiveTasks() {
+        return totalTasks - completedTasks;
+    }
+}
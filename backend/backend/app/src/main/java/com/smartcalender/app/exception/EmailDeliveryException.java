@@ -0,0 +1,20 @@
+package com.smartcalender.app.exception;
+
+/**
+ * Thrown by an email transport when emails could not be delivered.
+ * {@code rejected} tells whether the provider refused the request itself (for example an invalid address),
+ * which retrying the same request cannot fix, as opposed to the provider being unavailable.
+ */
+public class EmailDeliveryException extends RuntimeException {
+
+    private final boolean rejected;
+
+    public EmailDeliveryException(String message, boolean rejected, Throwable cause) {
+        super(message, cause);
+        this.rejected = rejected;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+}
@@ -1,38 +1,140 @@
 package com.smartcalender.app.repository;
 
+import com.smartcalender.app.dto.ActivityDTO;
 import com.smartcalender.app.entity.Activity;
 import com.smartcalender.app.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
 
+    @EntityGraph(attributePaths = "category")
     Optional<Activity> findByIdAndUser(Long id, User currentUser);
 
 
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT a FROM Activity a WHERE a.user.id = :userId AND a.date = :currentDate AND :currentTime BETWEEN a.startTime AND a.endTime")
     List<Activity> findOngoingActivities(@Param("userId") Long userId,
                                          @Param("currentDate") LocalDate currentDate,
                                          @Param("currentTime") LocalTime currentTime);
 
-    @Query("SELECT a FROM Activity a WHERE a.date > :currentDate AND a.user.id = :userId")
-    List<Activity> findUpcomingActivities(@Param("userId") Long userId,
-                                          @Param("currentDate") LocalDate currentDate);
-
+    @EntityGraph(attributePaths = "category")
     List<Activity> findByUser(User user);
 
+    // Loads the activities a batch refers to
+    @EntityGraph(attributePaths = "category")
+    List<Activity> findByUserAndIdIn(User user, Collection<Long> ids);
+
+    // Loads every activity on the dates a batch touched, for its overlap warnings
+    @EntityGraph(attributePaths = "category")
+    List<Activity> findByUserAndDateIn(User user, Collection<LocalDate> dates);
+
+    interface DailyActivity {
+        LocalDate getDate();
+
+        Long getCategoryId();
+
+        Long getCount();
+
+        Long getMinutes();
+    }
+
+    // Recomputes the statistics rollup from the user's range of idx_activity_user_date
+    @Query("SELECT a.date AS date, a.category.id AS categoryId, COUNT(*) AS count, " +
+            "SUM((HOUR(a.endTime) * 60 + MINUTE(a.endTime)) - (HOUR(a.startTime) * 60 + MINUTE(a.startTime))) AS minutes " +
+            "FROM Activity a WHERE a.user.id = :userId GROUP BY a.date, a.category.id")
+    List<DailyActivity> sumByUserGroupedByDateAndCategory(@Param("userId") Long userId);
+
+    @Query("SELECT new com.smartcalender.app.dto.ActivityDTO(a.id, a.name, a.description, a.location, a.date, " +
+            "a.startTime, a.endTime, c.id, c.name, c.color, a.user.id, a.recurrence) " +
+            "FROM Activity a LEFT JOIN a.category c WHERE a.user = :user ORDER BY a.date, a.startTime, a.id")
+    List<ActivityDTO> findDTOPageByUser(@Param("user") User user, Limit limit);
+
+    @Query("SELECT new com.smartcalender.app.dto.ActivityDTO(a.id, a.name, a.description, a.location, a.date, " +
+            "a.startTime, a.endTime, c.id, c.name, c.color, a.user.id, a.recurrence) " +
+            "FROM Activity a LEFT JOIN a.category c WHERE a.user = :user AND a.date >= :date " +
+            "AND (a.date > :date OR a.startTime > :startTime OR (a.startTime = :startTime AND a.id > :id)) " +
+            "ORDER BY a.date, a.startTime, a.id")
+    List<ActivityDTO> findDTOPageByUserAfter(@Param("user") User user,
+                                             @Param("date") LocalDate date,
+                                             @Param("startTime") LocalTime startTime,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    // Streamed for exports; the driver holds at most one fetch of rows at a time
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT new com.smartcalender.app.dto.ActivityDTO(a.id, a.name, a.description, a.location, a.date, " +
+            "a.startTime, a.endTime, c.id, c.name, c.color, a.user.id, a.recurrence) " +
+            "FROM Activity a LEFT JOIN a.category c WHERE a.user = :user ORDER BY a.date, a.startTime, a.id")
+    Stream<ActivityDTO> streamDTOsByUser(@Param("user") User user);
+
+    @Query("SELECT new com.smartcalender.app.dto.ActivityDTO(a.id, a.name, a.description, a.location, a.date, " +
+            "a.startTime, a.endTime, c.id, c.name, c.color, a.user.id, a.recurrence) " +
+            "FROM Activity a LEFT JOIN a.category c WHERE a.user = :user AND a.date IN :dates")
+    List<ActivityDTO> findDTOsByUserAndDateIn(@Param("user") User user, @Param("dates") Collection<LocalDate> dates);
+
+    @Query("SELECT a FROM Activity a WHERE a.user = :user AND a.date = :date AND a.id <> :excludeId " +
+            "AND a.startTime < :endTime AND a.endTime > :startTime ORDER BY a.startTime")
+    List<Activity> findOverlapping(@Param("user") User user,
+                                   @Param("date") LocalDate date,
+                                   @Param("startTime") LocalTime startTime,
+                                   @Param("endTime") LocalTime endTime,
+                                   @Param("excludeId") Long excludeId);
+
+    @EntityGraph(attributePaths = "category")
     List<Activity> findByCategoryIdAndUserId(Long categoryId, Long id);
 
+    @EntityGraph(attributePaths = "category")
     List<Activity> findByUserAndDateBetween(User user, LocalDate start, LocalDate end);
 
-    List<Activity> findByUserAndNameContainingIgnoreCase(User user, String query);
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT a FROM Activity a WHERE a.user = :user AND a.date < :date " +
+            "AND a.recurrence IS NOT NULL AND a.recurrence <> com.smartcalender.app.entity.Recurrence.NONE")
+    List<Activity> findRecurringStartingBefore(@Param("user") User user, @Param("date") LocalDate date);
+
+    interface SearchText {
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+
+        String getLocation();
+    }
+
+    interface NameCount {
+        String getName();
+
+        Long getCount();
+    }
+
+    // Builds the user's suggestion trie
+    @Query("SELECT a.name AS name, COUNT(*) AS count FROM Activity a WHERE a.user = :user GROUP BY a.name")
+    List<NameCount> countByUserGroupedByName(@Param("user") User user);
+
+    // Builds the user's search index
+    @Query("SELECT a.id AS id, a.name AS name, a.description AS description, a.location AS location " +
+            "FROM Activity a WHERE a.user = :user")
+    List<SearchText> findSearchTextByUser(@Param("user") User user);
+
+    @Query("SELECT new com.smartcalender.app.dto.ActivityDTO(a.id, a.name, a.description, a.location, a.date, " +
+            "a.startTime, a.endTime, c.id, c.name, c.color, a.user.id, a.recurrence) " +
+            "FROM Activity a LEFT JOIN a.category c WHERE a.user = :user AND a.id IN :ids")
+    List<ActivityDTO> findDTOsByUserAndIdIn(@Param("user") User user, @Param("ids") Collection<Long> ids);
 }
@@ -1,14 +1,23 @@
 package com.smartcalender.app.repository;
 
+import com.smartcalender.app.dto.CategoryDTO;
 import com.smartcalender.app.entity.Category;
 import com.smartcalender.app.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByUser(User user);
+
+    @Query("SELECT new com.smartcalender.app.dto.CategoryDTO(c.id, c.name, c.color, c.user.id) FROM Category c WHERE c.user = :user")
+    List<CategoryDTO> findDTOsByUser(@Param("user") User user);
+
     Optional<Category> findByIdAndUser(Long id, User user);
+    List<Category> findByUserAndIdIn(User user, Collection<Long> ids);
     Optional<Category> findByNameAndUser(String name, User user);
 }
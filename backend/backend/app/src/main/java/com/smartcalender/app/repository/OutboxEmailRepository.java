@@ -0,0 +1,18 @@
+package com.smartcalender.app.repository;
+
+import com.smartcalender.app.entity.OutboxEmail;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status = com.smartcalender.app.entity.OutboxEmail.Status.PENDING AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<OutboxEmail> findDue(@Param("now") Instant now, Limit limit);
+
+    long countByStatus(OutboxEmail.Status status);
+}
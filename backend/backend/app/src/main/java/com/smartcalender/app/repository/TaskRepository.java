@@ -1,25 +1,106 @@
 package com.smartcalender.app.repository;
 
+import com.smartcalender.app.dto.TaskDTO;
 import com.smartcalender.app.entity.Category;
 import com.smartcalender.app.entity.Task;
 import com.smartcalender.app.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
+    @EntityGraph(attributePaths = "category")
     List<Task> findByUser(User user);
+
+    interface CompletionCount {
+        Boolean getCompleted();
+
+        Long getCount();
+    }
+
+    // COUNT(*) keeps this an index-only scan of idx_task_user_completed
+    @Query("SELECT t.completed AS completed, COUNT(*) AS count FROM Task t WHERE t.user = :user GROUP BY t.completed")
+    List<CompletionCount> countByUserGroupedByCompleted(@Param("user") User user);
+
+    @Query("SELECT new com.smartcalender.app.dto.TaskDTO(t.id, t.name, t.description, t.date, t.location, " +
+            "t.completed, c.id, c.name, c.color, t.recurrence) FROM Task t LEFT JOIN t.category c WHERE t.user = :user " +
+            "ORDER BY t.date ASC NULLS LAST, t.id")
+    List<TaskDTO> findDTOPageByUser(@Param("user") User user, Limit limit);
+
+    @Query("SELECT new com.smartcalender.app.dto.TaskDTO(t.id, t.name, t.description, t.date, t.location, " +
+            "t.completed, c.id, c.name, c.color, t.recurrence) FROM Task t LEFT JOIN t.category c WHERE t.user = :user " +
+            "AND (t.date > :date OR (t.date = :date AND t.id > :id) OR t.date IS NULL) " +
+            "ORDER BY t.date ASC NULLS LAST, t.id")
+    List<TaskDTO> findDTOPageByUserAfter(@Param("user") User user,
+                                         @Param("date") LocalDate date,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    @Query("SELECT new com.smartcalender.app.dto.TaskDTO(t.id, t.name, t.description, t.date, t.location, " +
+            "t.completed, c.id, c.name, c.color, t.recurrence) FROM Task t LEFT JOIN t.category c WHERE t.user = :user " +
+            "AND t.date IS NULL AND t.id > :id ORDER BY t.id")
+    List<TaskDTO> findUndatedDTOPageByUserAfter(@Param("user") User user, @Param("id") Long id, Limit limit);
+
+    // Streamed for exports; the driver holds at most one fetch of rows at a time
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT new com.smartcalender.app.dto.TaskDTO(t.id, t.name, t.description, t.date, t.location, " +
+            "t.completed, c.id, c.name, c.color, t.recurrence) FROM Task t LEFT JOIN t.category c WHERE t.user = :user " +
+            "ORDER BY t.date ASC NULLS LAST, t.id")
+    Stream<TaskDTO> streamDTOsByUser(@Param("user") User user);
+
+    @EntityGraph(attributePaths = "category")
     Optional<Task> findByIdAndUser(Long id, User user);
+
+    @EntityGraph(attributePaths = "category")
     List<Task> findByUserAndCategory(User user, Category category);
 
+    // Loads the tasks a batch refers to
+    @EntityGraph(attributePaths = "category")
+    List<Task> findByUserAndIdIn(User user, Collection<Long> ids);
+
     @Modifying
     @Query("DELETE FROM Task t WHERE t.id = :id AND t.user = :user")
     int deleteByIdAndUser(@Param("id") Long id, @Param("user") User user);
 
-    List<Task> findByUserAndNameContainingIgnoreCase(User user, String query);
+    interface SearchText {
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+
+        String getLocation();
+    }
+
+    interface NameCount {
+        String getName();
+
+        Long getCount();
+    }
+
+    // Builds the user's suggestion trie
+    @Query("SELECT t.name AS name, COUNT(*) AS count FROM Task t WHERE t.user = :user GROUP BY t.name")
+    List<NameCount> countByUserGroupedByName(@Param("user") User user);
+
+    // Builds the user's search index
+    @Query("SELECT t.id AS id, t.name AS name, t.description AS description, t.location AS location " +
+            "FROM Task t WHERE t.user = :user")
+    List<SearchText> findSearchTextByUser(@Param("user") User user);
+
+    @Query("SELECT new com.smartcalender.app.dto.TaskDTO(t.id, t.name, t.description, t.date, t.location, " +
+            "t.completed, c.id, c.name, c.color, t.recurrence) FROM Task t LEFT JOIN t.category c WHERE t.user = :user AND t.id IN :ids")
+    List<TaskDTO> findDTOsByUserAndIdIn(@Param("user") User user, @Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,68 @@
+package com.smartcalender.app.repository;
+
+import com.smartcalender.app.entity.StatsGranularity;
+import com.smartcalender.app.entity.UserActivityStats;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserActivityStatsRepository extends JpaRepository<UserActivityStats, UserActivityStats.Key> {
+
+    // A single atomic upsert, so concurrent changes by the same user never lose an update
+    @Modifying
+    @Query("INSERT INTO UserActivityStats s (userId, granularity, periodStart, categoryId, activities, minutes) " +
+            "VALUES (:userId, :granularity, :periodStart, :categoryId, :activities, :minutes) " +
+            "ON CONFLICT (userId, granularity, periodStart, categoryId) DO UPDATE SET activities = s.activities + excluded.activities, " +
+            "minutes = s.minutes + excluded.minutes")
+    void add(@Param("userId") Long userId, @Param("granularity") StatsGranularity granularity,
+             @Param("periodStart") LocalDate periodStart, @Param("categoryId") Long categoryId,
+             @Param("activities") long activities, @Param("minutes") long minutes);
+
+    // Primary-key prefix lookups of the day, week and month containing a date, one row per category
+    @Query("SELECT s FROM UserActivityStats s WHERE s.userId = :userId AND (" +
+            "(s.granularity = com.smartcalender.app.entity.StatsGranularity.DAY AND s.periodStart = :day) OR " +
+            "(s.granularity = com.smartcalender.app.entity.StatsGranularity.WEEK AND s.periodStart = :week) OR " +
+            "(s.granularity = com.smartcalender.app.entity.StatsGranularity.MONTH AND s.periodStart = :month))")
+    List<UserActivityStats> findPeriods(@Param("userId") Long userId, @Param("day") LocalDate day,
+                                        @Param("week") LocalDate week, @Param("month") LocalDate month);
+
+    interface DailyCategoryStats {
+        LocalDate getDay();
+
+        Long getCategoryId();
+
+        String getCategoryName();
+
+        String getCategoryColor();
+
+        long getActivities();
+
+        long getMinutes();
+    }
+
+    // A range scan of the primary key over the user's daily rows
+    @Query("SELECT s.periodStart AS day, s.categoryId AS categoryId, c.name AS categoryName, c.color AS categoryColor, " +
+            "s.activities AS activities, s.minutes AS minutes " +
+            "FROM UserActivityStats s LEFT JOIN Category c ON c.id = s.categoryId " +
+            "WHERE s.userId = :userId AND s.granularity = com.smartcalender.app.entity.StatsGranularity.DAY " +
+            "AND s.periodStart BETWEEN :from AND :to AND s.activities <> 0 " +
+            "ORDER BY s.periodStart, s.categoryId")
+    List<DailyCategoryStats> findDailyByCategory(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserActivityStats s WHERE s.userId = :userId")
+    List<UserActivityStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserActivityStats s WHERE s.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
@@ -1,8 +1,15 @@
 package com.smartcalender.app.repository;
 
 import com.smartcalender.app.entity.User;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +17,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailAddress(String emailAddress);
 
     boolean existsByEmailAddress(String newEmail);
-}
\ No newline at end of file
+
+    // Only replaces the hash the caller verified, so a concurrent password change is never overwritten
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :currentHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("currentHash") String currentHash, @Param("newHash") String newHash);
+
+    interface TokenRevocation {
+        String getUsername();
+        Instant getTokensNotBefore();
+    }
+
+    @Query("SELECT u.username AS username, u.tokensNotBefore AS tokensNotBefore FROM User u WHERE u.tokensNotBefore > :since")
+    List<TokenRevocation> findTokenRevocationsSince(@Param("since") Instant since);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+}
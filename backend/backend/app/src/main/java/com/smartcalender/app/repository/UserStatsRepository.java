@@ -0,0 +1,35 @@
+package com.smartcalender.app.repository;
+
+import com.smartcalender.app.entity.UserStats;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+
+    // A single atomic upsert, so concurrent changes by the same user never lose an update; every call is a calendar change
+    @Modifying
+    @Query("INSERT INTO UserStats s (userId, totalTasks, completedTasks, calendarVersion, calendarChangedAt) " +
+            "VALUES (:userId, :total, :completed, 1, :changedAt) " +
+            "ON CONFLICT (userId) DO UPDATE SET totalTasks = s.totalTasks + excluded.totalTasks, " +
+            "completedTasks = s.completedTasks + excluded.completedTasks, " +
+            "calendarVersion = s.calendarVersion + 1, calendarChangedAt = excluded.calendarChangedAt")
+    void add(@Param("userId") Long userId, @Param("total") long total, @Param("completed") long completed,
+             @Param("changedAt") Instant changedAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserStats s WHERE s.userId = :userId")
+    Optional<UserStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserStats s WHERE s.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
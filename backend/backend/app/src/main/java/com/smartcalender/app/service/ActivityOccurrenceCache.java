@@ -0,0 +1,172 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Recurrence;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded LRU cache of expanded activity occurrences, bucketed per user and calendar month.
+ * Date-range requests are served by combining the month buckets they cover, so clients that repeatedly
+ * request the same month only expand recurring activities once.
+ *
+ * Buckets are evicted when activities change. A non-recurring activity only affects the month of its date,
+ * while a recurring activity affects every month from its first occurrence onwards. Evictions are repeated
+ * after the surrounding transaction completes, so a concurrent request cannot cache uncommitted state, and a
+ * per-user generation counter, kept only while the user has a load in flight (see {@link LoadGenerations}), keeps
+ * a load that raced with an eviction from being stored.
+ */
+@Component
+public class ActivityOccurrenceCache {
+
+    // Wider ranges are loaded directly rather than flooding the cache with rarely reused buckets
+    private static final int MAX_CACHED_MONTHS_PER_REQUEST = 12;
+
+    private final int maxEntries;
+    private final Map<Key, List<Activity>> buckets;
+    private final LoadGenerations generations = new LoadGenerations();
+    private final Counter hits;
+    private final Counter misses;
+
+    public ActivityOccurrenceCache(@Value("${activity-cache.max-entries:1000}") int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Activity>> eldest) {
+                return size() > ActivityOccurrenceCache.this.maxEntries;
+            }
+        };
+        this.hits = Counter.builder("activity.occurrence.cache.requests").tag("result", "hit")
+                .description("Month buckets served from the occurrence cache").register(meterRegistry);
+        this.misses = Counter.builder("activity.occurrence.cache.requests").tag("result", "miss")
+                .description("Month buckets expanded from the database").register(meterRegistry);
+        Gauge.builder("activity.occurrence.cache.size", this, ActivityOccurrenceCache::size)
+                .description("Month buckets currently cached").register(meterRegistry);
+    }
+
+    /**
+     * Returns the occurrences of a user's activities within {@code [start, end]}, ordered by date and start time.
+     * Missing month buckets are loaded with the given loader, which receives the first and last day of the month.
+     *
+     * @param userId the ID of the user whose occurrences are requested
+     * @param start the first date of the range (inclusive)
+     * @param end the last date of the range (inclusive)
+     * @param loader loads the ordered occurrences between two dates from the database
+     * @return the occurrences within the range
+     */
+    public List<Activity> between(Long userId, LocalDate start, LocalDate end,
+                                  BiFunction<LocalDate, LocalDate, List<Activity>> loader) {
+        if (end.isBefore(start)) {
+            return new ArrayList<>();
+        }
+        YearMonth first = YearMonth.from(start);
+        YearMonth last = YearMonth.from(end);
+        if (ChronoUnit.MONTHS.between(first, last) >= MAX_CACHED_MONTHS_PER_REQUEST) {
+            return loader.apply(start, end);
+        }
+
+        List<Activity> occurrences = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            for (Activity occurrence : bucket(userId, month, loader)) {
+                if (!occurrence.getDate().isBefore(start) && !occurrence.getDate().isAfter(end)) {
+                    occurrences.add(occurrence);
+                }
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Evicts the buckets affected by a change to an activity of the given user.
+     *
+     * @param userId the ID of the user owning the activity
+     * @param date the date of the activity, or of the first occurrence of a recurring activity
+     * @param recurrence the recurrence of the activity
+     */
+    public void invalidate(Long userId, LocalDate date, Recurrence recurrence) {
+        YearMonth month = YearMonth.from(date);
+        Predicate<Key> affected = RecurrenceExpander.isRecurring(recurrence)
+                ? key -> key.userId.equals(userId) && !key.month.isBefore(month)
+                : key -> key.userId.equals(userId) && key.month.equals(month);
+        evictNowAndAfterCommit(userId, affected);
+    }
+
+    /**
+     * Evicts every bucket of the given user, e.g. after a category used by many activities changed.
+     *
+     * @param userId the ID of the user
+     */
+    public void invalidateUser(Long userId) {
+        evictNowAndAfterCommit(userId, key -> key.userId.equals(userId));
+    }
+
+    /**
+     * Returns the number of cached month buckets.
+     *
+     * @return the number of cached buckets
+     */
+    public synchronized int size() {
+        return buckets.size();
+    }
+
+    private List<Activity> bucket(Long userId, YearMonth month, BiFunction<LocalDate, LocalDate, List<Activity>> loader) {
+        Key key = new Key(userId, month);
+        LoadGenerations.Load load;
+        synchronized (this) {
+            List<Activity> cached = buckets.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            load = generations.start(userId);
+        }
+
+        misses.increment();
+        List<Activity> loaded = null;
+        try {
+            loaded = List.copyOf(loader.apply(month.atDay(1), month.atEndOfMonth()));
+        } finally {
+            synchronized (this) {
+                if (generations.finish(load) && loaded != null) {
+                    buckets.put(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void evictNowAndAfterCommit(Long userId, Predicate<Key> affected) {
+        evict(userId, affected);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId, affected);
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(Long userId, Predicate<Key> affected) {
+        generations.changed(userId);
+        buckets.keySet().removeIf(affected);
+    }
+
+    private record Key(Long userId, YearMonth month) {
+    }
+}
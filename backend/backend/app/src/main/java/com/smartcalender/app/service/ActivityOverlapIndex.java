@@ -0,0 +1,149 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.TimeSlot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Interval index over a set of activities, used to detect overlapping activities in a single pass.
+ * Activities are grouped per date and swept in start time order, keeping the currently open
+ * intervals in a queue ordered by end time. Building the index costs O(N log N + K), where K is
+ * the number of overlapping pairs, instead of one full scan per activity.
+ *
+ * @param <T> the type of the indexed activities, either entities or read-only projections
+ */
+public class ActivityOverlapIndex<T extends TimeSlot> {
+
+    private final Comparator<T> byStart =
+            Comparator.comparing(T::getStartTime).thenComparing(T::getEndTime);
+
+    // Keyed by identity, since occurrences of a recurring series share the ID of the series
+    private final Map<T, List<T>> overlapsByActivity = new IdentityHashMap<>();
+    private final List<Conflict<T>> conflicts = new ArrayList<>();
+
+    private ActivityOverlapIndex() {
+    }
+
+    /**
+     * Builds an index over the given activities. Only activities within the collection are
+     * compared, so the collection must contain every activity on the dates of interest.
+     *
+     * @param activities the activities to index
+     * @return an index that can be queried for the overlaps of each indexed activity
+     */
+    public static <T extends TimeSlot> ActivityOverlapIndex<T> of(Collection<T> activities) {
+        ActivityOverlapIndex<T> index = new ActivityOverlapIndex<>();
+        index.sweep(activities);
+        return index;
+    }
+
+    /**
+     * Returns the indexed activities overlapping the given activity, ordered by start time.
+     *
+     * @param activity an activity contained in the index
+     * @return the overlapping activities, or an empty list if there are none
+     */
+    public List<T> overlapsOf(T activity) {
+        return overlapsByActivity.getOrDefault(activity, List.of());
+    }
+
+    /**
+     * Returns every overlapping pair in the index, ordered by date and by the start time of the
+     * later activity.
+     *
+     * @return the overlapping pairs, or an empty list if there are none
+     */
+    public List<Conflict<T>> conflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Returns warning messages for every indexed activity overlapping the given activity.
+     *
+     * @param activity an activity contained in the index
+     * @return a list of warning messages, or an empty list if no overlaps are found
+     */
+    public List<String> warningsFor(T activity) {
+        List<String> warnings = new ArrayList<>();
+        for (T existing : overlapsOf(activity)) {
+            warnings.add(overlapWarning(existing));
+        }
+        return warnings;
+    }
+
+    /**
+     * Checks whether two activities overlap. Activities overlap when they share a date and
+     * one starts before the other ends.
+     *
+     * @param a the first activity
+     * @param b the second activity
+     * @return true if the activities overlap, false otherwise
+     */
+    public static boolean overlaps(TimeSlot a, TimeSlot b) {
+        return a.getDate().equals(b.getDate()) &&
+                a.getStartTime().isBefore(b.getEndTime()) && a.getEndTime().isAfter(b.getStartTime());
+    }
+
+    /**
+     * Formats the warning shown when an activity overlaps the given existing activity.
+     *
+     * @param existing the activity that is overlapped
+     * @return the warning message
+     */
+    public static String overlapWarning(TimeSlot existing) {
+        return "This activity overlaps with '" + existing.getName() + "' on " + existing.getDate() +
+                " from " + existing.getStartTime() + " to " + existing.getEndTime();
+    }
+
+    private void sweep(Collection<T> activities) {
+        Map<LocalDate, List<T>> byDate = new TreeMap<>();
+        for (T activity : activities) {
+            byDate.computeIfAbsent(activity.getDate(), date -> new ArrayList<>()).add(activity);
+        }
+
+        for (List<T> sameDay : byDate.values()) {
+            sameDay.sort(byStart);
+            PriorityQueue<T> open = new PriorityQueue<>(Comparator.comparing(T::getEndTime));
+
+            for (T current : sameDay) {
+                while (!open.isEmpty() && !open.peek().getEndTime().isAfter(current.getStartTime())) {
+                    open.poll();
+                }
+                for (T other : open) {
+                    if (overlaps(current, other)) {
+                        conflicts.add(new Conflict<>(other, current));
+                        link(current, other);
+                        link(other, current);
+                    }
+                }
+                open.add(current);
+            }
+        }
+
+        for (List<T> overlaps : overlapsByActivity.values()) {
+            overlaps.sort(byStart);
+        }
+    }
+
+    private void link(T from, T to) {
+        overlapsByActivity.computeIfAbsent(from, key -> new ArrayList<>()).add(to);
+    }
+
+    /**
+     * A pair of overlapping activities, where {@code first} starts no later than {@code second}.
+     *
+     * @param first the activity that starts first
+     * @param second the activity that starts last
+     * @param <T> the type of the activities
+     */
+    public record Conflict<T>(T first, T second) {
+    }
+}
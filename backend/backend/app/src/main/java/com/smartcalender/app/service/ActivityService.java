@@ -1,25 +1,40 @@
 package com.smartcalender.app.service;
 
+import com.smartcalender.app.dto.ActivityBatchOperation;
+import com.smartcalender.app.dto.ActivityConflictDTO;
 import com.smartcalender.app.dto.ActivityDTO;
+import com.smartcalender.app.dto.BatchAction;
+import com.smartcalender.app.dto.BatchResultDTO;
 import com.smartcalender.app.dto.CreateActivityRequest;
 import com.smartcalender.app.entity.Activity;
 import com.smartcalender.app.entity.Category;
+import com.smartcalender.app.entity.Recurrence;
 import com.smartcalender.app.entity.User;
+import com.smartcalender.app.exception.InvalidDateException;
+import com.smartcalender.app.exception.InvalidInputException;
 import com.smartcalender.app.exception.NotFoundException;
 import com.smartcalender.app.repository.ActivityRepository;
 import com.smartcalender.app.repository.CategoryRepository;
-import com.smartcalender.app.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing activities.
@@ -30,32 +45,53 @@ public class ActivityService {
 
     private final ActivityRepository activityRepository;
     private final CategoryRepository categoryRepository;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final ActivityOccurrenceCache occurrenceCache;
+    private final UserStatsService userStatsService;
+    private final SearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final Validator validator;
 
 
-    public ActivityService(ActivityRepository activityRepository, CategoryRepository categoryRepository, UserRepository userRepository) {
+    public ActivityService(ActivityRepository activityRepository, CategoryRepository categoryRepository, PrincipalCache principalCache,
+                           ActivityOccurrenceCache occurrenceCache, UserStatsService userStatsService,
+                           SearchIndex searchIndex, SuggestionIndex suggestionIndex, Validator validator) {
         this.activityRepository = activityRepository;
         this.categoryRepository = categoryRepository;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.occurrenceCache = occurrenceCache;
+        this.userStatsService = userStatsService;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.validator = validator;
     }
 
     /**
-     * Retrieves a list of all activities associated with the currently authenticated user.
+     * Retrieves a page of the activities associated with the currently authenticated user, ordered by date,
+     * start time and ID. The activities are read as DTO projections in a read-only transaction, without
+     * hydrating entities, and each page is fetched with a single keyset range scan.
      *
      * @param currentUser the details of the currently authenticated user
-     * @return a list of {@code ActivityDTO} objects representing the user's activities
+     * @param cursor the continuation token returned with the previous page, or {@code null} for the first page
+     * @param size the requested page size, or {@code null} for the default size, or for every activity if no
+     *             cursor is given either
+     * @return the page of {@code ActivityDTO} objects, with the continuation token for the next page if there are
+     *         more activities
      * @throws NotFoundException if the current user cannot be found in the system
+     * @throws InvalidInputException if the cursor or page size is invalid
      */
-    public ResponseEntity<List<ActivityDTO>> getAllActivities(UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+    @Transactional(readOnly = true)
+    public KeysetPage<ActivityDTO> getAllActivities(UserDetails currentUser, String cursor, Integer size) {
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
-        List<ActivityDTO> activities = activityRepository.findByUser(user)
-                .stream()
-                .map(activity -> new ActivityDTO(activity, checkForOverlaps(activity, user, activity.getId())))
-                .collect(Collectors.toList());
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(cursor, size);
 
-        return ResponseEntity.status(HttpStatus.OK).body(activities);
+        List<ActivityDTO> rows = after == null
+                ? activityRepository.findDTOPageByUser(user, Limit.of(pageSize + 1))
+                : activityRepository.findDTOPageByUserAfter(user, after.date(), after.startTime(), after.id(), Limit.of(pageSize + 1));
+        return activityPage(user, rows, pageSize, after != null);
     }
 
 
@@ -73,7 +109,7 @@ public class ActivityService {
      */
     @Transactional
     public ResponseEntity<ActivityDTO> createActivity(CreateActivityRequest request, UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
         Activity activity = new Activity();
@@ -93,6 +129,10 @@ public class ActivityService {
         }
 
         Activity savedActivity = activityRepository.save(activity);
+        occurrenceCache.invalidate(user.getId(), savedActivity.getDate(), savedActivity.getRecurrence());
+        userStatsService.activityCreated(savedActivity);
+        searchIndex.put(user.getId(), SearchDocument.of(savedActivity));
+        suggestionIndex.add(user.getId(), SuggestionIndex.Kind.ACTIVITY, savedActivity.getName());
         List<String> warnings = checkForOverlaps(savedActivity, user, savedActivity.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(new ActivityDTO(savedActivity, warnings));
@@ -114,13 +154,17 @@ public class ActivityService {
      */
     @Transactional
     public ResponseEntity<Boolean> deleteActivity(UserDetails currentUser, Long id) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
         Activity activityToDelete = activityRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new NotFoundException("Activity not found with ID: " + id));
 
             activityRepository.delete(activityToDelete);
+            occurrenceCache.invalidate(user.getId(), activityToDelete.getDate(), activityToDelete.getRecurrence());
+            userStatsService.activityDeleted(activityToDelete);
+            searchIndex.remove(user.getId(), SearchDocument.Type.ACTIVITY, id);
+            suggestionIndex.remove(user.getId(), SuggestionIndex.Kind.ACTIVITY, activityToDelete.getName());
             return ResponseEntity.status(HttpStatus.OK).body(true);
     }
 
@@ -142,12 +186,15 @@ public class ActivityService {
      */
     @Transactional
     public ResponseEntity<ActivityDTO> editActivity(UserDetails currentUser, Long id, ActivityDTO activityDTO) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
         Activity activityToEdit = activityRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new NotFoundException("Activity not found with ID: " + id));
 
+            occurrenceCache.invalidate(user.getId(), activityToEdit.getDate(), activityToEdit.getRecurrence());
+            UserStatsService.ActivityContribution previous = UserStatsService.ActivityContribution.of(activityToEdit);
+            String previousName = activityToEdit.getName();
             activityToEdit.setName(activityDTO.getName());
             activityToEdit.setDescription(activityDTO.getDescription());
             activityToEdit.setDate(activityDTO.getDate());
@@ -165,6 +212,10 @@ public class ActivityService {
             }
 
             Activity savedActivity = activityRepository.save(activityToEdit);
+            occurrenceCache.invalidate(user.getId(), savedActivity.getDate(), savedActivity.getRecurrence());
+            userStatsService.activityEdited(savedActivity, previous);
+            searchIndex.put(user.getId(), SearchDocument.of(savedActivity));
+            suggestionIndex.rename(user.getId(), SuggestionIndex.Kind.ACTIVITY, previousName, savedActivity.getName());
             List<String> warnings = checkForOverlaps(savedActivity, user, id);
 
             return ResponseEntity.status(HttpStatus.OK).body(new ActivityDTO(savedActivity, warnings));
@@ -180,7 +231,7 @@ public class ActivityService {
      * @throws NotFoundException if the current user cannot be found in the system
      */
     public ResponseEntity<ActivityDTO> getActivity(long id, UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
         return activityRepository.findByIdAndUser(id, user)
@@ -196,38 +247,47 @@ public class ActivityService {
      * @throws NotFoundException if the current user cannot be found in the system
      */
     public ResponseEntity<List<ActivityDTO>> getOngoingActivities(UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
         LocalDate currentDate = LocalDate.now();
         LocalTime currentTime = LocalTime.now();
 
         List<Activity> ongoingActivities = activityRepository.findOngoingActivities(user.getId(), currentDate, currentTime);
-        return ResponseEntity.status(HttpStatus.OK)
-                .body(ongoingActivities.stream()
-                        .map(activity -> new ActivityDTO(activity, checkForOverlaps(activity, user, activity.getId())))
-                        .collect(Collectors.toList()));
+        ActivityOverlapIndex<Activity> index = ActivityOverlapIndex.of(activityRepository.findByUserAndDateBetween(user, currentDate, currentDate));
+        return ResponseEntity.status(HttpStatus.OK).body(toDTOs(ongoingActivities, index));
     }
 
 
     /**
-     * Retrieves a list of future activities for the currently authenticated user.
+     * Retrieves a page of the future activities for the currently authenticated user, ordered by date,
+     * start time and ID.
      *
      * @param currentUser the details of the currently authenticated user
-     * @return a list of {@code ActivityDTO} objects representing the user's future activities
+     * @param cursor the continuation token returned with the previous page, or {@code null} for the first page
+     * @param size the requested page size, or {@code null} for the default size, or for every future activity if
+     *             no cursor is given either
+     * @return the page of {@code ActivityDTO} objects, with the continuation token for the next page if there are
+     *         more activities
      * @throws NotFoundException if the current user cannot be found in the system
+     * @throws InvalidInputException if the cursor or page size is invalid
      */
-    public ResponseEntity<List<ActivityDTO>> getFutureActivities(UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+    @Transactional(readOnly = true)
+    public KeysetPage<ActivityDTO> getFutureActivities(UserDetails currentUser, String cursor, Integer size) {
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
-        LocalDate currentDate = LocalDate.now();
+        // Future activities start after the last possible position of today
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        boolean continued = after != null && after.date().isAfter(LocalDate.now());
+        if (!continued) {
+            after = new KeysetCursor(LocalDate.now(), LocalTime.MAX, Long.MAX_VALUE);
+        }
+        int pageSize = KeysetCursor.pageSize(cursor, size);
 
-        return ResponseEntity.status(HttpStatus.OK)
-                .body(activityRepository.findUpcomingActivities(user.getId(), currentDate)
-                        .stream()
-                        .map(activity -> new ActivityDTO(activity, checkForOverlaps(activity, user, activity.getId())))
-                        .collect(Collectors.toList()));
+        List<ActivityDTO> rows = activityRepository.findDTOPageByUserAfter(
+                user, after.date(), after.startTime(), after.id(), Limit.of(pageSize + 1));
+        return activityPage(user, rows, pageSize, continued);
     }
 
     /**
@@ -240,18 +300,26 @@ public class ActivityService {
      * @throws NotFoundException if the current user cannot be found in the system
      */
     public ResponseEntity<List<ActivityDTO>> getActivitiesByCategory(UserDetails currentUser, Long categoryId) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
-        return ResponseEntity.status(HttpStatus.OK)
-                .body(activityRepository.findByCategoryIdAndUserId(categoryId, user.getId())
-                        .stream()
-                        .map(activity -> new ActivityDTO(activity, checkForOverlaps(activity, user, activity.getId())))
-                        .collect(Collectors.toList()));
+        List<Activity> categoryActivities = activityRepository.findByCategoryIdAndUserId(categoryId, user.getId());
+        if (categoryActivities.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.OK).body(new ArrayList<>());
+        }
+
+        // Activities in other categories can overlap too, so index every activity on the covered dates
+        LocalDate first = categoryActivities.stream().map(Activity::getDate).min(LocalDate::compareTo).get();
+        LocalDate last = categoryActivities.stream().map(Activity::getDate).max(LocalDate::compareTo).get();
+        ActivityOverlapIndex<Activity> index = ActivityOverlapIndex.of(activityRepository.findByUserAndDateBetween(user, first, last));
+
+        return ResponseEntity.status(HttpStatus.OK).body(toDTOs(categoryActivities, index));
     }
 
   /**
    * Retrieves a list of activity DTOs for the given user filtered by the specified date range.
+   * Recurring activities are expanded into one entry per occurrence within the range, ordered
+   * by date and start time.
    *
    * @param currentUser the details of the currently authenticated user
    * @param start the start date (inclusive) for filtering activities
@@ -260,37 +328,324 @@ public class ActivityService {
    * @throws NotFoundException if the current user cannot be found
    */
   public ResponseEntity<List<ActivityDTO>> getActivitiesBetween(UserDetails currentUser, LocalDate start, LocalDate end) {
-      User user = userRepository.findByUsername(currentUser.getUsername())
+      User user = principalCache.findByUsername(currentUser.getUsername())
               .orElseThrow(() -> new NotFoundException("User not found"));
 
-      return ResponseEntity.status(HttpStatus.OK)
-              .body(activityRepository.findByUserAndDateBetween(user, start, end)
-                      .stream()
-                      .map(activity -> new ActivityDTO(activity, checkForOverlaps(activity, user, activity.getId())))
-                      .collect(Collectors.toList()));
+      List<Activity> activities = occurrenceCache.between(user.getId(), start, end, (from, to) -> expandWindow(user, from, to));
+      return ResponseEntity.status(HttpStatus.OK).body(toDTOs(activities, ActivityOverlapIndex.of(activities)));
   }
 
+    /**
+     * Retrieves every pair of overlapping activities for the current user within the specified date range.
+     * The activities in the range, including occurrences of recurring activities, are fetched once and all
+     * conflicts are found in a single sweep, ordered by date and start time.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @param start the start date (inclusive) of the range
+     * @param end the end date (inclusive) of the range
+     * @return a list of {@code ActivityConflictDTO} objects, one per overlapping pair
+     * @throws NotFoundException if the current user cannot be found
+     * @throws InvalidDateException if the end date is before the start date
+     */
+    public ResponseEntity<List<ActivityConflictDTO>> getConflictsBetween(UserDetails currentUser, LocalDate start, LocalDate end) {
+        User user = principalCache.findByUsername(currentUser.getUsername())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        if (end.isBefore(start)) {
+            throw new InvalidDateException("End date must not be before start date");
+        }
+
+        ActivityOverlapIndex<Activity> index = ActivityOverlapIndex.of(
+                occurrenceCache.between(user.getId(), start, end, (from, to) -> expandWindow(user, from, to)));
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(index.conflicts().stream()
+                        .map(conflict -> new ActivityConflictDTO(conflict.first(), conflict.second()))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Applies a list of create, update and delete operations for the currently authenticated user in one transaction.
+     * The referenced activities and categories are loaded with one query each, the changes are written in JDBC
+     * batches when the transaction flushes, and the overlap warnings of every saved activity are computed from a
+     * single index over the dates the batch touched. An operation that is invalid or refers to a missing activity
+     * or category fails only its own result; the other operations are still applied.
+     * An update replaces every field of the activity with the payload, keeping the category if the payload has none.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @param operations the operations, applied in order
+     * @return one result per operation, in the same order, with the saved activity for creates and updates
+     * @throws NotFoundException if the current user cannot be found in the system
+     * @throws InvalidInputException if the operations are missing or exceed {@value BatchOperations#MAX_OPERATIONS}
+     */
+    @Transactional
+    public List<BatchResultDTO<ActivityDTO>> applyBatch(UserDetails currentUser, List<ActivityBatchOperation> operations) {
+        User user = principalCache.findByUsername(currentUser.getUsername())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+        BatchOperations.checkSize(operations);
+
+        Map<Long, Activity> existing = activityRepository.findByUserAndIdIn(user, BatchOperations.ids(operations, ActivityBatchOperation::getId))
+                .stream().collect(Collectors.toMap(Activity::getId, Function.identity()));
+        Map<Long, Category> categories = categoryRepository.findByUserAndIdIn(user, BatchOperations.ids(operations,
+                        operation -> operation.getActivity() != null ? operation.getActivity().getCategoryId() : null))
+                .stream().collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        // Activities have no equals override, so changes are tracked per instance
+        Map<Activity, BatchChange> changes = new LinkedHashMap<>();
+        Activity[] applied = new Activity[operations.size()];
+        List<BatchResultDTO<ActivityDTO>> results = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            ActivityBatchOperation operation = operations.get(i);
+            BatchAction action = operation != null ? operation.getAction() : null;
+            Long id = operation != null ? operation.getId() : null;
+            try {
+                if (action == null) {
+                    throw new InvalidInputException("Operation must have the action create, update or delete");
+                }
+                Activity activity;
+                switch (action) {
+                    case CREATE -> {
+                        activity = new Activity();
+                        activity.setUser(user);
+                        applyRequest(activity, operation.getActivity(), categories);
+                        changes.put(activity, BatchChange.CREATED);
+                    }
+                    case UPDATE -> {
+                        activity = existingActivity(existing, id);
+                        BatchChange change = changes.getOrDefault(activity, BatchChange.of(activity));
+                        applyRequest(activity, operation.getActivity(), categories);
+                        changes.putIfAbsent(activity, change);
+                        change.updated = true;
+                    }
+                    default -> {
+                        activity = existingActivity(existing, id);
+                        changes.computeIfAbsent(activity, BatchChange::of).deleted = true;
+                        existing.remove(id);
+                    }
+                }
+                applied[i] = activity;
+                results.add(BatchOperations.applied(i, action, id));
+            } catch (NotFoundException | InvalidInputException e) {
+                results.add(BatchOperations.failed(i, action, id, e));
+            }
+        }
+
+        List<Activity> created = new ArrayList<>();
+        List<Activity> deleted = new ArrayList<>();
+        changes.forEach((activity, change) -> {
+            if (change == BatchChange.CREATED) {
+                created.add(activity);
+            } else if (change.deleted) {
+                deleted.add(activity);
+            }
+        });
+        activityRepository.saveAll(created);
+        activityRepository.deleteAll(deleted);
+        activityRepository.flush();
+
+        Set<LocalDate> touchedDates = new HashSet<>();
+        changes.forEach((activity, change) -> {
+            applyBatchChange(user, activity, change);
+            if (!change.deleted) {
+                touchedDates.add(activity.getDate());
+            }
+        });
+
+        ActivityOverlapIndex<Activity> index = ActivityOverlapIndex.of(touchedDates.isEmpty()
+                ? List.of() : activityRepository.findByUserAndDateIn(user, touchedDates));
+        for (int i = 0; i < applied.length; i++) {
+            Activity activity = applied[i];
+            if (activity != null) {
+                results.get(i).setId(activity.getId());
+                if (!changes.get(activity).deleted) {
+                    results.get(i).setItem(new ActivityDTO(activity, index.warningsFor(activity)));
+                }
+            }
+        }
+        return results;
+    }
+
     /**
      * Checks for overlapping activities for a given user and activity, excluding a specific activity ID if provided.
+     * Only the conflicting rows on the same date are loaded, so the check costs O(conflicts) rather than
+     * a scan of the user's full activity history.
      * If overlaps are detected, warning messages are generated describing the conflicts.
      *
      * @param activity the activity to check for overlaps
      * @param user the user whose activities are to be checked for potential overlaps
-     * @param excludeId an optional ID of the activity to exclude from the overlap check
+     * @param excludeId the ID of the activity to exclude from the overlap check
      * @return a list of warning messages indicating overlapping activities, or an empty list if no overlaps are found
      */
     private List<String> checkForOverlaps(Activity activity, User user, Long excludeId) {
-        List<Activity> userActivities = activityRepository.findByUser(user);
+        List<Activity> overlapping = activityRepository.findOverlapping(user, activity.getDate(),
+                activity.getStartTime(), activity.getEndTime(), excludeId);
         List<String> warnings = new ArrayList<>();
 
-        for (Activity existing : userActivities) {
-            if (!userActivities.isEmpty() && (!existing.getId().equals(excludeId)) &&
-                    activity.getDate().equals(existing.getDate()) &&
-                    (activity.getStartTime().isBefore(existing.getEndTime()) && activity.getEndTime().isAfter(existing.getStartTime()))) {
-                warnings.add("This activity overlaps with '" + existing.getName() + "' on " + existing.getDate() +
-                        " from " + existing.getStartTime() + " to " + existing.getEndTime());
-            }
+        for (Activity existing : overlapping) {
+            warnings.add(ActivityOverlapIndex.overlapWarning(existing));
         }
         return warnings;
     }
+
+    /**
+     * Copies a batch payload onto an activity, after checking it like a single create request.
+     */
+    private void applyRequest(Activity activity, CreateActivityRequest request, Map<Long, Category> categories) {
+        BatchOperations.validate(validator, request);
+        Category category = null;
+        if (request.getCategoryId() != null) {
+            category = categories.get(request.getCategoryId());
+            if (category == null) {
+                throw new NotFoundException("Category not found with ID: " + request.getCategoryId());
+            }
+        }
+
+        activity.setName(request.getName());
+        activity.setDescription(request.getDescription());
+        activity.setDate(request.getDate());
+        activity.setStartTime(request.getStartTime());
+        activity.setEndTime(request.getEndTime());
+        activity.setLocation(request.getLocation());
+        activity.setRecurrence(request.getRecurrence() != null ? request.getRecurrence() : Recurrence.NONE);
+        if (category != null) {
+            activity.setCategory(category);
+        }
+    }
+
+    private static Activity existingActivity(Map<Long, Activity> existing, Long id) {
+        if (id == null) {
+            throw new InvalidInputException("Operation must contain the ID of the activity");
+        }
+        Activity activity = existing.get(id);
+        if (activity == null) {
+            throw new NotFoundException("Activity not found with ID: " + id);
+        }
+        return activity;
+    }
+
+    /**
+     * Reports the net change a batch made to one activity to the caches, statistics and indexes, the same way
+     * the single create, edit and delete paths do.
+     */
+    private void applyBatchChange(User user, Activity activity, BatchChange change) {
+        Long userId = user.getId();
+        if (change == BatchChange.CREATED) {
+            occurrenceCache.invalidate(userId, activity.getDate(), activity.getRecurrence());
+            userStatsService.activityCreated(activity);
+            searchIndex.put(userId, SearchDocument.of(activity));
+            suggestionIndex.add(userId, SuggestionIndex.Kind.ACTIVITY, activity.getName());
+            return;
+        }
+
+        occurrenceCache.invalidate(userId, change.previous.date(), change.previousRecurrence);
+        if (change.updated) {
+            occurrenceCache.invalidate(userId, activity.getDate(), activity.getRecurrence());
+            userStatsService.activityEdited(activity, change.previous);
+            suggestionIndex.rename(userId, SuggestionIndex.Kind.ACTIVITY, change.previousName, activity.getName());
+        }
+        if (change.deleted) {
+            userStatsService.activityDeleted(activity);
+            searchIndex.remove(userId, SearchDocument.Type.ACTIVITY, activity.getId());
+            suggestionIndex.remove(userId, SuggestionIndex.Kind.ACTIVITY, activity.getName());
+        } else {
+            searchIndex.put(userId, SearchDocument.of(activity));
+        }
+    }
+
+    /**
+     * What an activity looked like before a batch first touched it, and what the batch did to it.
+     * Created activities share the {@link #CREATED} marker.
+     */
+    private static final class BatchChange {
+        private static final BatchChange CREATED = new BatchChange(null, null, null);
+
+        private final UserStatsService.ActivityContribution previous;
+        private final Recurrence previousRecurrence;
+        private final String previousName;
+        private boolean updated;
+        private boolean deleted;
+
+        private BatchChange(UserStatsService.ActivityContribution previous, Recurrence previousRecurrence, String previousName) {
+            this.previous = previous;
+            this.previousRecurrence = previousRecurrence;
+            this.previousName = previousName;
+        }
+
+        private static BatchChange of(Activity activity) {
+            return new BatchChange(UserStatsService.ActivityContribution.of(activity), activity.getRecurrence(), activity.getName());
+        }
+    }
+
+    /**
+     * Loads the activities of a user that occur within the specified date range. Activities stored in the range
+     * and recurring activities that started before it are expanded lazily, so only the occurrences inside the
+     * range are created.
+     *
+     * @param user the user whose activities are loaded
+     * @param start the start date (inclusive) of the range
+     * @param end the end date (inclusive) of the range
+     * @return the occurrences within the range, ordered by date and start time
+     */
+    private List<Activity> expandWindow(User user, LocalDate start, LocalDate end) {
+        return Stream.concat(activityRepository.findRecurringStartingBefore(user, start).stream(),
+                        activityRepository.findByUserAndDateBetween(user, start, end).stream())
+                .flatMap(activity -> RecurrenceExpander.occurrences(activity, start, end))
+                .sorted(Comparator.comparing(Activity::getDate).thenComparing(Activity::getStartTime))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Trims a keyset query result that was fetched with one extra row to the requested page size and attaches
+     * overlap warnings. Activities on the first and last date of the page may overlap activities on the
+     * neighbouring pages, so the remaining activities on those dates are loaded into the overlap index as well.
+     *
+     * @param user the user owning the activities
+     * @param rows the fetched rows, at most one more than the page size
+     * @param pageSize the page size
+     * @param continued whether the page continues a date that the previous page started
+     * @return the page, with the continuation token if there are more rows
+     */
+    private KeysetPage<ActivityDTO> activityPage(User user, List<ActivityDTO> rows, int pageSize, boolean continued) {
+        boolean hasNext = rows.size() > pageSize;
+        List<ActivityDTO> page = hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        Set<LocalDate> boundaryDates = new HashSet<>();
+        if (continued && !page.isEmpty()) {
+            boundaryDates.add(page.get(0).getDate());
+        }
+        if (hasNext) {
+            boundaryDates.add(page.get(page.size() - 1).getDate());
+        }
+
+        List<ActivityDTO> indexed = new ArrayList<>(page);
+        if (!boundaryDates.isEmpty()) {
+            Set<Long> pageIds = page.stream().map(ActivityDTO::getId).collect(Collectors.toSet());
+            activityRepository.findDTOsByUserAndDateIn(user, boundaryDates).stream()
+                    .filter(neighbour -> !pageIds.contains(neighbour.getId()))
+                    .forEach(indexed::add);
+        }
+        ActivityOverlapIndex<ActivityDTO> index = ActivityOverlapIndex.of(indexed);
+        page.forEach(activity -> activity.setWarnings(index.warningsFor(activity)));
+
+        if (!hasNext) {
+            return new KeysetPage<>(page, null);
+        }
+        ActivityDTO last = page.get(page.size() - 1);
+        return new KeysetPage<>(page, new KeysetCursor(last.getDate(), last.getStartTime(), last.getId()).encode());
+    }
+
+    /**
+     * Maps activities to DTOs, attaching the overlap warnings found in the given index.
+     * Every activity on the same dates as the mapped activities must be part of the index.
+     *
+     * @param activities the activities to map
+     * @param index the overlap index covering the dates of the activities
+     * @return a list of {@code ActivityDTO} objects including overlap warnings
+     */
+    private List<ActivityDTO> toDTOs(List<Activity> activities, ActivityOverlapIndex<Activity> index) {
+        return activities.stream()
+                .map(activity -> new ActivityDTO(activity, index.warningsFor(activity)))
+                .collect(Collectors.toList());
+    }
 }
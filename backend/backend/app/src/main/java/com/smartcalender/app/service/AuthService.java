@@ -12,6 +12,7 @@ import com.smartcalender.app.repository.PasswordResetTokenRepository;
 import com.smartcalender.app.repository.RefreshTokenRepository;
 import com.smartcalender.app.repository.UserRepository;
 import com.smartcalender.app.config.JwtUtil;
+import com.smartcalender.app.config.TokenRevocations;
 import jakarta.transaction.Transactional;
 import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,7 +21,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -41,10 +41,20 @@ public class AuthService {
     private final JwtUtil jwtUtil;
     private final OtpService otpService;
     private final EmailService emailService;
+    private final ActivityOccurrenceCache occurrenceCache;
+    private final PrincipalCache principalCache;
+    private final TokenRevocations tokenRevocations;
+    private final PasswordEncoder passwordEncoder;
+    private final UserStatsService userStatsService;
+    private final SearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
 
 
     public AuthService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository, PasswordResetTokenRepository passwordResetTokenRepository,
-                       AuthenticationManager authenticationManager, JwtUtil jwtUtil, OtpService otpService, EmailService emailService) {
+                       AuthenticationManager authenticationManager, JwtUtil jwtUtil, OtpService otpService, EmailService emailService,
+                       ActivityOccurrenceCache occurrenceCache, PrincipalCache principalCache,
+                       TokenRevocations tokenRevocations, PasswordEncoder passwordEncoder,
+                       UserStatsService userStatsService, SearchIndex searchIndex, SuggestionIndex suggestionIndex) {
         this.userRepository = userRepository;
         this.refreshTokenRepository = refreshTokenRepository;
         this.passwordResetTokenRepository = passwordResetTokenRepository;
@@ -52,9 +62,17 @@ public class AuthService {
         this.jwtUtil = jwtUtil;
         this.otpService = otpService;
         this.emailService = emailService;
+        this.occurrenceCache = occurrenceCache;
+        this.principalCache = principalCache;
+        this.tokenRevocations = tokenRevocations;
+        this.passwordEncoder = passwordEncoder;
+        this.userStatsService = userStatsService;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
     }
 
-    @Transactional
+    // Not transactional, and WebConfig keeps open-in-view off for /api/auth/**: the password check waits for the
+    // hashing pool and must not hold a database connection
     public LoginResponseDTO authenticateUser(LoginRequest request) {
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
@@ -67,6 +85,8 @@ public class AuthService {
             throw new EmailNotVerifiedException("E-postadressen är inte verifierad.");
         }
 
+        upgradePasswordHash(user, request.getPassword());
+
         UserDetails userDetails = org.springframework.security.core.userdetails.User
                 .withUsername(user.getUsername())
                 .password(user.getPassword())
@@ -87,6 +107,30 @@ public class AuthService {
         return new LoginResponseDTO(accessToken, refreshToken.getId());
     }
 
+    /**
+     * Rehashes the password of a user who just logged in when the stored hash was made with another algorithm or
+     * a lower strength than the configured target. A busy hashing pool only postpones the upgrade to a later login.
+     *
+     * @param user the authenticated user
+     * @param rawPassword the password the user logged in with
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        if (!passwordEncoder.upgradeEncoding(currentHash)) {
+            return;
+        }
+
+        String upgradedHash;
+        try {
+            upgradedHash = passwordEncoder.encode(rawPassword);
+        } catch (ServiceBusyException e) {
+            return;
+        }
+        if (userRepository.replacePasswordHash(user.getId(), currentHash, upgradedHash) > 0) {
+            principalCache.invalidate(user.getUsername());
+        }
+    }
+
     @Transactional
     public void forgotPassword(String email) {
         User user = userRepository.findByEmailAddress(email)
@@ -123,9 +167,10 @@ public class AuthService {
 
         // Get the user and update the password
         User user = resetToken.getUser();
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         user.setPassword(passwordEncoder.encode(newPassword));
+        tokenRevocations.revokeTokensOf(user);
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
 
         // Delete the reset token
         passwordResetTokenRepository.delete(resetToken);
@@ -143,7 +188,6 @@ public class AuthService {
             throw new InvalidInputException("Nytt lösenord kan inte vara tomt");
         }
 
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
             throw new PermissionDeniedException("Felaktigt nuvarande lösenord");
         }
@@ -153,7 +197,9 @@ public class AuthService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        tokenRevocations.revokeTokensOf(user);
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
     }
 
     @Transactional
@@ -172,7 +218,6 @@ public class AuthService {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmailAddress(request.getEmailAddress());
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         User savedUser = userRepository.save(user);
 
@@ -204,11 +249,11 @@ public class AuthService {
         return user.getEmailAddress();
     }
 
+    @Transactional
     public void changeEmail(String newEmail, String password, UserDetails currentUser) {
         User user = userRepository.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("Användaren kunde inte hittas."));
 
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         if (!passwordEncoder.matches(password, user.getPassword())) {
             throw new PermissionDeniedException("Felaktigt lösenord");
         }
@@ -220,6 +265,7 @@ public class AuthService {
         user.setEmailAddress(newEmail);
         user.setEmailVerified(false);
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
 
         String otp = otpService.generateAndStoreOtp(user.getId());
         String verificationUrl = "https://smartcalendar.se/verify-email?uid=" + user.getId() + "&otp=" + otp;
@@ -230,12 +276,16 @@ public class AuthService {
         User user = userRepository.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("Användaren kunde inte hittas."));
 
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         if (!passwordEncoder.matches(password, user.getPassword())) {
             throw new PermissionDeniedException("Felaktigt lösenord");
         }
 
         userRepository.delete(user);
+        userStatsService.deleteForUser(user.getId());
+        searchIndex.invalidateUser(user.getId());
+        suggestionIndex.invalidateUser(user.getId());
+        occurrenceCache.invalidateUser(user.getId());
+        principalCache.invalidate(user.getUsername());
     }
 
     @Transactional
@@ -270,7 +320,10 @@ public class AuthService {
         return new LoginResponseDTO(newAccessToken, refreshToken);
     }
 
+    @Transactional
     public void revokeRefreshToken(UUID refreshToken) {
+        refreshTokenRepository.findById(refreshToken)
+                .ifPresent(token -> tokenRevocations.revokeTokensOf(token.getUser()));
         refreshTokenRepository.deleteById(refreshToken);
     }
 
@@ -0,0 +1,91 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.dto.BatchAction;
+import com.smartcalender.app.dto.BatchResultDTO;
+import com.smartcalender.app.exception.InvalidInputException;
+import com.smartcalender.app.exception.NotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rules shared by the activity and task batch endpoints. A batch is applied in one transaction, but an operation
+ * that is invalid or refers to a missing item only fails its own result, so one stale entry in an offline queue
+ * does not block the rest of it.
+ */
+public final class BatchOperations {
+
+    public static final int MAX_OPERATIONS = 500;
+
+    private BatchOperations() {
+    }
+
+    /**
+     * Rejects a missing or oversized batch as a whole.
+     *
+     * @param operations the operations of the batch
+     * @throws InvalidInputException if there are no operations or more than {@link #MAX_OPERATIONS}
+     */
+    static void checkSize(List<?> operations) {
+        if (operations == null) {
+            throw new InvalidInputException("Batch must contain a list of operations");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new InvalidInputException("Batch must not contain more than " + MAX_OPERATIONS + " operations");
+        }
+    }
+
+    /**
+     * Collects the IDs the operations refer to, so the referenced rows can be loaded with one query.
+     *
+     * @param operations the operations of the batch
+     * @param id reads the referenced ID of an operation, which may be {@code null}
+     * @return the distinct referenced IDs
+     */
+    static <O> Set<Long> ids(List<O> operations, Function<O, Long> id) {
+        return operations.stream().filter(Objects::nonNull).map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    /**
+     * Checks the payload of a create or update operation against its bean validation constraints, like
+     * {@code @Valid} does for single requests.
+     *
+     * @param validator the validator
+     * @param payload the payload, which may be missing
+     * @throws InvalidInputException if the payload is missing or violates a constraint
+     */
+    static void validate(Validator validator, Object payload) {
+        if (payload == null) {
+            throw new InvalidInputException("Operation must contain the item to save");
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(payload);
+        if (!violations.isEmpty()) {
+            throw new InvalidInputException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Creates the result of an applied operation. The item is attached once the batch has been flushed.
+     */
+    static <T> BatchResultDTO<T> applied(int index, BatchAction action, Long id) {
+        HttpStatus status = action == BatchAction.CREATE ? HttpStatus.CREATED : HttpStatus.OK;
+        return new BatchResultDTO<>(index, action, status.value(), id, null);
+    }
+
+    /**
+     * Creates the result of an operation that was skipped, with the status its error has for single requests.
+     */
+    static <T> BatchResultDTO<T> failed(int index, BatchAction action, Long id, RuntimeException error) {
+        HttpStatus status = error instanceof NotFoundException ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+        return new BatchResultDTO<>(index, action, status.value(), id, error.getMessage());
+    }
+}
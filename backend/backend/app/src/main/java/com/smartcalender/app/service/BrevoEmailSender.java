@@ -0,0 +1,93 @@
+package com.smartcalender.app.service;
+
+import brevo.ApiClient;
+import brevo.ApiException;
+import brevo.Configuration;
+import brevoApi.TransactionalEmailsApi;
+import brevoModel.SendSmtpEmail;
+import brevoModel.SendSmtpEmailMessageVersions;
+import brevoModel.SendSmtpEmailSender;
+import brevoModel.SendSmtpEmailTo;
+import brevoModel.SendSmtpEmailTo1;
+import com.smartcalender.app.exception.EmailDeliveryException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sends outbox emails through the Brevo transactional email API. Batches use message versions, so emails sharing
+ * a template are delivered with a single API call.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "brevo", matchIfMissing = true)
+public class BrevoEmailSender implements EmailSender {
+
+    private final TransactionalEmailsApi api;
+
+    public BrevoEmailSender(@Value("${brevo.api.key}") String apiKey) {
+        if (apiKey == null || apiKey.isEmpty() || apiKey.startsWith("${")) {
+            throw new IllegalStateException("Brevo API key is not configured properly. Check EMAIL_API_KEY environment variable.");
+        }
+
+        try {
+            ApiClient client = Configuration.getDefaultApiClient();
+            client.setApiKey(apiKey);
+            this.api = new TransactionalEmailsApi(client);
+            System.out.println("✅ EmailService initialized successfully");
+        } catch (Exception e) {
+            System.err.println("❌ Failed to initialize EmailService: " + e.getMessage());
+            throw new IllegalStateException("Failed to initialize Brevo email service", e);
+        }
+    }
+
+    @Override
+    public void send(EmailMessage message) {
+        SendSmtpEmail email = newEmail(message.templateId());
+        email.setTo(Collections.singletonList(new SendSmtpEmailTo().email(message.to())));
+        email.setSubject(message.subject());
+        email.setParams(message.params());
+
+        send(email, 1);
+        System.out.println("✅ Email sent to: " + message.to());
+    }
+
+    /**
+     * Sends the whole batch as one call, with one message version per email.
+     */
+    @Override
+    public void sendBatch(List<EmailMessage> messages) {
+        SendSmtpEmail email = newEmail(messages.get(0).templateId());
+        // Brevo requires a top level subject, every version overrides it with its own
+        email.setSubject(messages.get(0).subject());
+        email.setMessageVersions(messages.stream()
+                .map(message -> new SendSmtpEmailMessageVersions()
+                        .to(Collections.singletonList(new SendSmtpEmailTo1().email(message.to())))
+                        .subject(message.subject())
+                        .params(message.params()))
+                .toList());
+
+        send(email, messages.size());
+        System.out.println("✅ Batch of " + messages.size() + " emails sent");
+    }
+
+    private static SendSmtpEmail newEmail(long templateId) {
+        SendSmtpEmail email = new SendSmtpEmail();
+        email.setSender(new SendSmtpEmailSender().name("SmartCalendar Team").email("no-reply@smartcalendar.se"));
+        email.setTemplateId(templateId);
+        return email;
+    }
+
+    private void send(SendSmtpEmail email, int count) {
+        try {
+            api.sendTransacEmail(email);
+        } catch (ApiException e) {
+            System.err.println("❌ Failed to send " + count + " email(s) - HTTP " + e.getCode() + ": " + e.getResponseBody());
+            // 4xx other than rate limiting means Brevo refused the content of the request
+            boolean rejected = e.getCode() >= 400 && e.getCode() < 500 && e.getCode() != 429;
+            throw new EmailDeliveryException("Failed to send email: HTTP " + e.getCode() + ": " + e.getResponseBody(), rejected, e);
+        }
+    }
+}
@@ -7,13 +7,11 @@ import com.smartcalender.app.entity.User;
 import com.smartcalender.app.exception.AlreadyExistsException;
 import com.smartcalender.app.exception.NotFoundException;
 import com.smartcalender.app.repository.CategoryRepository;
-import com.smartcalender.app.repository.UserRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * A service class responsible for handling operations related to categories,
@@ -24,11 +22,18 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final ActivityOccurrenceCache occurrenceCache;
+    private final SuggestionIndex suggestionIndex;
+    private final UserStatsService userStatsService;
 
-    public CategoryService(CategoryRepository categoryRepository, UserRepository userRepository) {
+    public CategoryService(CategoryRepository categoryRepository, PrincipalCache principalCache, ActivityOccurrenceCache occurrenceCache,
+                           SuggestionIndex suggestionIndex, UserStatsService userStatsService) {
         this.categoryRepository = categoryRepository;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.occurrenceCache = occurrenceCache;
+        this.suggestionIndex = suggestionIndex;
+        this.userStatsService = userStatsService;
     }
 
     /**
@@ -55,6 +60,7 @@ public class CategoryService {
             category.setUser(user);
 
             categoryRepository.save(category);
+            suggestionIndex.add(user.getId(), SuggestionIndex.Kind.CATEGORY, category.getName());
             return new CategoryDTO(category);
         }
     }
@@ -74,6 +80,9 @@ public class CategoryService {
         Category category = getCategory(id, user);
 
         categoryRepository.delete(category);
+        occurrenceCache.invalidateUser(user.getId());
+        userStatsService.calendarChanged(user.getId());
+        suggestionIndex.remove(user.getId(), SuggestionIndex.Kind.CATEGORY, category.getName());
     }
 
     /**
@@ -92,27 +101,30 @@ public class CategoryService {
         User user = getUser(currentUser);
 
         Category category = getCategory(id, user);
+        String previousName = category.getName();
 
         category.setName(UpdatedCategory.getName() != null ? UpdatedCategory.getName() : category.getName());
         category.setColor(UpdatedCategory.getColor() != null ? UpdatedCategory.getColor() : category.getColor());
         categoryRepository.save(category);
+        occurrenceCache.invalidateUser(user.getId());
+        userStatsService.calendarChanged(user.getId());
+        suggestionIndex.rename(user.getId(), SuggestionIndex.Kind.CATEGORY, previousName, category.getName());
         return new CategoryDTO(category);
     }
 
     /**
      * Retrieves all categories associated with the authenticated user.
-     * This method fetches the categories from the repository, transforms them into {@code CategoryDTO} objects,
-     * and returns them as a list.
+     * The categories are read as {@code CategoryDTO} projections in a read-only transaction,
+     * without hydrating entities.
      *
      * @param currentUser the authenticated user details used to retrieve the associated categories
      * @return a list of {@code CategoryDTO} objects representing the user's categories
      */
+    @Transactional(readOnly = true)
     public List<CategoryDTO> getAllCategories(UserDetails currentUser) {
         User user = getUser(currentUser);
 
-        return categoryRepository.findByUser(user).stream()
-                .map(CategoryDTO::new)
-                .collect(Collectors.toList());
+        return categoryRepository.findDTOsByUser(user);
     }
 
     /**
@@ -154,7 +166,7 @@ public class CategoryService {
      * @throws NotFoundException if the user is not found in the repository
      */
     private User getUser(UserDetails currentUser) {
-        return userRepository.findByUsername(currentUser.getUsername())
+        return principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
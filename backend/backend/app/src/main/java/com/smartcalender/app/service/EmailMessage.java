@@ -0,0 +1,14 @@
+package com.smartcalender.app.service;
+
+import java.util.Map;
+
+/**
+ * A templated email handed to an {@link EmailSender}.
+ *
+ * @param to the recipient's email address
+ * @param subject the subject of the email
+ * @param templateId the id of the Brevo template
+ * @param params the template parameters
+ */
+public record EmailMessage(String to, String subject, long templateId, Map<String, Object> params) {
+}
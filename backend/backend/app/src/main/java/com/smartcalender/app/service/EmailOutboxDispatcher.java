@@ -0,0 +1,329 @@
+package com.smartcalender.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcalender.app.entity.OutboxEmail;
+import com.smartcalender.app.exception.EmailDeliveryException;
+import com.smartcalender.app.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends the emails waiting in the outbox in the background, so requests that trigger an email never wait for
+ * the mail provider or hold a database connection during its round trip.
+ *
+ * Due emails are claimed in batches by pushing their next attempt past a lease, sent without a transaction and
+ * then deleted, or rescheduled with exponential backoff if sending failed. In the default {@code batched} mode the
+ * emails of a batch that share a template go out in a single provider call, in {@code single} mode every email is
+ * its own call. Either way a token bucket holds the sends to the provider's quota. An email that still fails after the
+ * maximum number of attempts is kept with status FAILED. Should the application stop between claiming and
+ * completing a batch, the lease runs out and the batch is sent again, so every email is sent at least once.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final String BATCH = "batch";
+    private static final String SINGLE = "single";
+    private static final TypeReference<Map<String, Object>> PARAMS_TYPE = new TypeReference<>() {
+    };
+
+    private final OutboxEmailRepository outboxRepository;
+    private final EmailSender emailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "email-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    private final boolean batched;
+    private final TokenBucket rateLimiter;
+    private final Map<String, Timer> sendLatency;
+    private final Counter sentCounter;
+    private final Counter failureCounter;
+
+    public EmailOutboxDispatcher(OutboxEmailRepository outboxRepository, EmailSender emailSender,
+                                 PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${email-outbox.mode:batched}") String mode,
+                                 @Value("${email-outbox.batch-size:50}") int batchSize,
+                                 @Value("${email-outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${email-outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                                 @Value("${email-outbox.max-backoff:PT1H}") Duration maxBackoff,
+                                 @Value("${email-outbox.rate-limit.emails-per-second:10}") double emailsPerSecond,
+                                 @Value("${email-outbox.rate-limit.burst:50}") int burst) {
+        this.outboxRepository = outboxRepository;
+        this.emailSender = emailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        if (!mode.equals("batched") && !mode.equals("single")) {
+            throw new IllegalArgumentException("email-outbox.mode must be batched or single, was " + mode);
+        }
+        this.batched = mode.equals("batched");
+        this.rateLimiter = new TokenBucket(emailsPerSecond, burst);
+
+        Gauge.builder("email.outbox.queue.depth", outboxRepository, repository -> repository.countByStatus(OutboxEmail.Status.PENDING))
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.failed", outboxRepository, repository -> repository.countByStatus(OutboxEmail.Status.FAILED))
+                .description("Emails given up on after the maximum number of attempts")
+                .register(meterRegistry);
+        this.sendLatency = Map.of(
+                BATCH, Timer.builder("email.send.latency").tag("call", BATCH).register(meterRegistry),
+                SINGLE, Timer.builder("email.send.latency").tag("call", SINGLE).register(meterRegistry));
+        this.sentCounter = Counter.builder("email.sent").description("Emails delivered to the provider").register(meterRegistry);
+        this.failureCounter = Counter.builder("email.send.failures").description("Email deliveries that failed").register(meterRegistry);
+    }
+
+    /**
+     * Asks for the outbox to be dispatched on the background thread as soon as possible.
+     * Requests made while one is already waiting are merged into it.
+     */
+    public void requestDispatch() {
+        if (!dispatchRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                dispatchRequested.set(false);
+                try {
+                    dispatch();
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Email outbox dispatch failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the emails stay in the outbox for the next start
+            dispatchRequested.set(false);
+        }
+    }
+
+    /**
+     * Picks up emails whose retry is due and emails a missed wake-up left behind.
+     */
+    @Scheduled(fixedDelayString = "${email-outbox.poll-interval-ms:5000}",
+            initialDelayString = "${email-outbox.poll-interval-ms:5000}")
+    public void poll() {
+        requestDispatch();
+    }
+
+    /**
+     * Sends every due email in the outbox, batch by batch.
+     *
+     * @return the number of emails sent
+     */
+    public synchronized int dispatch() {
+        int sent = 0;
+        List<OutboxEmail> batch;
+        do {
+            batch = claimBatch();
+            List<Long> delivered = new ArrayList<>();
+            List<OutboxEmail> failed = new ArrayList<>();
+            try {
+                if (batched) {
+                    for (List<OutboxEmail> group : groupByTemplate(batch)) {
+                        sendGroup(group, delivered, failed);
+                    }
+                } else {
+                    for (OutboxEmail email : batch) {
+                        sendOne(email, delivered, failed);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Shutting down, unsent emails are picked up again when their lease runs out
+                Thread.currentThread().interrupt();
+                complete(delivered, failed);
+                return sent + delivered.size();
+            }
+            complete(delivered, failed);
+            sent += delivered.size();
+        } while (batch.size() == batchSize);
+        return sent;
+    }
+
+    /**
+     * Returns how long to wait before the next attempt of an email that failed the given number of times.
+     *
+     * @param attempts the number of failed attempts so far, at least 1
+     * @return the delay before the next attempt
+     */
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxBackoff) > 0 || delay.isNegative() ? maxBackoff : delay;
+    }
+
+    private List<OutboxEmail> claimBatch() {
+        try {
+            return transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                List<OutboxEmail> due = outboxRepository.findDue(now, Limit.of(batchSize));
+                due.forEach(email -> email.setNextAttemptAt(now.plus(LEASE)));
+                return due;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // Another instance claimed the same emails first
+            return List.of();
+        }
+    }
+
+    private void complete(List<Long> delivered, List<OutboxEmail> failed) {
+        if (delivered.isEmpty() && failed.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteAllByIdInBatch(delivered);
+
+            Instant now = Instant.now();
+            for (OutboxEmail email : failed) {
+                email.setAttempts(email.getAttempts() + 1);
+                if (email.getAttempts() >= maxAttempts) {
+                    email.setStatus(OutboxEmail.Status.FAILED);
+                    System.err.println("❌ Giving up on email " + email.getId() + " to " + email.getRecipient()
+                            + " after " + email.getAttempts() + " attempts: " + email.getLastError());
+                } else {
+                    email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                }
+            }
+            outboxRepository.saveAll(failed);
+        });
+    }
+
+    /**
+     * Sends emails sharing a template with one provider call per chunk. When the provider refuses a chunk,
+     * its emails are sent one by one so that a single bad email does not hold back the others. Emails whose
+     * parameters cannot be read fail on their own before the call, like a failed single send.
+     */
+    private void sendGroup(List<OutboxEmail> emails, List<Long> delivered, List<OutboxEmail> failed) throws InterruptedException {
+        if (emails.size() == 1) {
+            sendOne(emails.get(0), delivered, failed);
+            return;
+        }
+
+        List<OutboxEmail> group = new ArrayList<>(emails.size());
+        List<EmailMessage> messages = new ArrayList<>(emails.size());
+        for (OutboxEmail email : emails) {
+            try {
+                messages.add(toMessage(email));
+                group.add(email);
+            } catch (IllegalStateException e) {
+                failureCounter.increment();
+                email.setLastError(e.getMessage());
+                failed.add(email);
+            }
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+
+        rateLimiter.acquire(group.size());
+        long start = System.nanoTime();
+        try {
+            emailSender.sendBatch(messages);
+            recordSent(BATCH, start, group.size());
+            group.forEach(email -> delivered.add(email.getId()));
+        } catch (RuntimeException e) {
+            if (e instanceof EmailDeliveryException delivery && delivery.isRejected()) {
+                // Only the emails that fail on their own count as failures
+                sendLatency.get(BATCH).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                for (OutboxEmail email : group) {
+                    sendOne(email, delivered, failed);
+                }
+            } else {
+                recordFailed(BATCH, start, group.size());
+                group.forEach(email -> email.setLastError(e.getMessage()));
+                failed.addAll(group);
+            }
+        }
+    }
+
+    private void sendOne(OutboxEmail email, List<Long> delivered, List<OutboxEmail> failed) throws InterruptedException {
+        rateLimiter.acquire(1);
+        long start = System.nanoTime();
+        try {
+            emailSender.send(toMessage(email));
+            recordSent(SINGLE, start, 1);
+            delivered.add(email.getId());
+        } catch (RuntimeException e) {
+            recordFailed(SINGLE, start, 1);
+            email.setLastError(e.getMessage());
+            failed.add(email);
+        }
+    }
+
+    /**
+     * Groups a batch by template, in chunks no larger than the rate limiter's burst, keeping the outbox order.
+     */
+    private List<List<OutboxEmail>> groupByTemplate(List<OutboxEmail> batch) {
+        Map<Long, List<OutboxEmail>> byTemplate = new LinkedHashMap<>();
+        for (OutboxEmail email : batch) {
+            byTemplate.computeIfAbsent(email.getTemplateId(), templateId -> new ArrayList<>()).add(email);
+        }
+
+        int chunkSize = (int) Math.min(batchSize, rateLimiter.capacity());
+        List<List<OutboxEmail>> groups = new ArrayList<>();
+        for (List<OutboxEmail> emails : byTemplate.values()) {
+            for (int from = 0; from < emails.size(); from += chunkSize) {
+                groups.add(emails.subList(from, Math.min(emails.size(), from + chunkSize)));
+            }
+        }
+        return groups;
+    }
+
+    private void recordSent(String mode, long start, int count) {
+        sendLatency.get(mode).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        sentCounter.increment(count);
+    }
+
+    private void recordFailed(String mode, long start, int count) {
+        sendLatency.get(mode).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        failureCounter.increment(count);
+    }
+
+    private EmailMessage toMessage(OutboxEmail email) {
+        Map<String, Object> params;
+        try {
+            params = email.getParams() == null ? Map.of() : objectMapper.readValue(email.getParams(), PARAMS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid template parameters", e);
+        }
+        return new EmailMessage(email.getRecipient(), email.getSubject(), email.getTemplateId(), params);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
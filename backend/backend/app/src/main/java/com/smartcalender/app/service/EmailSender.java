@@ -0,0 +1,28 @@
+package com.smartcalender.app.service;
+
+import java.util.List;
+
+/**
+ * Delivers emails from the outbox. The implementation is picked with the {@code email.transport} property:
+ * {@code brevo} (the default) sends through the Brevo API, {@code stub} only records the messages for tests
+ * and local development.
+ */
+public interface EmailSender {
+
+    /**
+     * Delivers a single email.
+     *
+     * @param message the email to deliver
+     * @throws com.smartcalender.app.exception.EmailDeliveryException if the email could not be delivered
+     */
+    void send(EmailMessage message);
+
+    /**
+     * Delivers several emails sharing one template with a single provider call.
+     * Either every email of the batch is delivered or none is.
+     *
+     * @param messages the emails to deliver, all with the same template
+     * @throws com.smartcalender.app.exception.EmailDeliveryException if the batch could not be delivered
+     */
+    void sendBatch(List<EmailMessage> messages);
+}
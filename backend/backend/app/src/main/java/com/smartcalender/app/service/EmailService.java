@@ -1,50 +1,42 @@
 package com.smartcalender.app.service;
 
-import brevo.ApiClient;
-import brevo.ApiException;
-import brevo.Configuration;
-import brevoApi.TransactionalEmailsApi;
-import brevoModel.SendSmtpEmail;
-import brevoModel.SendSmtpEmailSender;
-import brevoModel.SendSmtpEmailTo;
-import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcalender.app.entity.OutboxEmail;
+import com.smartcalender.app.repository.OutboxEmailRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Collections;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * The EmailService class is responsible for sending emails using the Brevo API.
+ * The EmailService class is responsible for sending emails using Brevo templates.
  * It supports verification and password reset emails with dynamic parameters.
+ * Emails are written to the outbox in the caller's transaction and sent by the {@link EmailOutboxDispatcher}
+ * once that transaction commits, so an email is only sent for changes that were actually saved.
  */
 @Service
 public class EmailService {
 
-    private String apiKey;
-    private final TransactionalEmailsApi api;
+    static final long VERIFICATION_TEMPLATE_ID = 1L;
+    static final long PASSWORD_RESET_TEMPLATE_ID = 2L;
 
-    public EmailService(@Value("${brevo.api.key}") String apiKey) {
-        this.apiKey = apiKey;
+    private final OutboxEmailRepository outboxRepository;
+    private final EmailOutboxDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
 
-        if (apiKey == null || apiKey.isEmpty() || apiKey.startsWith("${")) {
-            throw new IllegalStateException("Brevo API key is not configured properly. Check EMAIL_API_KEY environment variable.");
-        }
-
-        try {
-            ApiClient client = Configuration.getDefaultApiClient();
-            client.setApiKey(apiKey);
-            this.api = new TransactionalEmailsApi(client);
-            System.out.println("✅ EmailService initialized successfully");
-        } catch (Exception e) {
-            System.err.println("❌ Failed to initialize EmailService: " + e.getMessage());
-            throw new IllegalStateException("Failed to initialize Brevo email service", e);
-        }
+    public EmailService(OutboxEmailRepository outboxRepository, EmailOutboxDispatcher dispatcher, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
     }
 
 
     /**
-     * Sends a verification email using a Brevo template.
+     * Queues a verification email using a Brevo template.
      *
      * @param to the recipient's email address
      * @param subject the subject of the email
@@ -52,60 +44,43 @@ public class EmailService {
      * @param otp the one-time password
      */
     public void sendVerificationEmail(String to, String subject, String verificationUrl, String otp) {
-        try {
-            SendSmtpEmail email = new SendSmtpEmail();
-            email.setSender(new SendSmtpEmailSender().name("SmartCalendar Team").email("no-reply@smartcalendar.se"));
-            email.setTo(Collections.singletonList(new SendSmtpEmailTo().email(to)));
-            email.setSubject(subject);
-            email.setTemplateId(1L);
-
-            Map<String, Object> params = new HashMap<>();
-            params.put("verificationUrl", verificationUrl);
-            params.put("otp", otp);
-            email.setParams(params);
-
-            api.sendTransacEmail(email);
-            System.out.println("✅ Verification email sent to: " + to);
-
-        } catch (ApiException e) {
-            System.err.println("❌ Failed to send verification email to " + to +
-                             " - HTTP " + e.getCode() + ": " + e.getResponseBody());
-            throw new RuntimeException("Failed to send verification email: " + e.getResponseBody(), e);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send verification email to " + to + ": " + e.getMessage());
-            throw new RuntimeException("Failed to send verification email: " + e.getMessage(), e);
-        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("verificationUrl", verificationUrl);
+        params.put("otp", otp);
+        enqueue(to, subject, VERIFICATION_TEMPLATE_ID, params);
     }
 
     /**
-     * Sends a password reset email using a Brevo template.
+     * Queues a password reset email using a Brevo template.
      *
      * @param to the recipient's email address
      * @param subject the subject of the email
      * @param resetUrl the password reset URL
      */
     public void sendPasswordResetEmail(String to, String subject, String resetUrl) {
-        try {
-            SendSmtpEmail email = new SendSmtpEmail();
-            email.setSender(new SendSmtpEmailSender().name("SmartCalendar Team").email("no-reply@smartcalendar.se"));
-            email.setTo(Collections.singletonList(new SendSmtpEmailTo().email(to)));
-            email.setSubject(subject);
-            email.setTemplateId(2L);
-
-            Map<String, Object> params = new HashMap<>();
-            params.put("resetUrl", resetUrl);
-            email.setParams(params);
-
-            api.sendTransacEmail(email);
-            System.out.println("✅ Password reset email sent to: " + to);
+        Map<String, Object> params = new HashMap<>();
+        params.put("resetUrl", resetUrl);
+        enqueue(to, subject, PASSWORD_RESET_TEMPLATE_ID, params);
+    }
 
-        } catch (ApiException e) {
-            System.err.println("❌ Failed to send password reset email to " + to +
-                             " - HTTP " + e.getCode() + ": " + e.getResponseBody());
-            throw new RuntimeException("Failed to send password reset email: " + e.getResponseBody(), e);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send password reset email to " + to + ": " + e.getMessage());
-            throw new RuntimeException("Failed to send password reset email: " + e.getMessage(), e);
+    private void enqueue(String to, String subject, long templateId, Map<String, Object> params) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize email parameters", e);
+        }
+        outboxRepository.save(new OutboxEmail(to, subject, templateId, json, Instant.now()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.requestDispatch();
+                }
+            });
+        } else {
+            dispatcher.requestDispatch();
         }
     }
-}
\ No newline at end of file
+}
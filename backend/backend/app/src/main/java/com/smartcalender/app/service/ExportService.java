@@ -0,0 +1,253 @@
+package com.smartcalender.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcalender.app.dto.ActivityDTO;
+import com.smartcalender.app.dto.TaskDTO;
+import com.smartcalender.app.entity.Recurrence;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.exception.NotFoundException;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * Service that exports a user's complete calendar history as JSON arrays and as an iCalendar feed.
+ * Rows are streamed from a database cursor straight into a Jackson generator or {@link IcsWriter} writing to the
+ * response, so neither the entities nor the DTOs of an account are ever held in memory at once. Heap usage stays
+ * bounded by the driver fetch size and the number of activities on a single day, regardless of account size.
+ */
+@Service
+public class ExportService {
+
+    // How often subscribed clients are asked to poll the calendar feed
+    private static final String FEED_REFRESH_INTERVAL = "PT15M";
+    private static final String UID_DOMAIN = "@smartcalendar";
+
+    private final ActivityRepository activityRepository;
+    private final TaskRepository taskRepository;
+    private final PrincipalCache principalCache;
+    private final ObjectMapper objectMapper;
+    private final UserStatsService userStatsService;
+
+    public ExportService(ActivityRepository activityRepository, TaskRepository taskRepository,
+                         PrincipalCache principalCache, ObjectMapper objectMapper, UserStatsService userStatsService) {
+        this.activityRepository = activityRepository;
+        this.taskRepository = taskRepository;
+        this.principalCache = principalCache;
+        this.objectMapper = objectMapper;
+        this.userStatsService = userStatsService;
+    }
+
+    /**
+     * Writes every activity of the current user to the given stream as a JSON array of {@code ActivityDTO}
+     * objects, ordered by date, start time and ID. Activities arrive ordered by date, so overlap warnings are
+     * computed one day at a time and each day is written as soon as it is complete.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @param out the stream to write to, which is left open
+     * @throws IOException if writing to the stream fails
+     * @throws NotFoundException if the current user cannot be found in the system
+     */
+    @Transactional(readOnly = true)
+    public void exportActivities(UserDetails currentUser, OutputStream out) throws IOException {
+        User user = getUser(currentUser);
+
+        try (Stream<ActivityDTO> activities = activityRepository.streamDTOsByUser(user);
+             JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartArray();
+
+            List<ActivityDTO> day = new ArrayList<>();
+            Iterator<ActivityDTO> rows = activities.iterator();
+            while (rows.hasNext()) {
+                ActivityDTO activity = rows.next();
+                if (!day.isEmpty() && !day.get(0).getDate().equals(activity.getDate())) {
+                    writeDay(generator, day);
+                    day.clear();
+                }
+                day.add(activity);
+            }
+            writeDay(generator, day);
+
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes every task of the current user to the given stream as a JSON array of {@code TaskDTO} objects,
+     * ordered by date and ID with undated tasks last.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @param out the stream to write to, which is left open
+     * @throws IOException if writing to the stream fails
+     * @throws NotFoundException if the current user cannot be found in the system
+     */
+    @Transactional(readOnly = true)
+    public void exportTasks(UserDetails currentUser, OutputStream out) throws IOException {
+        User user = getUser(currentUser);
+
+        try (Stream<TaskDTO> tasks = taskRepository.streamDTOsByUser(user);
+             JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartArray();
+            Iterator<TaskDTO> rows = tasks.iterator();
+            while (rows.hasNext()) {
+                generator.writeObject(rows.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Reads the calendar version of the current user, which identifies the content of their calendar feed. This reads
+     * the statistics row only, so a client whose copy of the feed is current can be answered without scanning the
+     * activities or tasks.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @return the version of the user's calendar
+     * @throws NotFoundException if the current user cannot be found in the system
+     */
+    public UserStatsService.CalendarVersion getCalendarVersion(UserDetails currentUser) {
+        return userStatsService.getCalendarVersion(getUser(currentUser).getId());
+    }
+
+    /**
+     * Writes the current user's calendar to the given stream as an iCalendar feed for calendar clients to subscribe
+     * to. Activities are written as events in floating time, repeating weekly, monthly and so on like in the app, and
+     * tasks as to-dos due on their date. VTODO repeat rules need a start time, so task recurrence is left out.
+     *
+     * The feed is read from a single snapshot, starting with the calendar version, and every component is stamped
+     * with the time of that version's last change instead of the time of writing, so the same version always
+     * produces the same feed.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @param out the stream to write to, which is left open
+     * @throws IOException if writing to the stream fails
+     * @throws NotFoundException if the current user cannot be found in the system
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportCalendar(UserDetails currentUser, OutputStream out) throws IOException {
+        User user = getUser(currentUser);
+        UserStatsService.CalendarVersion version = userStatsService.getCalendarVersion(user.getId());
+        Instant stamp = version.changedAt() != null ? version.changedAt() : Instant.EPOCH;
+        IcsWriter ics = new IcsWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+
+        ics.property("BEGIN", "VCALENDAR");
+        ics.property("VERSION", "2.0");
+        ics.property("PRODID", "-//SmartCalendar//Calendar feed//EN");
+        ics.property("CALSCALE", "GREGORIAN");
+        ics.property("METHOD", "PUBLISH");
+        ics.text("X-WR-CALNAME", "SmartCalendar");
+        ics.property("REFRESH-INTERVAL;VALUE=DURATION", FEED_REFRESH_INTERVAL);
+        ics.property("X-PUBLISHED-TTL", FEED_REFRESH_INTERVAL);
+
+        try (Stream<ActivityDTO> activities = activityRepository.streamDTOsByUser(user)) {
+            Iterator<ActivityDTO> rows = activities.iterator();
+            while (rows.hasNext()) {
+                writeEvent(ics, rows.next(), stamp);
+            }
+        }
+        try (Stream<TaskDTO> tasks = taskRepository.streamDTOsByUser(user)) {
+            Iterator<TaskDTO> rows = tasks.iterator();
+            while (rows.hasNext()) {
+                writeTodo(ics, rows.next(), stamp);
+            }
+        }
+
+        ics.property("END", "VCALENDAR");
+        ics.flush();
+    }
+
+    private void writeEvent(IcsWriter ics, ActivityDTO activity, Instant stamp) throws IOException {
+        ics.property("BEGIN", "VEVENT");
+        ics.property("UID", "activity-" + activity.getId() + UID_DOMAIN);
+        ics.utc("DTSTAMP", stamp);
+        ics.dateTime("DTSTART", activity.getDate().atTime(activity.getStartTime()));
+        ics.dateTime("DTEND", activity.getDate().atTime(activity.getEndTime()));
+        if (RecurrenceExpander.isRecurring(activity.getRecurrence())) {
+            ics.property("RRULE", repeatRule(activity.getDate(), activity.getRecurrence()));
+        }
+        ics.text("SUMMARY", activity.getName());
+        ics.text("DESCRIPTION", activity.getDescription());
+        ics.text("LOCATION", activity.getLocation());
+        ics.text("CATEGORIES", activity.getCategoryName());
+        ics.property("END", "VEVENT");
+    }
+
+    /**
+     * Builds the RRULE of a series that repeats like {@link RecurrenceExpander} expands it. Calendar clients skip
+     * the months without the seed's day, while the app moves the occurrence to the last day of the month, so a seed
+     * after the 28th picks the last existing day from the 28th up to the seed's day instead.
+     *
+     * @param seed the date of the first occurrence
+     * @param recurrence how often the series repeats, not {@link Recurrence#NONE}
+     * @return the RRULE value
+     */
+    static String repeatRule(LocalDate seed, Recurrence recurrence) {
+        String rule = "FREQ=" + recurrence.name();
+        int day = seed.getDayOfMonth();
+        boolean shortMonthsMissDay = switch (recurrence) {
+            case MONTHLY -> day > 28;
+            case YEARLY -> seed.getMonth() == Month.FEBRUARY && day == 29;
+            default -> false;
+        };
+        if (!shortMonthsMissDay) {
+            return rule;
+        }
+        StringJoiner days = new StringJoiner(",");
+        for (int candidate = 28; candidate <= day; candidate++) {
+            days.add(String.valueOf(candidate));
+        }
+        String month = recurrence == Recurrence.YEARLY ? ";BYMONTH=" + seed.getMonthValue() : "";
+        return rule + month + ";BYMONTHDAY=" + days + ";BYSETPOS=-1";
+    }
+
+    private void writeTodo(IcsWriter ics, TaskDTO task, Instant stamp) throws IOException {
+        ics.property("BEGIN", "VTODO");
+        ics.property("UID", "task-" + task.getId() + UID_DOMAIN);
+        ics.utc("DTSTAMP", stamp);
+        if (task.getDate() != null) {
+            ics.date("DUE", task.getDate());
+        }
+        ics.text("SUMMARY", task.getName());
+        ics.text("DESCRIPTION", task.getDescription());
+        ics.text("LOCATION", task.getLocation());
+        ics.property("STATUS", task.isCompleted() ? "COMPLETED" : "NEEDS-ACTION");
+        ics.property("END", "VTODO");
+    }
+
+    private void writeDay(JsonGenerator generator, List<ActivityDTO> day) throws IOException {
+        ActivityOverlapIndex<ActivityDTO> index = ActivityOverlapIndex.of(day);
+        for (ActivityDTO activity : day) {
+            activity.setWarnings(index.warningsFor(activity));
+            generator.writeObject(activity);
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private User getUser(UserDetails currentUser) {
+        return principalCache.findByUsername(currentUser.getUsername())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+}
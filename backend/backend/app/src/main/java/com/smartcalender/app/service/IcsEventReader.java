@@ -0,0 +1,307 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.exception.ExternalCalendarSyncException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader of the events of an iCalendar (RFC 5545) file. Lines are unfolded and parsed as they are read,
+ * and only the event being read is held in memory, so exports of any size can be imported. Components other than
+ * VEVENT, such as time zone definitions and to-dos, and components nested in an event, such as alarms, are skipped.
+ *
+ * Times with a UTC or known TZID zone are converted to the given zone; floating times and unknown zones, such as
+ * Windows zone names, are read as times in that zone.
+ */
+public class IcsEventReader implements Closeable {
+
+    static final int MAX_LINE_LENGTH = 1 << 20;
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final Reader reader;
+    private final ZoneId zone;
+    private final StringBuilder buffer = new StringBuilder();
+    private String lookahead;
+    private int lookaheadNumber;
+    private int physicalLines;
+    private int lineNumber;
+
+    /**
+     * Creates a reader over an iCalendar stream. The stream should be buffered.
+     *
+     * @param reader the iCalendar text
+     * @param zone the zone the event times are converted to
+     */
+    public IcsEventReader(Reader reader, ZoneId zone) {
+        this.reader = reader;
+        this.zone = zone;
+    }
+
+    /**
+     * An event read from the stream.
+     *
+     * @param summary the title, or {@code null}
+     * @param description the description, or {@code null}
+     * @param location the location, or {@code null}
+     * @param start when the event starts, in the zone of the reader
+     * @param end when the event ends, in the zone of the reader
+     * @param allDay whether the event spans whole days rather than times
+     * @param rule the RRULE value, or {@code null} if the event does not repeat
+     * @param cancelled whether the event was cancelled
+     * @param override whether the event replaces one occurrence of a repeating event (RECURRENCE-ID)
+     * @param line the line the event starts on
+     */
+    public record IcsEvent(String summary, String description, String location, LocalDateTime start, LocalDateTime end,
+                           boolean allDay, String rule, boolean cancelled, boolean override, int line) {
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @return the next event, or {@code null} at the end of the stream
+     * @throws IOException if the stream cannot be read
+     * @throws ExternalCalendarSyncException if the stream is not valid iCalendar data
+     */
+    public IcsEvent next() throws IOException {
+        Map<String, ContentLine> properties = null;
+        int start = 0;
+        int depth = 0;
+
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ContentLine content = parse(line);
+            if (properties == null) {
+                if (content.is("BEGIN", "VEVENT")) {
+                    properties = new HashMap<>();
+                    start = lineNumber;
+                }
+            } else if (content.name().equals("BEGIN")) {
+                depth++;
+            } else if (content.name().equals("END")) {
+                if (depth == 0) {
+                    if (!content.is("END", "VEVENT")) {
+                        throw invalid("Expected END:VEVENT but found END:" + content.value());
+                    }
+                    return toEvent(properties, start);
+                }
+                depth--;
+            } else if (depth == 0) {
+                properties.putIfAbsent(content.name(), content);
+            }
+        }
+        if (properties != null) {
+            throw invalid("Calendar ends inside the event starting on line " + start);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private IcsEvent toEvent(Map<String, ContentLine> properties, int line) {
+        ContentLine startProperty = properties.get("DTSTART");
+        if (startProperty == null) {
+            throw invalid("Event starting on line " + line + " has no DTSTART");
+        }
+        boolean allDay = isDate(startProperty);
+        LocalDateTime start = dateTime(startProperty);
+
+        LocalDateTime end;
+        if (properties.containsKey("DTEND")) {
+            end = dateTime(properties.get("DTEND"));
+        } else if (properties.containsKey("DURATION")) {
+            end = start.plus(duration(properties.get("DURATION").value()));
+        } else {
+            end = allDay ? start.plusDays(1) : start;
+        }
+
+        ContentLine status = properties.get("STATUS");
+        return new IcsEvent(text(properties.get("SUMMARY")), text(properties.get("DESCRIPTION")),
+                text(properties.get("LOCATION")), start, end, allDay,
+                properties.containsKey("RRULE") ? properties.get("RRULE").value().trim() : null,
+                status != null && status.value().trim().equalsIgnoreCase("CANCELLED"),
+                properties.containsKey("RECURRENCE-ID"), line);
+    }
+
+    private static boolean isDate(ContentLine property) {
+        return "DATE".equalsIgnoreCase(property.params().get("VALUE")) || property.value().trim().length() == 8;
+    }
+
+    private LocalDateTime dateTime(ContentLine property) {
+        String value = property.value().trim();
+        try {
+            if (isDate(property)) {
+                return LocalDate.parse(value, DATE).atStartOfDay();
+            }
+            boolean utc = value.endsWith("Z") || value.endsWith("z");
+            LocalDateTime local = LocalDateTime.parse(utc ? value.substring(0, value.length() - 1) : value, DATE_TIME);
+            ZoneId source = utc ? ZoneOffset.UTC : knownZone(property.params().get("TZID"));
+            return source == null ? local : local.atZone(source).withZoneSameInstant(zone).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            throw invalid("Invalid " + property.name() + " '" + value + "'");
+        }
+    }
+
+    private static ZoneId knownZone(String tzid) {
+        if (tzid == null) {
+            return null;
+        }
+        try {
+            return ZoneId.of(tzid);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private Duration duration(String value) {
+        String trimmed = value.trim();
+        try {
+            boolean negative = trimmed.startsWith("-");
+            String unsigned = trimmed.startsWith("-") || trimmed.startsWith("+") ? trimmed.substring(1) : trimmed;
+            // Java durations have no weeks
+            Duration duration = unsigned.endsWith("W")
+                    ? Duration.ofDays(7L * Long.parseLong(unsigned.substring(1, unsigned.length() - 1)))
+                    : Duration.parse(unsigned);
+            return negative ? duration.negated() : duration;
+        } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+            throw invalid("Invalid DURATION '" + trimmed + "'");
+        }
+    }
+
+    // Unescapes a TEXT value
+    private static String text(ContentLine property) {
+        if (property == null) {
+            return null;
+        }
+        String value = property.value();
+        StringBuilder text = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char escaped = value.charAt(++i);
+                text.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+            } else {
+                text.append(c);
+            }
+        }
+        String trimmed = text.toString().strip();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private ContentLine parse(String line) {
+        int nameEnd = -1;
+        int colon = -1;
+        boolean quoted = false;
+        for (int i = 0; i < line.length() && colon < 0; i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == ';' || c == ':')) {
+                if (nameEnd < 0) {
+                    nameEnd = i;
+                }
+                if (c == ':') {
+                    colon = i;
+                }
+            }
+        }
+        if (colon < 0) {
+            throw invalid("Line has no ':'");
+        }
+
+        Map<String, String> params = new HashMap<>();
+        if (nameEnd < colon) {
+            for (String param : splitParams(line.substring(nameEnd + 1, colon))) {
+                int equals = param.indexOf('=');
+                if (equals > 0) {
+                    String value = param.substring(equals + 1);
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    params.put(param.substring(0, equals).toUpperCase(Locale.ROOT), value);
+                }
+            }
+        }
+        return new ContentLine(line.substring(0, nameEnd).trim().toUpperCase(Locale.ROOT), params, line.substring(colon + 1));
+    }
+
+    private static String[] splitParams(String params) {
+        return params.split(";(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+    }
+
+    // The next logical line, with folded continuation lines joined
+    private String readLine() throws IOException {
+        String line = lookahead != null ? lookahead : readPhysicalLine();
+        int number = lookahead != null ? lookaheadNumber : physicalLines;
+        if (line == null) {
+            return null;
+        }
+        lineNumber = number;
+
+        StringBuilder unfolded = null;
+        while (true) {
+            lookahead = readPhysicalLine();
+            lookaheadNumber = physicalLines;
+            if (lookahead == null || lookahead.isEmpty() || (lookahead.charAt(0) != ' ' && lookahead.charAt(0) != '\t')) {
+                break;
+            }
+            if (unfolded == null) {
+                unfolded = new StringBuilder(line);
+            }
+            if (unfolded.length() + lookahead.length() > MAX_LINE_LENGTH) {
+                throw invalid("Line is longer than " + MAX_LINE_LENGTH + " characters");
+            }
+            unfolded.append(lookahead, 1, lookahead.length());
+        }
+        return unfolded != null ? unfolded.toString() : line;
+    }
+
+    private String readPhysicalLine() throws IOException {
+        buffer.setLength(0);
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (buffer.length() == MAX_LINE_LENGTH) {
+                lineNumber = physicalLines + 1;
+                throw invalid("Line is longer than " + MAX_LINE_LENGTH + " characters");
+            }
+            buffer.append((char) c);
+        }
+        if (c == -1 && buffer.isEmpty()) {
+            return null;
+        }
+        physicalLines++;
+        int start = physicalLines == 1 && !buffer.isEmpty() && buffer.charAt(0) == '\uFEFF' ? 1 : 0;
+        int end = !buffer.isEmpty() && buffer.charAt(buffer.length() - 1) == '\r' ? buffer.length() - 1 : buffer.length();
+        return buffer.substring(Math.min(start, end), end);
+    }
+
+    private ExternalCalendarSyncException invalid(String message) {
+        return new ExternalCalendarSyncException("Invalid iCalendar data on line " + lineNumber + ": " + message);
+    }
+
+    private record ContentLine(String name, Map<String, String> params, String value) {
+
+        boolean is(String name, String value) {
+            return this.name.equals(name) && this.value.trim().equalsIgnoreCase(value);
+        }
+    }
+}
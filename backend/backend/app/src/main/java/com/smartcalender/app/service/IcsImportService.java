@@ -0,0 +1,236 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.dto.IcsImportDTO;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Recurrence;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.exception.ExternalCalendarSyncException;
+import com.smartcalender.app.exception.NotFoundException;
+import com.smartcalender.app.repository.ActivityRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports the events of an iCalendar (.ics) export, such as a Google Calendar or Outlook export, as activities.
+ * Events are read one at a time from the request body by an {@link IcsEventReader} and saved in batches of
+ * {@code ics-import.batch-size}, each in its own transaction, so an import of any size holds at most one batch
+ * in memory. The request's persistence context is kept open across batches, so every batch is flushed and cleared
+ * from it before the next one. If the data turns out to be invalid, the batches saved before the error are kept.
+ *
+ * Activities cover part of a single day, so events are imported on their start date and events that run past
+ * midnight end at 23:59; all-day events cover the whole start date. A repeat rule becomes the matching
+ * {@link Recurrence} if it simply repeats every day, week, month or year without end; any other rule is imported
+ * as a single activity and counted in the result.
+ */
+@Service
+public class IcsImportService {
+
+    // Activity text columns are VARCHAR(255)
+    static final int MAX_TEXT_LENGTH = 255;
+
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59);
+    private static final String UNTITLED = "Untitled event";
+
+    private final ActivityRepository activityRepository;
+    private final PrincipalCache principalCache;
+    private final ActivityOccurrenceCache occurrenceCache;
+    private final UserStatsService userStatsService;
+    private final SearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final ZoneId zone;
+
+    public IcsImportService(ActivityRepository activityRepository, PrincipalCache principalCache,
+                            ActivityOccurrenceCache occurrenceCache, UserStatsService userStatsService,
+                            SearchIndex searchIndex, SuggestionIndex suggestionIndex,
+                            PlatformTransactionManager transactionManager, EntityManager entityManager,
+                            @Value("${ics-import.batch-size:500}") int batchSize,
+                            @Value("${ics-import.zone:}") String zone) {
+        this.activityRepository = activityRepository;
+        this.principalCache = principalCache;
+        this.occurrenceCache = occurrenceCache;
+        this.userStatsService = userStatsService;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.batchSize = Math.max(1, batchSize);
+        this.zone = zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+    }
+
+    /**
+     * Imports every event of an iCalendar stream as activities of the current user. Cancelled events and events
+     * that change a single occurrence of a repeating event are skipped, as are events without a duration.
+     *
+     * @param currentUser the details of the currently authenticated user
+     * @param in the iCalendar data, read as UTF-8 and left open
+     * @return how many events were imported and skipped
+     * @throws NotFoundException if the current user cannot be found in the system
+     * @throws ExternalCalendarSyncException if the data cannot be read or is not valid iCalendar data
+     */
+    public IcsImportDTO importActivities(UserDetails currentUser, InputStream in) {
+        User user = principalCache.findByUsername(currentUser.getUsername())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        IcsImportDTO result = new IcsImportDTO();
+        List<Activity> batch = new ArrayList<>(batchSize);
+        IcsEventReader reader = new IcsEventReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), zone);
+        try {
+            IcsEventReader.IcsEvent event;
+            while ((event = reader.next()) != null) {
+                Activity activity = toActivity(event, user, result);
+                if (activity == null) {
+                    result.setSkipped(result.getSkipped() + 1);
+                    continue;
+                }
+                batch.add(activity);
+                if (batch.size() == batchSize) {
+                    save(user, batch, result);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            save(user, batch, result);
+        } catch (IOException e) {
+            throw new ExternalCalendarSyncException("Could not read the calendar after importing " + result.getImported()
+                    + " events: " + e.getMessage());
+        } catch (ExternalCalendarSyncException e) {
+            throw new ExternalCalendarSyncException(e.getMessage() + " (" + result.getImported() + " events were imported before the error)");
+        }
+
+        System.out.println("📅 Imported " + result.getImported() + " events for " + currentUser.getUsername()
+                + ", skipped " + result.getSkipped());
+        return result;
+    }
+
+    private void save(User user, List<Activity> batch, IcsImportDTO result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            activityRepository.saveAll(batch);
+            userStatsService.activitiesCreated(batch);
+            for (Activity activity : batch) {
+                searchIndex.put(user.getId(), SearchDocument.of(activity));
+                suggestionIndex.add(user.getId(), SuggestionIndex.Kind.ACTIVITY, activity.getName());
+            }
+            // Open-in-view shares one persistence context across the batches, which would otherwise keep every
+            // imported activity managed until the request ends
+            entityManager.flush();
+            entityManager.clear();
+        });
+        occurrenceCache.invalidateUser(user.getId());
+        result.setImported(result.getImported() + batch.size());
+    }
+
+    private Activity toActivity(IcsEventReader.IcsEvent event, User user, IcsImportDTO result) {
+        if (event.cancelled() || event.override()) {
+            return null;
+        }
+
+        LocalDate date = event.start().toLocalDate();
+        LocalTime startTime;
+        LocalTime endTime;
+        if (event.allDay()) {
+            startTime = LocalTime.MIDNIGHT;
+            endTime = END_OF_DAY;
+        } else {
+            startTime = event.start().toLocalTime();
+            endTime = event.end().toLocalDate().isAfter(date) ? END_OF_DAY : event.end().toLocalTime();
+        }
+        if (!startTime.isBefore(endTime)) {
+            return null;
+        }
+
+        Recurrence recurrence = Recurrence.NONE;
+        if (event.rule() != null) {
+            recurrence = recurrence(event.rule(), date);
+            if (recurrence == null) {
+                recurrence = Recurrence.NONE;
+                result.setUnsupportedRecurrences(result.getUnsupportedRecurrences() + 1);
+            }
+        }
+
+        Activity activity = new Activity(truncate(event.summary() != null ? event.summary() : UNTITLED),
+                truncate(event.description()), date, startTime, endTime, truncate(event.location()), null, user);
+        activity.setRecurrence(recurrence);
+        return activity;
+    }
+
+    /**
+     * Maps a repeat rule onto a {@link Recurrence}. Only rules repeating every day, week, month or year without end
+     * can be mapped; BYDAY, BYMONTHDAY and BYMONTH parts are accepted when they name the day or month the event
+     * starts on, as calendar exports add them to simple rules, and only with a FREQ they do not narrow: BYDAY with
+     * WEEKLY, BYMONTHDAY with MONTHLY or YEARLY and BYMONTH with YEARLY.
+     *
+     * @param rule the RRULE value
+     * @param start the date of the first occurrence
+     * @return the matching recurrence, or {@code null} if the rule cannot be expressed
+     */
+    static Recurrence recurrence(String rule, LocalDate start) {
+        Map<String, String> parts = new HashMap<>();
+        for (String part : rule.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals > 0) {
+                parts.put(part.substring(0, equals).trim().toUpperCase(Locale.ROOT), part.substring(equals + 1).trim().toUpperCase(Locale.ROOT));
+            }
+        }
+
+        Recurrence recurrence;
+        try {
+            recurrence = Recurrence.valueOf(parts.getOrDefault("FREQ", ""));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (recurrence == Recurrence.NONE || !parts.getOrDefault("INTERVAL", "1").equals("1")) {
+            return null;
+        }
+
+        for (Map.Entry<String, String> part : parts.entrySet()) {
+            boolean matchesStart = switch (part.getKey()) {
+                case "FREQ", "INTERVAL", "WKST" -> true;
+                // With a shorter FREQ these parts change how often the event repeats, e.g. DAILY;BYDAY=MO is weekly
+                case "BYDAY" -> recurrence == Recurrence.WEEKLY
+                        && part.getValue().equals(dayCode(start.getDayOfWeek()));
+                case "BYMONTHDAY" -> (recurrence == Recurrence.MONTHLY || recurrence == Recurrence.YEARLY)
+                        && part.getValue().equals(String.valueOf(start.getDayOfMonth()));
+                case "BYMONTH" -> recurrence == Recurrence.YEARLY
+                        && part.getValue().equals(String.valueOf(start.getMonthValue()));
+                // Includes COUNT and UNTIL, since recurrences have no end
+                default -> false;
+            };
+            if (!matchesStart) {
+                return null;
+            }
+        }
+        return recurrence;
+    }
+
+    private static String dayCode(DayOfWeek day) {
+        return day.name().substring(0, 2);
+    }
+
+    private static String truncate(String text) {
+        return text != null && text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
+}
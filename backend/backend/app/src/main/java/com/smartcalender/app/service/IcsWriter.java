@@ -0,0 +1,142 @@
+package com.smartcalender.app.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writer of iCalendar (RFC 5545) content lines, the counterpart of {@link IcsEventReader}. Text values are escaped,
+ * lines are folded at 75 octets without splitting a character and ended with CRLF, and every line is written through
+ * to the underlying writer, so a component never has to be held in memory.
+ */
+public class IcsWriter {
+
+    static final int MAX_LINE_OCTETS = 75;
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final Writer writer;
+
+    /**
+     * Creates a writer over a character stream. The stream should be buffered and encode UTF-8.
+     *
+     * @param writer the stream to write to, which is never closed
+     */
+    public IcsWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes a property whose value is already formatted, e.g. {@code BEGIN:VEVENT} or an RRULE.
+     *
+     * @param name the property name, with any parameters
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void property(String name, String value) throws IOException {
+        line(name + ":" + value);
+    }
+
+    /**
+     * Writes a TEXT property, or nothing if the value is blank.
+     *
+     * @param name the property name
+     * @param value the unescaped text, or {@code null}
+     * @throws IOException if writing fails
+     */
+    public void text(String name, String value) throws IOException {
+        if (value != null && !value.isBlank()) {
+            line(name + ":" + escape(value));
+        }
+    }
+
+    /**
+     * Writes a DATE property.
+     *
+     * @param name the property name
+     * @param date the date
+     * @throws IOException if writing fails
+     */
+    public void date(String name, LocalDate date) throws IOException {
+        line(name + ";VALUE=DATE:" + DATE.format(date));
+    }
+
+    /**
+     * Writes a DATE-TIME property in floating time, which calendar clients show in their own zone.
+     *
+     * @param name the property name
+     * @param dateTime the local date and time
+     * @throws IOException if writing fails
+     */
+    public void dateTime(String name, LocalDateTime dateTime) throws IOException {
+        line(name + ":" + DATE_TIME.format(dateTime));
+    }
+
+    /**
+     * Writes a DATE-TIME property in UTC.
+     *
+     * @param name the property name
+     * @param instant the instant, written to the second
+     * @throws IOException if writing fails
+     */
+    public void utc(String name, Instant instant) throws IOException {
+        line(name + ":" + DATE_TIME.format(instant.atOffset(ZoneOffset.UTC)) + "Z");
+    }
+
+    /**
+     * Flushes the underlying writer.
+     *
+     * @throws IOException if flushing fails
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> escaped.append('\\').append(c);
+                case '\n' -> escaped.append("\\n");
+                // A CRLF is written as one line break
+                case '\r' -> {
+                }
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private void line(String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int length = utf8Length(codePoint);
+            if (octets + length > MAX_LINE_OCTETS) {
+                writer.write("\r\n ");
+                // The leading space counts towards the continuation line
+                octets = 1;
+            }
+            writer.write(line, i, Character.charCount(codePoint));
+            octets += length;
+            i += Character.charCount(codePoint);
+        }
+        writer.write("\r\n");
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+}
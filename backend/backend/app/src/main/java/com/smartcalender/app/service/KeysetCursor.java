@@ -0,0 +1,105 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.exception.InvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row returned by a keyset-paginated listing. The next page continues strictly after this
+ * position in {@code (date, startTime, id)} order, so fetching a page is a single index range scan no matter how
+ * deep into the listing the client is. Tasks have no start time and are ordered by {@code (date, id)}, with
+ * undated tasks last.
+ *
+ * Clients receive the position as an opaque continuation token in the {@value #NEXT_CURSOR_HEADER} response header
+ * and pass it back unchanged as the {@code cursor} request parameter. Listings are only paged for clients that ask
+ * for it with a {@code cursor} or {@code size}; other clients get every row, as before pagination was added.
+ *
+ * @param date the date of the last returned row, or {@code null} for an undated task
+ * @param startTime the start time of the last returned activity, or {@code null} for tasks
+ * @param id the ID of the last returned row
+ */
+public record KeysetCursor(LocalDate date, LocalTime startTime, Long id) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 1000;
+    // One less than the largest limit, as pages are fetched with one extra row
+    public static final int UNPAGED = Integer.MAX_VALUE - 1;
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Encodes this position as an opaque, URL-safe continuation token.
+     *
+     * @return the continuation token
+     */
+    public String encode() {
+        String raw = (date != null ? date.toString() : "") + SEPARATOR +
+                (startTime != null ? startTime.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token previously returned by {@link #encode()}.
+     *
+     * @param token the continuation token, may be {@code null} or blank for the first page
+     * @return the decoded position, or {@code null} if no token was given
+     * @throws InvalidInputException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new InvalidInputException("Invalid cursor");
+            }
+            return new KeysetCursor(
+                    parts[0].isEmpty() ? null : LocalDate.parse(parts[0]),
+                    parts[1].isEmpty() ? null : LocalTime.parse(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Resolves the page size of a listing request. Requests without a cursor or size come from clients that do not
+     * follow continuation tokens, so they are answered with every row.
+     *
+     * @param cursor the continuation token sent by the client, may be {@code null}
+     * @param requested the page size requested by the client, may be {@code null}
+     * @return the page size to use, or {@link #UNPAGED} if the client does not page
+     * @throws InvalidInputException if the requested size is not positive
+     */
+    public static int pageSize(String cursor, Integer requested) {
+        if (requested == null && (cursor == null || cursor.isBlank())) {
+            return UNPAGED;
+        }
+        return pageSize(requested);
+    }
+
+    /**
+     * Resolves the requested page size, falling back to {@link #DEFAULT_PAGE_SIZE} and capping it at
+     * {@link #MAX_PAGE_SIZE}.
+     *
+     * @param requested the page size requested by the client, may be {@code null}
+     * @return the page size to use
+     * @throws InvalidInputException if the requested size is not positive
+     */
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (requested < 1) {
+            throw new InvalidInputException("Page size must be positive");
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,13 @@
+package com.smartcalender.app.service;
+
+import java.util.List;
+
+/**
+ * A page of a keyset-paginated listing.
+ *
+ * @param items the rows of the page, in listing order
+ * @param nextCursor the continuation token for the next page, or {@code null} if this is the last page
+ * @param <T> the type of the rows
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,69 @@
+package com.smartcalender.app.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user generation counters that keep a cache load which raced with a change of the user's data from being
+ * stored. A counter only exists while a load of its user is in flight: a change made while no load is running cannot
+ * race with one, as every later load reads the changed data, so it leaves nothing behind and the counters never
+ * outnumber the loads in flight. Not thread-safe; the owning cache calls it while holding its own lock.
+ */
+final class LoadGenerations {
+
+    private final Map<Long, Counter> counters = new HashMap<>();
+
+    /**
+     * Records that a load of a user's data is starting.
+     *
+     * @param userId the ID of the user
+     * @return the load, to be passed to {@link #finish(Load)} once it completes or fails
+     */
+    Load start(Long userId) {
+        Counter counter = counters.computeIfAbsent(userId, id -> new Counter());
+        counter.loads++;
+        return new Load(userId, counter, counter.generation);
+    }
+
+    /**
+     * Records that a load completed or failed.
+     *
+     * @param load the load returned by {@link #start(Long)}
+     * @return true if the user's data did not change while it ran, so its result may be stored
+     */
+    boolean finish(Load load) {
+        if (--load.counter.loads == 0) {
+            counters.remove(load.userId);
+        }
+        return load.counter.generation == load.generation;
+    }
+
+    /**
+     * Records a change of a user's data, so the loads of the user that are in flight are not stored.
+     *
+     * @param userId the ID of the user
+     */
+    void changed(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter != null) {
+            counter.generation++;
+        }
+    }
+
+    /**
+     * Returns the number of users with a load in flight.
+     *
+     * @return the number of counters
+     */
+    int size() {
+        return counters.size();
+    }
+
+    record Load(Long userId, Counter counter, long generation) {
+    }
+
+    static final class Counter {
+        private long generation;
+        private int loads;
+    }
+}
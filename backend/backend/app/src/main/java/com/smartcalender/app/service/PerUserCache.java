@@ -0,0 +1,131 @@
+package com.smartcalender.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of one in-memory structure per user, such as a search index or suggestion trie, that is
+ * built from the database on first use and then changed in place rather than reloaded.
+ *
+ * Changes are applied after the surrounding transaction commits, so a reader never sees uncommitted state, and a
+ * per-user generation counter keeps a structure built from the database while a change committed from being stored.
+ * Counters are only kept while a load is in flight, see {@link LoadGenerations}.
+ * The cached values synchronize their own reads and changes.
+ *
+ * @param <V> the type of the per-user structure
+ */
+final class PerUserCache<V> {
+
+    private final int maxUsers;
+    private final Map<Long, V> values;
+    private final LoadGenerations generations = new LoadGenerations();
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxUsers the number of users whose structure is kept loaded
+     * @param hits counts requests served from a loaded structure
+     * @param misses counts requests that built the structure from the database
+     */
+    PerUserCache(int maxUsers, Counter hits, Counter misses) {
+        this.maxUsers = maxUsers;
+        this.values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                return size() > PerUserCache.this.maxUsers;
+            }
+        };
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Returns the structure of a user, building it with the given loader if it is not loaded.
+     *
+     * @param userId the ID of the user
+     * @param loader builds the structure from the database
+     * @return the structure of the user
+     */
+    V get(Long userId, Supplier<V> loader) {
+        LoadGenerations.Load load;
+        synchronized (this) {
+            V cached = values.get(userId);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            load = generations.start(userId);
+        }
+
+        misses.increment();
+        V loaded = null;
+        try {
+            loaded = loader.get();
+        } finally {
+            synchronized (this) {
+                if (generations.finish(load) && loaded != null) {
+                    values.put(userId, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Applies a change to the structure of a user once the surrounding transaction commits, or right away outside a
+     * transaction. A structure that is not loaded is left to be built with the change from the database.
+     *
+     * @param userId the ID of the user
+     * @param change the change to apply to the loaded structure
+     */
+    void afterCommit(Long userId, Consumer<V> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, change);
+                }
+            });
+        } else {
+            apply(userId, change);
+        }
+    }
+
+    /**
+     * Drops the structure of a user.
+     *
+     * @param userId the ID of the user
+     */
+    synchronized void invalidate(Long userId) {
+        generations.changed(userId);
+        values.remove(userId);
+    }
+
+    /**
+     * Returns the number of users whose structure is loaded.
+     *
+     * @return the number of loaded structures
+     */
+    synchronized int size() {
+        return values.size();
+    }
+
+    private void apply(Long userId, Consumer<V> change) {
+        V value;
+        synchronized (this) {
+            generations.changed(userId);
+            value = values.get(userId);
+        }
+        if (value != null) {
+            change.accept(value);
+        }
+    }
+}
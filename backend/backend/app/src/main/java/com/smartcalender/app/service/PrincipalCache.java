@@ -0,0 +1,123 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size-bounded, time-limited cache of authenticated principals keyed by username.
+ * The JWT filter and the services resolve the current user on every request; with this cache both share
+ * a single lookup, and services receive a reference to the user that is resolved by ID without another
+ * {@code users} query.
+ *
+ * Entries expire after a fixed time to live and are evicted when the password, email address or existence
+ * of a user changes. Evictions are repeated after the surrounding transaction completes, so a concurrent
+ * request cannot cache the state from before the change.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private long generation;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${principal-cache.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrincipalCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached principal for a username, loading it from the database if it is missing or expired.
+     *
+     * @param username the username of the user
+     * @return the principal, or an empty Optional if no user has this username
+     */
+    public Optional<CachedPrincipal> get(String username) {
+        long now = System.currentTimeMillis();
+        long loadedGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt > now) {
+                return Optional.of(entry.principal);
+            }
+            loadedGeneration = generation;
+        }
+
+        Optional<CachedPrincipal> loaded = userRepository.findByUsername(username)
+                .map(user -> new CachedPrincipal(user.getId(), user.getUsername(), user.getPassword()));
+        loaded.ifPresent(principal -> {
+            synchronized (this) {
+                // An eviction since the load started may have made the loaded state stale
+                if (generation == loadedGeneration) {
+                    entries.put(username, new Entry(principal, now + ttlMillis));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Returns a reference to the user with the given username, for use as a query parameter or association.
+     * The reference is resolved by ID, so it costs no query unless fields other than the ID are read.
+     *
+     * @param username the username of the user
+     * @return a reference to the user, or an empty Optional if no user has this username
+     */
+    public Optional<User> findByUsername(String username) {
+        return get(username).map(principal -> userRepository.getReferenceById(principal.id()));
+    }
+
+    /**
+     * Evicts the principal of a user, e.g. after their password or email address changed.
+     *
+     * @param username the username of the user
+     */
+    public void invalidate(String username) {
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(String username) {
+        generation++;
+        entries.remove(username);
+    }
+
+    /**
+     * The authentication-relevant state of a user.
+     *
+     * @param id the ID of the user
+     * @param username the username of the user
+     * @param password the password hash of the user
+     */
+    public record CachedPrincipal(Long id, String username, String password) {
+    }
+
+    private record Entry(CachedPrincipal principal, long expiresAt) {
+    }
+}
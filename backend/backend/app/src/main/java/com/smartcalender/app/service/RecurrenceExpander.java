@@ -0,0 +1,132 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Recurrence;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Expands recurring series into the occurrences that fall within a requested window.
+ * Expansion is lazy: the first occurrence in the window is computed directly from the seed date,
+ * and later occurrences are produced one at a time, so the cost is proportional to the number of
+ * occurrences in the window rather than to the length of the series.
+ *
+ * Monthly and yearly occurrences are always computed from the seed date, so a series starting on
+ * the 31st falls on the last day of shorter months and returns to the 31st afterwards.
+ */
+public final class RecurrenceExpander {
+
+    private RecurrenceExpander() {
+    }
+
+    /**
+     * Returns the dates of a series that fall within {@code [from, to]}.
+     * A {@code null} or {@link Recurrence#NONE} recurrence yields the seed date only, if it is within the window.
+     *
+     * @param seed the date of the first occurrence of the series
+     * @param recurrence how often the series repeats
+     * @param from the first date of the window (inclusive)
+     * @param to the last date of the window (inclusive)
+     * @return a lazy, ordered stream of occurrence dates
+     */
+    public static Stream<LocalDate> dates(LocalDate seed, Recurrence recurrence, LocalDate from, LocalDate to) {
+        return StreamSupport.stream(new OccurrenceSpliterator(seed, recurrence, from, to), false);
+    }
+
+    /**
+     * Returns the occurrences of an activity series that fall within {@code [from, to]}.
+     * Each occurrence is a detached copy of the seed activity moved to the occurrence date,
+     * see {@link Activity#occurrenceOn(LocalDate)}.
+     *
+     * @param seed the stored activity that defines the series
+     * @param from the first date of the window (inclusive)
+     * @param to the last date of the window (inclusive)
+     * @return a lazy, ordered stream of occurrences
+     */
+    public static Stream<Activity> occurrences(Activity seed, LocalDate from, LocalDate to) {
+        return dates(seed.getDate(), seed.getRecurrence(), from, to)
+                .map(date -> date.equals(seed.getDate()) ? seed : seed.occurrenceOn(date));
+    }
+
+    /**
+     * Checks whether a recurrence describes a repeating series.
+     *
+     * @param recurrence the recurrence to check, may be {@code null}
+     * @return true if the series repeats, false otherwise
+     */
+    public static boolean isRecurring(Recurrence recurrence) {
+        return recurrence != null && recurrence != Recurrence.NONE;
+    }
+
+    private static ChronoUnit unitOf(Recurrence recurrence) {
+        return switch (recurrence) {
+            case DAILY -> ChronoUnit.DAYS;
+            case WEEKLY -> ChronoUnit.WEEKS;
+            case MONTHLY -> ChronoUnit.MONTHS;
+            case YEARLY -> ChronoUnit.YEARS;
+            case NONE -> throw new IllegalArgumentException("Recurrence NONE has no period");
+        };
+    }
+
+    private static class OccurrenceSpliterator extends Spliterators.AbstractSpliterator<LocalDate> {
+
+        private final LocalDate seed;
+        private final ChronoUnit unit;
+        private final LocalDate to;
+        private long step;
+        private LocalDate next;
+
+        OccurrenceSpliterator(LocalDate seed, Recurrence recurrence, LocalDate from, LocalDate to) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+                    | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.seed = seed;
+            this.to = to;
+
+            if (!isRecurring(recurrence)) {
+                this.unit = null;
+                this.next = !seed.isBefore(from) && !seed.isAfter(to) ? seed : null;
+                return;
+            }
+
+            this.unit = unitOf(recurrence);
+            if (seed.isBefore(from)) {
+                // Jump close to the window, then settle on the first occurrence on or after its start
+                this.step = Math.max(0, unit.between(seed, from) - 1);
+                while (seed.plus(step, unit).isBefore(from)) {
+                    step++;
+                }
+            }
+            LocalDate first = seed.plus(step, unit);
+            this.next = first.isAfter(to) ? null : first;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LocalDate> action) {
+            if (next == null) {
+                return false;
+            }
+            LocalDate current = next;
+            if (unit == null) {
+                next = null;
+            } else {
+                step++;
+                LocalDate following = seed.plus(step, unit);
+                next = following.isAfter(to) ? null : following;
+            }
+            action.accept(current);
+            return true;
+        }
+
+        @Override
+        public Comparator<? super LocalDate> getComparator() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Task;
+
+/**
+ * The searchable text of an activity or task, as held by the {@link SearchIndex}.
+ *
+ * @param type whether the document is an activity or a task
+ * @param id the ID of the activity or task
+ * @param name its name
+ * @param description its description, may be {@code null}
+ * @param location its location, may be {@code null}
+ */
+public record SearchDocument(Type type, Long id, String name, String description, String location) {
+
+    public enum Type {
+        ACTIVITY,
+        TASK
+    }
+
+    public static SearchDocument of(Activity activity) {
+        return new SearchDocument(Type.ACTIVITY, activity.getId(), activity.getName(), activity.getDescription(), activity.getLocation());
+    }
+
+    public static SearchDocument of(Task task) {
+        return new SearchDocument(Type.TASK, task.getId(), task.getName(), task.getDescription(), task.getLocation());
+    }
+}
@@ -0,0 +1,234 @@
+package com.smartcalender.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over the names, locations and descriptions of each user's activities and tasks.
+ * A user's index is built from the database on their first search and kept up to date by the activity and task
+ * mutators, and the indexes of the least recently searching users are evicted beyond a size bound.
+ *
+ * Text is split into lowercase terms with accents removed. Every query term must match a term of the document,
+ * either exactly or as a prefix, and hits are ranked by the field the terms matched in (name over location over
+ * description), exact over prefix matches, and the rarity of the terms among the user's documents.
+ *
+ * Changes are applied after the surrounding transaction commits through a {@link PerUserCache}, so a search never
+ * sees uncommitted state. As the index is built in the application rather than the database, search works the same
+ * on H2 and PostgreSQL.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final float NAME_WEIGHT = 3f;
+    private static final float LOCATION_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    private final PerUserCache<UserIndex> indexes;
+
+    public SearchIndex(@Value("${search-index.max-users:500}") int maxUsers, MeterRegistry meterRegistry) {
+        this.indexes = new PerUserCache<>(maxUsers,
+                Counter.builder("search.index.requests").tag("result", "hit")
+                        .description("Searches served from a loaded index").register(meterRegistry),
+                Counter.builder("search.index.requests").tag("result", "miss")
+                        .description("Searches that built the user's index from the database").register(meterRegistry));
+        Gauge.builder("search.index.users", this, SearchIndex::size)
+                .description("Users whose search index is loaded").register(meterRegistry);
+    }
+
+    /**
+     * A ranked search result.
+     *
+     * @param document the matching document
+     * @param score its relevance, higher is better
+     */
+    public record Hit(SearchDocument document, double score) {
+    }
+
+    /**
+     * Searches a user's activities and tasks, building the user's index with the given loader if it is not loaded.
+     *
+     * @param userId the ID of the user
+     * @param query the search text
+     * @param loader loads every searchable document of the user from the database
+     * @return every document matching all terms of the query, best first
+     */
+    public List<Hit> search(Long userId, String query, Supplier<List<SearchDocument>> loader) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(terms(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        return indexes.get(userId, () -> {
+            UserIndex loaded = new UserIndex();
+            loader.get().forEach(loaded::put);
+            return loaded;
+        }).search(terms);
+    }
+
+    /**
+     * Adds or replaces a document of a user once the surrounding transaction commits.
+     *
+     * @param userId the ID of the user owning the document
+     * @param document the document as committed
+     */
+    public void put(Long userId, SearchDocument document) {
+        indexes.afterCommit(userId, index -> index.put(document));
+    }
+
+    /**
+     * Removes a document of a user once the surrounding transaction commits.
+     *
+     * @param userId the ID of the user owning the document
+     * @param type the type of the document
+     * @param id the ID of the activity or task
+     */
+    public void remove(Long userId, SearchDocument.Type type, Long id) {
+        indexes.afterCommit(userId, index -> index.remove(new DocumentKey(type, id)));
+    }
+
+    /**
+     * Drops the index of a user, e.g. after the account was deleted.
+     *
+     * @param userId the ID of the user
+     */
+    public void invalidateUser(Long userId) {
+        indexes.invalidate(userId);
+    }
+
+    /**
+     * Returns the number of users whose index is loaded.
+     *
+     * @return the number of loaded indexes
+     */
+    public int size() {
+        return indexes.size();
+    }
+
+    /**
+     * Splits text into lowercase search terms without accents.
+     *
+     * @param text the text to split, may be {@code null}
+     * @return the terms in order of appearance
+     */
+    static List<String> terms(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(fold(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lowercases text and removes its accents, so "Café" and "cafe" compare equal.
+     *
+     * @param text the text to fold
+     * @return the folded text
+     */
+    static String fold(String text) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private record DocumentKey(SearchDocument.Type type, Long id) {
+    }
+
+    /**
+     * The index of one user: the documents by key, and for every term the documents containing it with the summed
+     * weight of the fields it occurs in.
+     */
+    private static final class UserIndex {
+        private final Map<DocumentKey, SearchDocument> documents = new HashMap<>();
+        private final NavigableMap<String, Map<DocumentKey, Float>> postings = new TreeMap<>();
+
+        synchronized void put(SearchDocument document) {
+            DocumentKey key = new DocumentKey(document.type(), document.id());
+            remove(key);
+            documents.put(key, document);
+            for (Map.Entry<String, Float> term : fieldWeights(document).entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(key, term.getValue());
+            }
+        }
+
+        synchronized void remove(DocumentKey key) {
+            SearchDocument document = documents.remove(key);
+            if (document == null) {
+                return;
+            }
+            for (String term : fieldWeights(document).keySet()) {
+                Map<DocumentKey, Float> docs = postings.get(term);
+                docs.remove(key);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        synchronized List<Hit> search(List<String> queryTerms) {
+            Map<DocumentKey, Double> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<DocumentKey, Float> matches = new HashMap<>();
+                for (Map.Entry<String, Map<DocumentKey, Float>> term : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                    float factor = term.getKey().equals(queryTerm) ? 1f : PREFIX_FACTOR;
+                    term.getValue().forEach((key, weight) -> matches.merge(key, weight * factor, Math::max));
+                }
+                double idf = Math.log(1 + (double) documents.size() / Math.max(1, matches.size()));
+
+                Map<DocumentKey, Double> next = new HashMap<>();
+                for (Map.Entry<DocumentKey, Float> match : matches.entrySet()) {
+                    if (scores == null || scores.containsKey(match.getKey())) {
+                        double previous = scores == null ? 0 : scores.get(match.getKey());
+                        next.put(match.getKey(), previous + match.getValue() * idf);
+                    }
+                }
+                scores = next;
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(scores.size());
+            scores.forEach((key, score) -> hits.add(new Hit(documents.get(key), score)));
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(hit -> hit.document().name(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(hit -> hit.document().type())
+                    .thenComparing(hit -> hit.document().id()));
+            return hits;
+        }
+
+        private static Map<String, Float> fieldWeights(SearchDocument document) {
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, document.name(), NAME_WEIGHT);
+            addField(weights, document.location(), LOCATION_WEIGHT);
+            addField(weights, document.description(), DESCRIPTION_WEIGHT);
+            return weights;
+        }
+
+        private static void addField(Map<String, Float> weights, String text, float weight) {
+            for (String term : new LinkedHashSet<>(terms(text))) {
+                weights.merge(term, weight, Float::sum);
+            }
+        }
+    }
+}
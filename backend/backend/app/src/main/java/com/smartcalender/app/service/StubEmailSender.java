@@ -0,0 +1,100 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.exception.EmailDeliveryException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records outbox emails instead of sending them, for tests and local development without a Brevo account.
+ * Enable it with {@code email.transport=stub}. Like Brevo, a batch containing a rejected recipient fails as a whole.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "stub")
+public class StubEmailSender implements EmailSender {
+
+    private final List<List<EmailMessage>> calls = new ArrayList<>();
+    private final Set<String> rejectedRecipients = new HashSet<>();
+    private volatile boolean failing;
+
+    @Override
+    public void send(EmailMessage message) {
+        record(List.of(message));
+    }
+
+    @Override
+    public void sendBatch(List<EmailMessage> messages) {
+        record(List.copyOf(messages));
+    }
+
+    /**
+     * Returns the emails sent so far.
+     *
+     * @return a copy of the sent emails, oldest first
+     */
+    public List<EmailMessage> sent() {
+        synchronized (calls) {
+            return calls.stream().flatMap(List::stream).toList();
+        }
+    }
+
+    /**
+     * Returns the emails sent so far, grouped by the call that sent them.
+     *
+     * @return a copy of the calls, oldest first
+     */
+    public List<List<EmailMessage>> calls() {
+        synchronized (calls) {
+            return List.copyOf(calls);
+        }
+    }
+
+    /**
+     * Forgets every sent email and rejected recipient.
+     */
+    public void clear() {
+        synchronized (calls) {
+            calls.clear();
+            rejectedRecipients.clear();
+        }
+    }
+
+    /**
+     * Makes every following send fail as if the provider was unavailable, or succeed again.
+     *
+     * @param failing true to fail every send
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    /**
+     * Makes every following send to an address fail as if the provider refused it.
+     *
+     * @param recipient the address to reject
+     */
+    public void reject(String recipient) {
+        synchronized (calls) {
+            rejectedRecipients.add(recipient);
+        }
+    }
+
+    private void record(List<EmailMessage> messages) {
+        if (failing) {
+            throw new EmailDeliveryException("Stub email sender is failing", false, null);
+        }
+        synchronized (calls) {
+            for (EmailMessage message : messages) {
+                if (rejectedRecipients.contains(message.to())) {
+                    throw new EmailDeliveryException("Stub email sender rejected " + message.to(), true, null);
+                }
+            }
+            calls.add(messages);
+        }
+        System.out.println("📧 Stub sent " + messages.size() + " email(s), first to " + messages.get(0).to());
+    }
+}
@@ -0,0 +1,273 @@
+package com.smartcalender.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * In-memory prefix trie over the names of each user's activities, tasks and categories, serving typeahead
+ * suggestions. A user's trie is built from the database on their first request and kept up to date by the create,
+ * edit and delete paths, and the tries of the least recently typing users are evicted beyond a size bound.
+ *
+ * Names are folded like the {@link SearchIndex} folds text and are reachable from the start of every word, so
+ * "meet" suggests "Team meeting". Suggestions are ranked by how many items carry the name, and every trie node
+ * caches its top suggestions until a name below it changes, so repeated keystrokes are answered without walking
+ * the subtree. Changes are applied after the surrounding transaction commits through a {@link PerUserCache}, like
+ * the search index.
+ */
+@Component
+public class SuggestionIndex {
+
+    public enum Kind {
+        ACTIVITY,
+        TASK,
+        CATEGORY
+    }
+
+    /**
+     * A name and how many items of a kind carry it.
+     *
+     * @param name the name as last written
+     * @param kind whether the items are activities, tasks or categories
+     * @param count the number of items with the name
+     */
+    public record Suggestion(String name, Kind kind, long count) {
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong((Entry entry) -> entry.count).reversed()
+            .thenComparing(entry -> entry.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(entry -> entry.kind);
+
+    private final int topK;
+    private final PerUserCache<UserTrie> tries;
+
+    public SuggestionIndex(@Value("${suggestion-index.max-users:500}") int maxUsers,
+                           @Value("${suggestion-index.top-k:8}") int topK,
+                           MeterRegistry meterRegistry) {
+        this.topK = topK;
+        this.tries = new PerUserCache<>(maxUsers,
+                Counter.builder("suggestion.index.requests").tag("result", "hit")
+                        .description("Suggestions served from a loaded trie").register(meterRegistry),
+                Counter.builder("suggestion.index.requests").tag("result", "miss")
+                        .description("Suggestions that built the user's trie from the database").register(meterRegistry));
+        Gauge.builder("suggestion.index.users", this, SuggestionIndex::size)
+                .description("Users whose suggestion trie is loaded").register(meterRegistry);
+    }
+
+    /**
+     * Returns the most common names starting with a prefix, building the user's trie with the given loader if it is
+     * not loaded.
+     *
+     * @param userId the ID of the user
+     * @param prefix the text typed so far
+     * @param loader loads every name of the user with the number of items carrying it
+     * @return at most the configured number of suggestions, most common first
+     */
+    public List<Suggestion> suggest(Long userId, String prefix, Supplier<List<Suggestion>> loader) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return tries.get(userId, () -> {
+            UserTrie loaded = new UserTrie();
+            for (Suggestion suggestion : loader.get()) {
+                loaded.add(suggestion.name(), suggestion.kind(), suggestion.count());
+            }
+            return loaded;
+        }).suggest(SearchIndex.fold(prefix.strip()), topK);
+    }
+
+    /**
+     * Counts a name once the surrounding transaction commits.
+     *
+     * @param userId the ID of the user owning the item
+     * @param kind the kind of the item
+     * @param name the name of the created item
+     */
+    public void add(Long userId, Kind kind, String name) {
+        tries.afterCommit(userId, trie -> trie.add(name, kind, 1));
+    }
+
+    /**
+     * Stops counting a name once the surrounding transaction commits.
+     *
+     * @param userId the ID of the user owning the item
+     * @param kind the kind of the item
+     * @param name the name of the deleted item
+     */
+    public void remove(Long userId, Kind kind, String name) {
+        tries.afterCommit(userId, trie -> trie.add(name, kind, -1));
+    }
+
+    /**
+     * Moves an item to its new name once the surrounding transaction commits.
+     *
+     * @param userId the ID of the user owning the item
+     * @param kind the kind of the item
+     * @param previousName the name before the edit
+     * @param name the name after the edit
+     */
+    public void rename(Long userId, Kind kind, String previousName, String name) {
+        if (!previousName.equals(name)) {
+            tries.afterCommit(userId, trie -> {
+                trie.add(previousName, kind, -1);
+                trie.add(name, kind, 1);
+            });
+        }
+    }
+
+    /**
+     * Drops the trie of a user, e.g. after the account was deleted.
+     *
+     * @param userId the ID of the user
+     */
+    public void invalidateUser(Long userId) {
+        tries.invalidate(userId);
+    }
+
+    /**
+     * Returns the number of users whose trie is loaded.
+     *
+     * @return the number of loaded tries
+     */
+    public int size() {
+        return tries.size();
+    }
+
+    private static final class Entry {
+        private final Kind kind;
+        private String name;
+        private long count;
+
+        private Entry(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> entries = new ArrayList<>(1);
+        private List<Entry> top;
+    }
+
+    private record EntryKey(String folded, Kind kind) {
+    }
+
+    /**
+     * The trie of one user. Every name is inserted once per word it contains, under the text from that word on.
+     */
+    private static final class UserTrie {
+        private final Node root = new Node();
+        private final Map<EntryKey, Entry> entries = new HashMap<>();
+
+        synchronized void add(String name, Kind kind, long delta) {
+            if (name == null || name.isBlank()) {
+                return;
+            }
+            String folded = SearchIndex.fold(name.strip());
+            EntryKey key = new EntryKey(folded, kind);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                if (delta <= 0) {
+                    return;
+                }
+                entry = new Entry(kind, name.strip());
+                entries.put(key, entry);
+                for (String suffix : wordSuffixes(folded)) {
+                    path(suffix, true).getLast().entries.add(entry);
+                }
+            } else if (delta > 0) {
+                entry.name = name.strip();
+            }
+            entry.count += delta;
+
+            for (String suffix : wordSuffixes(folded)) {
+                List<Node> path = path(suffix, false);
+                path.forEach(node -> node.top = null);
+                if (entry.count <= 0) {
+                    path.getLast().entries.remove(entry);
+                }
+            }
+            if (entry.count <= 0) {
+                entries.remove(key);
+            }
+        }
+
+        synchronized List<Suggestion> suggest(String prefix, int topK) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            if (node.top == null) {
+                node.top = top(node, topK);
+            }
+            return node.top.stream().map(entry -> new Suggestion(entry.name, entry.kind, entry.count)).toList();
+        }
+
+        private static List<Entry> top(Node node, int topK) {
+            Set<Entry> found = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(node);
+            while (!pending.isEmpty()) {
+                Node next = pending.pop();
+                found.addAll(next.entries);
+                next.children.values().forEach(pending::push);
+            }
+            List<Entry> ranked = new ArrayList<>(found);
+            ranked.sort(RANKING);
+            return List.copyOf(ranked.subList(0, Math.min(topK, ranked.size())));
+        }
+
+        // The nodes from the root to the end of the key; stops early if create is false and the key is missing
+        private List<Node> path(String key, boolean create) {
+            List<Node> path = new ArrayList<>(key.length() + 1);
+            Node node = root;
+            path.add(node);
+            for (int i = 0; i < key.length(); i++) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    if (!create) {
+                        return path;
+                    }
+                    child = new Node();
+                    node.children.put(key.charAt(i), child);
+                }
+                node = child;
+                path.add(node);
+            }
+            return path;
+        }
+
+        private static List<String> wordSuffixes(String folded) {
+            List<String> suffixes = new ArrayList<>();
+            for (int i = 0; i < folded.length(); i++) {
+                boolean wordStart = Character.isLetterOrDigit(folded.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(folded.charAt(i - 1)));
+                if (wordStart) {
+                    suffixes.add(folded.substring(i));
+                }
+            }
+            if (suffixes.isEmpty()) {
+                suffixes.add(folded);
+            }
+            return suffixes;
+        }
+    }
+}
@@ -1,29 +1,39 @@
 package com.smartcalender.app.service;
 
 import com.smartcalender.app.dto.ActivityDTO;
+import com.smartcalender.app.dto.BatchAction;
+import com.smartcalender.app.dto.BatchResultDTO;
 import com.smartcalender.app.dto.ConvertTaskRequest;
 import com.smartcalender.app.dto.CreateTaskRequest;
+import com.smartcalender.app.dto.TaskBatchOperation;
 import com.smartcalender.app.dto.TaskDTO;
 import com.smartcalender.app.entity.Activity;
 import com.smartcalender.app.entity.Category;
+import com.smartcalender.app.entity.Recurrence;
 import com.smartcalender.app.entity.Task;
 import com.smartcalender.app.entity.User;
 import com.smartcalender.app.exception.InvalidDateException;
+import com.smartcalender.app.exception.InvalidInputException;
 import com.smartcalender.app.exception.InvalidTimeRangeException;
 import com.smartcalender.app.exception.NotFoundException;
 import com.smartcalender.app.repository.ActivityRepository;
 import com.smartcalender.app.repository.CategoryRepository;
 import com.smartcalender.app.repository.TaskRepository;
-import com.smartcalender.app.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -35,16 +45,28 @@ import java.util.stream.Collectors;
 @Service
 public class TaskService {
     private final TaskRepository taskRepository;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
     private final ActivityRepository activityRepository;
     private final CategoryRepository categoryRepository;
+    private final ActivityOccurrenceCache occurrenceCache;
+    private final UserStatsService userStatsService;
+    private final SearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final Validator validator;
 
 
-    public TaskService(TaskRepository taskRepository, UserRepository userRepository, ActivityRepository activityRepository, CategoryRepository categoryRepository) {
+    public TaskService(TaskRepository taskRepository, PrincipalCache principalCache, ActivityRepository activityRepository, CategoryRepository categoryRepository,
+                       ActivityOccurrenceCache occurrenceCache, UserStatsService userStatsService,
+                       SearchIndex searchIndex, SuggestionIndex suggestionIndex, Validator validator) {
         this.taskRepository = taskRepository;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
         this.activityRepository = activityRepository;
         this.categoryRepository = categoryRepository;
+        this.occurrenceCache = occurrenceCache;
+        this.userStatsService = userStatsService;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.validator = validator;
     }
 
     /**
@@ -77,6 +99,9 @@ public class TaskService {
         }
 
         Task savedTask = taskRepository.save(task);
+        userStatsService.taskCreated(savedTask);
+        searchIndex.put(user.getId(), SearchDocument.of(savedTask));
+        suggestionIndex.add(user.getId(), SuggestionIndex.Kind.TASK, savedTask.getName());
         return new TaskDTO(savedTask);
     }
 
@@ -95,6 +120,8 @@ public class TaskService {
     public TaskDTO editTask(Long id, TaskDTO newTask, UserDetails currentUser) {
         User user = getUser(currentUser);
         Task taskToEdit = getTask(id, user);
+        boolean wasCompleted = taskToEdit.isCompleted();
+        String previousName = taskToEdit.getName();
 
         taskToEdit.setName(newTask.getName());
         taskToEdit.setDescription(newTask.getDescription());
@@ -112,6 +139,9 @@ public class TaskService {
         }
 
         Task updatedTask = taskRepository.save(taskToEdit);
+        userStatsService.taskEdited(updatedTask, wasCompleted);
+        searchIndex.put(user.getId(), SearchDocument.of(updatedTask));
+        suggestionIndex.rename(user.getId(), SuggestionIndex.Kind.TASK, previousName, updatedTask.getName());
         return new TaskDTO(updatedTask);
     }
 
@@ -126,11 +156,14 @@ public class TaskService {
      */
     @Transactional
     public ResponseEntity<Boolean> deleteTask(Long id, UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername())
+        User user = principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
         Optional<Task> taskOptional = taskRepository.findByIdAndUser(id, user);
         if (taskOptional.isPresent()) {
             taskRepository.delete(taskOptional.get());
+            userStatsService.taskDeleted(taskOptional.get());
+            searchIndex.remove(user.getId(), SearchDocument.Type.TASK, id);
+            suggestionIndex.remove(user.getId(), SuggestionIndex.Kind.TASK, taskOptional.get().getName());
             return ResponseEntity.status(HttpStatus.OK).body(true);
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(false);
@@ -147,12 +180,14 @@ public class TaskService {
      * @throws RuntimeException if the task with the specified ID cannot be found for the user
      * @author Carl Lundholm, David Lexe
      */
+    @Transactional
     public TaskDTO toggleTaskCompletion(Long id, UserDetails currentUser) {
         User user = getUser(currentUser);
         Task taskToEdit = getTask(id, user);
 
         taskToEdit.toggleCompleted();
         taskRepository.save(taskToEdit);
+        userStatsService.taskEdited(taskToEdit, !taskToEdit.isCompleted());
         return new TaskDTO(taskToEdit);
     }
 
@@ -207,22 +242,141 @@ public class TaskService {
         }
         taskRepository.delete(task);
         activityRepository.save(activity);
+        userStatsService.taskDeleted(task);
+        userStatsService.activityCreated(activity);
+        searchIndex.remove(user.getId(), SearchDocument.Type.TASK, task.getId());
+        searchIndex.put(user.getId(), SearchDocument.of(activity));
+        suggestionIndex.remove(user.getId(), SuggestionIndex.Kind.TASK, task.getName());
+        suggestionIndex.add(user.getId(), SuggestionIndex.Kind.ACTIVITY, activity.getName());
+        occurrenceCache.invalidate(user.getId(), activity.getDate(), activity.getRecurrence());
         return new ActivityDTO(activity, null);
     }
 
     /**
-     * Retrieves a list of tasks associated with the given user.
+     * Applies a list of create, update and delete operations for the current user in one transaction.
+     * The referenced tasks and categories are loaded with one query each and the changes are written in JDBC
+     * batches when the transaction flushes. An operation that is invalid or refers to a missing task or category
+     * fails only its own result; the other operations are still applied.
+     * An update replaces every field of the task with the payload, keeping the category if the payload has none.
+     *
+     * @param currentUser the user details of the currently logged-in user
+     * @param operations the operations, applied in order
+     * @return one result per operation, in the same order, with the saved task for creates and updates
+     * @throws InvalidInputException if the operations are missing or exceed {@value BatchOperations#MAX_OPERATIONS}
+     */
+    @Transactional
+    public List<BatchResultDTO<TaskDTO>> applyBatch(UserDetails currentUser, List<TaskBatchOperation> operations) {
+        User user = getUser(currentUser);
+        BatchOperations.checkSize(operations);
+
+        Map<Long, Task> existing = taskRepository.findByUserAndIdIn(user, BatchOperations.ids(operations, TaskBatchOperation::getId))
+                .stream().collect(Collectors.toMap(Task::getId, Function.identity()));
+        Map<Long, Category> categories = categoryRepository.findByUserAndIdIn(user, BatchOperations.ids(operations,
+                        operation -> operation.getTask() != null ? operation.getTask().getCategoryId() : null))
+                .stream().collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        // Tasks have no equals override, so changes are tracked per instance
+        Map<Task, BatchChange> changes = new LinkedHashMap<>();
+        Task[] applied = new Task[operations.size()];
+        List<BatchResultDTO<TaskDTO>> results = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            TaskBatchOperation operation = operations.get(i);
+            BatchAction action = operation != null ? operation.getAction() : null;
+            Long id = operation != null ? operation.getId() : null;
+            try {
+                if (action == null) {
+                    throw new InvalidInputException("Operation must have the action create, update or delete");
+                }
+                Task task;
+                switch (action) {
+                    case CREATE -> {
+                        task = new Task();
+                        task.setUser(user);
+                        applyRequest(task, operation.getTask(), categories);
+                        changes.put(task, BatchChange.CREATED);
+                    }
+                    case UPDATE -> {
+                        task = existingTask(existing, id);
+                        BatchChange change = changes.getOrDefault(task, BatchChange.of(task));
+                        applyRequest(task, operation.getTask(), categories);
+                        changes.putIfAbsent(task, change);
+                        change.updated = true;
+                    }
+                    default -> {
+                        task = existingTask(existing, id);
+                        changes.computeIfAbsent(task, BatchChange::of).deleted = true;
+                        existing.remove(id);
+                    }
+                }
+                applied[i] = task;
+                results.add(BatchOperations.applied(i, action, id));
+            } catch (NotFoundException | InvalidInputException e) {
+                results.add(BatchOperations.failed(i, action, id, e));
+            }
+        }
+
+        List<Task> created = new ArrayList<>();
+        List<Task> deleted = new ArrayList<>();
+        changes.forEach((task, change) -> {
+            if (change == BatchChange.CREATED) {
+                created.add(task);
+            } else if (change.deleted) {
+                deleted.add(task);
+            }
+        });
+        taskRepository.saveAll(created);
+        taskRepository.deleteAll(deleted);
+        taskRepository.flush();
+        changes.forEach((task, change) -> applyBatchChange(user, task, change));
+
+        for (int i = 0; i < applied.length; i++) {
+            Task task = applied[i];
+            if (task != null) {
+                results.get(i).setId(task.getId());
+                if (!changes.get(task).deleted) {
+                    results.get(i).setItem(new TaskDTO(task));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Retrieves a page of the tasks associated with the given user, ordered by date and ID with undated tasks last.
+     * The tasks are read as DTO projections in a read-only transaction, without hydrating entities,
+     * and each page is fetched with a single keyset range scan.
      *
      * @param currentUser the details of the current user for whom tasks are being retrieved
-     * @return a list of TaskDTO objects representing the tasks assigned to the user
+     * @param cursor the continuation token returned with the previous page, or {@code null} for the first page
+     * @param size the requested page size, or {@code null} for the default size, or for every task if no cursor
+     *             is given either
+     * @return the page of TaskDTO objects, with the continuation token for the next page if there are more tasks
+     * @throws InvalidInputException if the cursor or page size is invalid
      * @author David Lexe, Carl Lundholm
      */
-    public List<TaskDTO> getTasksForUser(UserDetails currentUser) {
+    @Transactional(readOnly = true)
+    public KeysetPage<TaskDTO> getTasksForUser(UserDetails currentUser, String cursor, Integer size) {
         User user = getUser(currentUser);
 
-        return taskRepository.findByUser(user).stream()
-                .map(TaskDTO::new)
-                .collect(Collectors.toList());
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(cursor, size);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<TaskDTO> rows;
+        if (after == null) {
+            rows = taskRepository.findDTOPageByUser(user, limit);
+        } else if (after.date() == null) {
+            rows = taskRepository.findUndatedDTOPageByUserAfter(user, after.id(), limit);
+        } else {
+            rows = taskRepository.findDTOPageByUserAfter(user, after.date(), after.id(), limit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        TaskDTO last = rows.get(pageSize - 1);
+        return new KeysetPage<>(rows.subList(0, pageSize), new KeysetCursor(last.getDate(), null, last.getId()).encode());
     }
 
     /**
@@ -259,6 +413,89 @@ public class TaskService {
         return tasks.stream().map(TaskDTO::new).collect(Collectors.toList());
     }
 
+    /**
+     * Copies a batch payload onto a task, after checking it like a single create request.
+     */
+    private void applyRequest(Task task, CreateTaskRequest request, Map<Long, Category> categories) {
+        BatchOperations.validate(validator, request);
+        Category category = null;
+        if (request.getCategoryId() != null) {
+            category = categories.get(request.getCategoryId());
+            if (category == null) {
+                throw new NotFoundException("Category not found");
+            }
+        }
+
+        task.setName(request.getName());
+        task.setDescription(request.getDescription());
+        task.setDate(request.getDate());
+        task.setLocation(request.getLocation());
+        task.setCompleted(request.isCompleted());
+        task.setRecurrence(request.getRecurrence() != null ? request.getRecurrence() : Recurrence.NONE);
+        if (category != null) {
+            task.setCategory(category);
+        }
+    }
+
+    private static Task existingTask(Map<Long, Task> existing, Long id) {
+        if (id == null) {
+            throw new InvalidInputException("Operation must contain the ID of the task");
+        }
+        Task task = existing.get(id);
+        if (task == null) {
+            throw new NotFoundException("Task not found");
+        }
+        return task;
+    }
+
+    /**
+     * Reports the net change a batch made to one task to the statistics and indexes, the same way the single
+     * create, edit and delete paths do.
+     */
+    private void applyBatchChange(User user, Task task, BatchChange change) {
+        Long userId = user.getId();
+        if (change == BatchChange.CREATED) {
+            userStatsService.taskCreated(task);
+            searchIndex.put(userId, SearchDocument.of(task));
+            suggestionIndex.add(userId, SuggestionIndex.Kind.TASK, task.getName());
+            return;
+        }
+
+        if (change.updated) {
+            userStatsService.taskEdited(task, change.wasCompleted);
+            suggestionIndex.rename(userId, SuggestionIndex.Kind.TASK, change.previousName, task.getName());
+        }
+        if (change.deleted) {
+            userStatsService.taskDeleted(task);
+            searchIndex.remove(userId, SearchDocument.Type.TASK, task.getId());
+            suggestionIndex.remove(userId, SuggestionIndex.Kind.TASK, task.getName());
+        } else {
+            searchIndex.put(userId, SearchDocument.of(task));
+        }
+    }
+
+    /**
+     * What a task looked like before a batch first touched it, and what the batch did to it.
+     * Created tasks share the {@link #CREATED} marker.
+     */
+    private static final class BatchChange {
+        private static final BatchChange CREATED = new BatchChange(false, null);
+
+        private final boolean wasCompleted;
+        private final String previousName;
+        private boolean updated;
+        private boolean deleted;
+
+        private BatchChange(boolean wasCompleted, String previousName) {
+            this.wasCompleted = wasCompleted;
+            this.previousName = previousName;
+        }
+
+        private static BatchChange of(Task task) {
+            return new BatchChange(task.isCompleted(), task.getName());
+        }
+    }
+
     /**
      * Retrieves a task associated with the given ID and the current user.
      *
@@ -282,7 +519,7 @@ public class TaskService {
      * @author Carl Lundholm, David Lexe, Isaac Löwenthaal Carter
      */
     private User getUser(UserDetails currentUser) {
-        return userRepository.findByUsername(currentUser.getUsername())
+        return principalCache.findByUsername(currentUser.getUsername())
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 }
@@ -0,0 +1,66 @@
+package com.smartcalender.app.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter. Tokens are added at a fixed rate up to the capacity of the bucket, and every
+ * permit taken removes one, so callers can burst up to the capacity and are held to the rate after that.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final long capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double tokensPerSecond, long capacity) {
+        this(tokensPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double tokensPerSecond, long capacity, LongSupplier nanoClock) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Rate and capacity of a token bucket must be positive");
+        }
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Takes permits from the bucket, waiting until enough tokens have been added.
+     *
+     * @param permits the number of permits, at most the capacity of the bucket
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Takes permits from the bucket right away, going into debt if there are not enough tokens.
+     *
+     * @param permits the number of permits, at most the capacity of the bucket
+     * @return how many nanoseconds the caller has to wait before using the permits
+     */
+    synchronized long reserve(int permits) {
+        if (permits > capacity) {
+            throw new IllegalArgumentException("Cannot take " + permits + " permits from a bucket of " + capacity);
+        }
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+}
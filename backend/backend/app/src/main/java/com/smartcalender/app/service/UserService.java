@@ -1,10 +1,11 @@
 package com.smartcalender.app.service;
 
 import com.smartcalender.app.dto.*;
-import com.smartcalender.app.entity.Activity;
-import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.StatsGranularity;
 import com.smartcalender.app.entity.User;
+import com.smartcalender.app.exception.InvalidInputException;
 import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.CategoryRepository;
 import com.smartcalender.app.repository.TaskRepository;
 import com.smartcalender.app.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,77 +18,80 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService implements UserDetailsService {
 
+    // Search pages are read by people, unlike the bulk listings paged by KeysetCursor
+    static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final TaskRepository taskRepository;
     private final ActivityRepository activityRepository;
+    private final PrincipalCache principalCache;
+    private final UserStatsService userStatsService;
+    private final SearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final CategoryRepository categoryRepository;
 
     @Value("${email-verification.required}")
     private boolean emailVerificationRequired;
 
-    public UserService(UserRepository userRepository, TaskRepository taskRepository, ActivityRepository activityRepository) {
+    public UserService(UserRepository userRepository, TaskRepository taskRepository, ActivityRepository activityRepository,
+                       PrincipalCache principalCache, UserStatsService userStatsService,
+                       SearchIndex searchIndex, SuggestionIndex suggestionIndex, CategoryRepository categoryRepository) {
         this.userRepository = userRepository;
         this.taskRepository = taskRepository;
         this.activityRepository = activityRepository;
+        this.principalCache = principalCache;
+        this.userStatsService = userStatsService;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.categoryRepository = categoryRepository;
     }
 
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        PrincipalCache.CachedPrincipal user = principalCache.get(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(user.getUsername());
-        builder.password(user.getPassword());
+        UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(user.username());
+        builder.password(user.password());
         builder.authorities("USER");
 
         return builder.build();
     }
 
   public TaskStatsDTO getTaskStats(UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
-        List<Task> tasks = taskRepository.findByUser(user);
-
-        int total = tasks.size();
-        int completed = (int) tasks.stream().filter(Task::isCompleted).count();
-        int active = total - completed;
-
-        return new TaskStatsDTO(total, completed, active);
+        User user = principalCache.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
+        return userStatsService.getTaskStats(user.getId());
   }
-  
+
   public ActivityStatsDTO getActivityStats(UserDetails currentUser) {
-        User user = userRepository.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
-        List<Activity> activities = activityRepository.findByUser(user);
-        LocalDate today = LocalDate.now();
-        LocalDate startOfWeek = today.with(DayOfWeek.MONDAY);
-        YearMonth thisMonth = YearMonth.from(today);
-
-        int totalActivitiesToday = (int) activities.stream()
-                .filter(activity -> activity.getDate().isEqual(today))
-                .count();
-
-        int totalActivitiesThisWeek = (int) activities.stream()
-                .filter(activity -> activity.getDate().isAfter(startOfWeek.minusDays(1)))
-                .count();
-
-        int totalActivitiesThisMonth = (int) activities.stream()
-                .filter(activity -> activity.getDate().getMonth() == thisMonth.getMonth())
-                .count();
-
-      long totalMinutesThisWeek = activities.stream()
-              .filter(activity -> activity.getDate().isAfter(startOfWeek.minusDays(1)))
-              .mapToLong(Activity::getDuration)
-              .sum();
-      int averageHoursPerWeek = (int) Math.round(totalMinutesThisWeek / 60.0);
-
-      return new ActivityStatsDTO(totalActivitiesToday, totalActivitiesThisWeek, totalActivitiesThisMonth, averageHoursPerWeek);
+        User user = principalCache.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
+        return userStatsService.getActivityStats(user.getId(), LocalDate.now());
+  }
+
+  public ActivityTimeseriesDTO getActivityTimeseries(UserDetails currentUser, String granularity, LocalDate from, LocalDate to) {
+        User user = principalCache.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
+
+        StatsGranularity bucketSize;
+        try {
+            bucketSize = StatsGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Granularity must be day, week or month");
+        }
+        return userStatsService.getActivityTimeseries(user.getId(), bucketSize, from, to);
   }
 
     public UserDTO getUser(UserDetails currentUser) {
@@ -120,18 +124,103 @@ public class UserService implements UserDetailsService {
         return false;
     }
 
-    public SearchDTO searchForActivitiesOrTasks(UserDetails currentUser, String query) {
-        User user = userRepository.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Searches the names, locations and descriptions of the current user's activities and tasks through the
+     * {@link SearchIndex}. Hits are ranked across both kinds and paginated, and only the page is read from the database.
+     * The activities and tasks of the page are returned in rank order within their kind, and the hits list gives the
+     * type, ID and score of every item in rank order across both.
+     *
+     * @param currentUser the details of the current user
+     * @param query the search text; every term must match a word exactly or as its prefix
+     * @param page the zero-based page number
+     * @param size the requested page size, or {@code null} for {@value #DEFAULT_SEARCH_PAGE_SIZE}; at most
+     *             {@value #MAX_SEARCH_PAGE_SIZE}
+     * @return the activities, tasks and hits of the page, with the total number of hits
+     * @throws InvalidInputException if the page number or size is invalid
+     */
+    public SearchDTO searchForActivitiesOrTasks(UserDetails currentUser, String query, int page, Integer size) {
+        User user = principalCache.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
+        if (page < 0) {
+            throw new InvalidInputException("Page must not be negative");
+        }
+        if (size != null && size < 1) {
+            throw new InvalidInputException("Page size must be positive");
+        }
+        int pageSize = size == null ? DEFAULT_SEARCH_PAGE_SIZE : Math.min(size, MAX_SEARCH_PAGE_SIZE);
 
-        List<Task> tasks = taskRepository.findByUserAndNameContainingIgnoreCase(user, query);
-        List<Activity> activities = activityRepository.findByUserAndNameContainingIgnoreCase(user, query);
+        List<SearchIndex.Hit> hits = searchIndex.search(user.getId(), query, () -> loadSearchDocuments(user));
+        int first = (int) Math.min((long) page * pageSize, hits.size());
+        List<SearchIndex.Hit> pageHits = hits.subList(first, Math.min(first + pageSize, hits.size()));
 
-        if (tasks.isEmpty() && activities.isEmpty()) {
-            return new SearchDTO(query, new ActivityDTO[0], new TaskDTO[0]);
+        List<Long> activityIds = new ArrayList<>();
+        List<Long> taskIds = new ArrayList<>();
+        for (SearchIndex.Hit hit : pageHits) {
+            (hit.document().type() == SearchDocument.Type.ACTIVITY ? activityIds : taskIds).add(hit.document().id());
         }
+        Map<Long, ActivityDTO> activities = activityIds.isEmpty() ? Map.of()
+                : activityRepository.findDTOsByUserAndIdIn(user, activityIds).stream()
+                        .collect(Collectors.toMap(ActivityDTO::getId, Function.identity()));
+        Map<Long, TaskDTO> tasks = taskIds.isEmpty() ? Map.of()
+                : taskRepository.findDTOsByUserAndIdIn(user, taskIds).stream()
+                        .collect(Collectors.toMap(TaskDTO::getId, Function.identity()));
+
+        // Rows deleted since the index was read are left out
+        List<SearchHitDTO> rankedHits = pageHits.stream()
+                .filter(hit -> (hit.document().type() == SearchDocument.Type.ACTIVITY ? activities : tasks)
+                        .containsKey(hit.document().id()))
+                .map(hit -> new SearchHitDTO(hit.document().type().name().toLowerCase(Locale.ROOT),
+                        hit.document().id(), hit.score()))
+                .toList();
 
         return new SearchDTO(
                 query,
-                activities.stream().map(ActivityDTO::new).toArray(ActivityDTO[]::new),
-                tasks.stream().map(TaskDTO::new).toArray(TaskDTO[]::new));}
+                activityIds.stream().map(activities::get).filter(Objects::nonNull).toArray(ActivityDTO[]::new),
+                taskIds.stream().map(tasks::get).filter(Objects::nonNull).toArray(TaskDTO[]::new),
+                rankedHits,
+                hits.size(),
+                page);
+    }
+
+    /**
+     * Suggests the most common activity, task and category names of the current user starting with the typed text,
+     * from the user's {@link SuggestionIndex} trie.
+     *
+     * @param currentUser the details of the current user
+     * @param prefix the text typed so far
+     * @return the suggestions, most common first
+     */
+    public List<SuggestionDTO> suggest(UserDetails currentUser, String prefix) {
+        User user = principalCache.findByUsername(currentUser.getUsername()).orElseThrow(() -> new RuntimeException("User not found"));
+
+        return suggestionIndex.suggest(user.getId(), prefix, () -> loadSuggestions(user)).stream()
+                .map(suggestion -> new SuggestionDTO(suggestion.name(), suggestion.kind().name().toLowerCase(Locale.ROOT)))
+                .toList();
+    }
+
+    private List<SuggestionIndex.Suggestion> loadSuggestions(User user) {
+        List<SuggestionIndex.Suggestion> suggestions = new ArrayList<>();
+        for (ActivityRepository.NameCount name : activityRepository.countByUserGroupedByName(user)) {
+            suggestions.add(new SuggestionIndex.Suggestion(name.getName(), SuggestionIndex.Kind.ACTIVITY, name.getCount()));
+        }
+        for (TaskRepository.NameCount name : taskRepository.countByUserGroupedByName(user)) {
+            suggestions.add(new SuggestionIndex.Suggestion(name.getName(), SuggestionIndex.Kind.TASK, name.getCount()));
+        }
+        for (CategoryDTO category : categoryRepository.findDTOsByUser(user)) {
+            suggestions.add(new SuggestionIndex.Suggestion(category.getName(), SuggestionIndex.Kind.CATEGORY, 1));
+        }
+        return suggestions;
+    }
+
+    private List<SearchDocument> loadSearchDocuments(User user) {
+        List<SearchDocument> documents = new ArrayList<>();
+        for (ActivityRepository.SearchText activity : activityRepository.findSearchTextByUser(user)) {
+            documents.add(new SearchDocument(SearchDocument.Type.ACTIVITY, activity.getId(), activity.getName(),
+                    activity.getDescription(), activity.getLocation()));
+        }
+        for (TaskRepository.SearchText task : taskRepository.findSearchTextByUser(user)) {
+            documents.add(new SearchDocument(SearchDocument.Type.TASK, task.getId(), task.getName(),
+                    task.getDescription(), task.getLocation()));
+        }
+        return documents;
+    }
 }
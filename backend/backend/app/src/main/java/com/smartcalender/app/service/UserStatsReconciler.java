@@ -0,0 +1,190 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.StatsGranularity;
+import com.smartcalender.app.entity.UserActivityStats;
+import com.smartcalender.app.entity.UserStats;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserActivityStatsRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.repository.UserStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recomputes the statistics rollup of every user from their tasks and activities, reports the users whose rollup
+ * had drifted and repairs it. It runs when the application starts, which also fills the rollup for data written
+ * before it existed, and nightly after that.
+ *
+ * Each user is reconciled in their own transaction. The stored rows are locked before the tasks and activities are
+ * counted, so a change committed before the lock is in the count and a change racing with the reconciliation waits
+ * for it and then applies its increment to the repaired rows.
+ */
+@Service
+public class UserStatsReconciler {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final ActivityRepository activityRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final UserActivityStatsRepository activityStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter driftCounter;
+    private final boolean reconcileOnStartup;
+
+    public UserStatsReconciler(UserRepository userRepository, TaskRepository taskRepository, ActivityRepository activityRepository,
+                               UserStatsRepository userStatsRepository, UserActivityStatsRepository activityStatsRepository,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${user-stats.reconcile-on-startup:true}") boolean reconcileOnStartup) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.activityRepository = activityRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.activityStatsRepository = activityStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.driftCounter = meterRegistry.counter("user.stats.drift");
+        this.reconcileOnStartup = reconcileOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (reconcileOnStartup) {
+            reconcileAll();
+        }
+    }
+
+    @Scheduled(cron = "${user-stats.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcileAll();
+    }
+
+    /**
+     * Reconciles the statistics of every user.
+     *
+     * @return the number of users whose statistics had drifted
+     */
+    public synchronized int reconcileAll() {
+        int users = 0;
+        int drifted = 0;
+        Long afterId = 0L;
+        List<Long> page;
+        do {
+            page = userRepository.findIdsAfter(afterId, Limit.of(PAGE_SIZE));
+            for (Long userId : page) {
+                try {
+                    if (reconcile(userId)) {
+                        drifted++;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Could not reconcile the statistics of user " + userId + ", retrying on the next run: " + e.getMessage());
+                }
+                users++;
+                afterId = userId;
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        if (users > 0) {
+            System.out.println("📊 Reconciled the statistics of " + users + " user(s), " + drifted + " had drifted");
+        }
+        return drifted;
+    }
+
+    /**
+     * Recomputes the statistics of a user from their tasks and activities and repairs any drift.
+     *
+     * @param userId the ID of the user
+     * @return true if the stored statistics had drifted
+     */
+    public boolean reconcile(Long userId) {
+        List<String> drift = transactionTemplate.execute(status -> reconcileInTransaction(userId));
+        if (drift.isEmpty()) {
+            return false;
+        }
+        driftCounter.increment();
+        System.err.println("⚠️ Statistics of user " + userId + " had drifted and were repaired: " + String.join(", ", drift));
+        return true;
+    }
+
+    private List<String> reconcileInTransaction(Long userId) {
+        List<String> drift = new ArrayList<>();
+
+        UserStats stats = userStatsRepository.findByUserIdForUpdate(userId).orElse(null);
+        Map<UserActivityStats.Key, UserActivityStats> stored = new HashMap<>();
+        for (UserActivityStats period : activityStatsRepository.findByUserIdForUpdate(userId)) {
+            stored.put(period.getKey(), period);
+        }
+
+        long totalTasks = 0;
+        long completedTasks = 0;
+        for (TaskRepository.CompletionCount row : taskRepository.countByUserGroupedByCompleted(userRepository.getReferenceById(userId))) {
+            totalTasks += row.getCount();
+            if (row.getCompleted()) {
+                completedTasks = row.getCount();
+            }
+        }
+        long storedTotal = stats == null ? 0 : stats.getTotalTasks();
+        long storedCompleted = stats == null ? 0 : stats.getCompletedTasks();
+        if (storedTotal != totalTasks || storedCompleted != completedTasks) {
+            drift.add("tasks " + storedTotal + "/" + storedCompleted + " completed → " + totalTasks + "/" + completedTasks);
+        }
+        if (stats == null) {
+            userStatsRepository.save(new UserStats(userId, totalTasks, completedTasks));
+        } else {
+            stats.setTotalTasks(totalTasks);
+            stats.setCompletedTasks(completedTasks);
+        }
+
+        Map<UserActivityStats.Key, UserActivityStats> expected = new HashMap<>();
+        for (ActivityRepository.DailyActivity day : activityRepository.sumByUserGroupedByDateAndCategory(userId)) {
+            Long categoryId = day.getCategoryId() == null ? UserActivityStats.NO_CATEGORY : day.getCategoryId();
+            for (StatsGranularity granularity : StatsGranularity.values()) {
+                LocalDate periodStart = granularity.periodStart(day.getDate());
+                UserActivityStats period = expected.computeIfAbsent(
+                        new UserActivityStats.Key(userId, granularity, periodStart, categoryId),
+                        key -> new UserActivityStats(userId, granularity, periodStart, categoryId, 0, 0));
+                period.setActivities(period.getActivities() + day.getCount());
+                period.setMinutes(period.getMinutes() + day.getMinutes());
+            }
+        }
+
+        int driftedPeriods = 0;
+        for (UserActivityStats period : expected.values()) {
+            UserActivityStats storedPeriod = stored.remove(period.getKey());
+            if (storedPeriod == null) {
+                driftedPeriods++;
+                activityStatsRepository.save(period);
+            } else if (storedPeriod.getActivities() != period.getActivities() || storedPeriod.getMinutes() != period.getMinutes()) {
+                driftedPeriods++;
+                storedPeriod.setActivities(period.getActivities());
+                storedPeriod.setMinutes(period.getMinutes());
+            }
+        }
+        // Periods whose activities were all deleted or moved are left at zero by the increments
+        for (UserActivityStats period : stored.values()) {
+            if (period.getActivities() != 0 || period.getMinutes() != 0) {
+                driftedPeriods++;
+            }
+        }
+        activityStatsRepository.deleteAll(stored.values());
+        if (driftedPeriods > 0) {
+            drift.add(driftedPeriods + " activity period(s)");
+        }
+        return drift;
+    }
+}
@@ -0,0 +1,335 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.dto.ActivityBucketDTO;
+import com.smartcalender.app.dto.ActivityStatsDTO;
+import com.smartcalender.app.dto.ActivityTimeseriesDTO;
+import com.smartcalender.app.dto.CategoryActivityStatsDTO;
+import com.smartcalender.app.dto.TaskStatsDTO;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.StatsGranularity;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.UserActivityStats;
+import com.smartcalender.app.entity.UserStats;
+import com.smartcalender.app.exception.InvalidDateException;
+import com.smartcalender.app.exception.InvalidInputException;
+import com.smartcalender.app.repository.UserActivityStatsRepository;
+import com.smartcalender.app.repository.UserStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains the per-user statistics rollup behind the dashboard. The task and activity mutators report every change
+ * here in their own transaction, which applies it as an atomic increment of the user's counters, so reading the
+ * statistics is a primary-key lookup however many tasks and activities the user has. Every reported change also bumps
+ * the user's calendar version, which the calendar feed uses as its ETag.
+ */
+@Service
+public class UserStatsService {
+
+    private static final StatsGranularity[] GRANULARITIES = StatsGranularity.values();
+    static final int MAX_BUCKETS = 1000;
+
+    private final UserStatsRepository userStatsRepository;
+    private final UserActivityStatsRepository activityStatsRepository;
+
+    public UserStatsService(UserStatsRepository userStatsRepository, UserActivityStatsRepository activityStatsRepository) {
+        this.userStatsRepository = userStatsRepository;
+        this.activityStatsRepository = activityStatsRepository;
+    }
+
+    /**
+     * Counts a task that was just created.
+     *
+     * @param task the created task
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskCreated(Task task) {
+        userStatsRepository.add(task.getUser().getId(), 1, task.isCompleted() ? 1 : 0, now());
+    }
+
+    /**
+     * Stops counting a task that was just deleted.
+     *
+     * @param task the deleted task
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskDeleted(Task task) {
+        userStatsRepository.add(task.getUser().getId(), -1, task.isCompleted() ? -1 : 0, now());
+    }
+
+    /**
+     * Counts an edit of a task, moving it between the completed and active counters if its completion changed.
+     *
+     * @param task the task after the edit
+     * @param wasCompleted whether the task was completed before the edit
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskEdited(Task task, boolean wasCompleted) {
+        int completed = task.isCompleted() == wasCompleted ? 0 : task.isCompleted() ? 1 : -1;
+        userStatsRepository.add(task.getUser().getId(), 0, completed, now());
+    }
+
+    /**
+     * Counts an activity that was just created in its category and day, week and month.
+     *
+     * @param activity the created activity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void activityCreated(Activity activity) {
+        add(activity.getUser().getId(), ActivityContribution.of(activity), 1);
+        calendarChanged(activity.getUser().getId());
+    }
+
+    /**
+     * Counts activities that were just created together, e.g. by an import, with one increment per period and
+     * category instead of one per activity.
+     *
+     * @param activities the created activities
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void activitiesCreated(Collection<Activity> activities) {
+        Map<Period, long[]> sums = new LinkedHashMap<>();
+        for (Activity activity : activities) {
+            ActivityContribution contribution = ActivityContribution.of(activity);
+            for (StatsGranularity granularity : GRANULARITIES) {
+                Period period = new Period(activity.getUser().getId(), granularity,
+                        granularity.periodStart(contribution.date()), contribution.categoryId());
+                long[] sum = sums.computeIfAbsent(period, key -> new long[2]);
+                sum[0]++;
+                sum[1] += contribution.minutes();
+            }
+        }
+        sums.forEach((period, sum) -> activityStatsRepository.add(period.userId(), period.granularity(), period.start(),
+                period.categoryId(), sum[0], sum[1]));
+        activities.stream().map(activity -> activity.getUser().getId()).distinct().forEach(this::calendarChanged);
+    }
+
+    /**
+     * Stops counting an activity that was just deleted.
+     *
+     * @param activity the deleted activity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void activityDeleted(Activity activity) {
+        add(activity.getUser().getId(), ActivityContribution.of(activity), -1);
+        calendarChanged(activity.getUser().getId());
+    }
+
+    /**
+     * Moves an edited activity to the periods of its new date and category and updates its minutes. Periods the
+     * activity stays in are only touched if its duration changed.
+     *
+     * @param activity the activity after the edit
+     * @param previous what the activity counted before the edit
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void activityEdited(Activity activity, ActivityContribution previous) {
+        Long userId = activity.getUser().getId();
+        ActivityContribution current = ActivityContribution.of(activity);
+        for (StatsGranularity granularity : GRANULARITIES) {
+            LocalDate previousStart = granularity.periodStart(previous.date());
+            LocalDate start = granularity.periodStart(current.date());
+            if (!previousStart.equals(start) || !previous.categoryId().equals(current.categoryId())) {
+                activityStatsRepository.add(userId, granularity, previousStart, previous.categoryId(), -1, -previous.minutes());
+                activityStatsRepository.add(userId, granularity, start, current.categoryId(), 1, current.minutes());
+            } else if (previous.minutes() != current.minutes()) {
+                activityStatsRepository.add(userId, granularity, start, current.categoryId(), 0, current.minutes() - previous.minutes());
+            }
+        }
+        calendarChanged(userId);
+    }
+
+    /**
+     * Bumps the calendar version of a user after a change that the counters do not see, e.g. a renamed category.
+     *
+     * @param userId the ID of the user
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void calendarChanged(Long userId) {
+        userStatsRepository.add(userId, 0, 0, now());
+    }
+
+    private void add(Long userId, ActivityContribution contribution, int sign) {
+        for (StatsGranularity granularity : GRANULARITIES) {
+            activityStatsRepository.add(userId, granularity, granularity.periodStart(contribution.date()),
+                    contribution.categoryId(), sign, sign * contribution.minutes());
+        }
+    }
+
+    /**
+     * Reads the task statistics of a user.
+     *
+     * @param userId the ID of the user
+     * @return the total, completed and active number of tasks
+     */
+    public TaskStatsDTO getTaskStats(Long userId) {
+        return userStatsRepository.findById(userId)
+                .map(stats -> new TaskStatsDTO((int) stats.getTotalTasks(), (int) stats.getCompletedTasks(), (int) stats.getActiveTasks()))
+                .orElseGet(() -> new TaskStatsDTO(0, 0, 0));
+    }
+
+    /**
+     * Reads the calendar version of a user. This is a primary-key lookup of the rollup row and never reads the
+     * activities or tasks.
+     *
+     * @param userId the ID of the user
+     * @return the version and when it last changed, or version 0 if the user never changed their calendar
+     */
+    public CalendarVersion getCalendarVersion(Long userId) {
+        return userStatsRepository.findById(userId)
+                .map(stats -> new CalendarVersion(userId, stats.getCalendarVersion(), stats.getCalendarChangedAt()))
+                .orElseGet(() -> new CalendarVersion(userId, 0, null));
+    }
+
+    /**
+     * Reads the activity statistics of a user for the day, ISO week and month containing a date.
+     *
+     * @param userId the ID of the user
+     * @param today the date to read the statistics for
+     * @return the number of activities today, this week and this month, and this week's hours
+     */
+    public ActivityStatsDTO getActivityStats(Long userId, LocalDate today) {
+        List<UserActivityStats> periods = activityStatsRepository.findPeriods(userId, today,
+                StatsGranularity.WEEK.periodStart(today), StatsGranularity.MONTH.periodStart(today));
+
+        long activitiesToday = 0;
+        long activitiesThisWeek = 0;
+        long activitiesThisMonth = 0;
+        long minutesThisWeek = 0;
+        for (UserActivityStats period : periods) {
+            switch (period.getGranularity()) {
+                case DAY -> activitiesToday += period.getActivities();
+                case WEEK -> {
+                    activitiesThisWeek += period.getActivities();
+                    minutesThisWeek += period.getMinutes();
+                }
+                case MONTH -> activitiesThisMonth += period.getActivities();
+            }
+        }
+
+        int averageHoursPerWeek = (int) Math.round(minutesThisWeek / 60.0);
+        return new ActivityStatsDTO((int) activitiesToday, (int) activitiesThisWeek, (int) activitiesThisMonth, averageHoursPerWeek);
+    }
+
+    /**
+     * Reads the number of activities and their minutes per day, ISO week or month of a date range, in total and per
+     * category. The series is summed from the daily rows of the rollup, so it costs one range scan of at most a row per
+     * day and category however many activities the range holds. Buckets cut by the range only count its days, and
+     * buckets without activities are included with zeros.
+     *
+     * @param userId the ID of the user
+     * @param granularity the size of the buckets
+     * @param from the first day of the range
+     * @param to the last day of the range
+     * @return the buckets in date order
+     * @throws InvalidDateException if the range ends before it starts
+     * @throws InvalidInputException if the range holds more than {@value #MAX_BUCKETS} buckets
+     */
+    public ActivityTimeseriesDTO getActivityTimeseries(Long userId, StatsGranularity granularity, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new InvalidDateException("End date must not be before start date");
+        }
+
+        Map<LocalDate, ActivityBucketDTO> buckets = new LinkedHashMap<>();
+        for (LocalDate start = granularity.periodStart(from); !start.isAfter(to); start = granularity.next(start)) {
+            if (buckets.size() == MAX_BUCKETS) {
+                throw new InvalidInputException("The range holds more than " + MAX_BUCKETS + " buckets, use a larger granularity");
+            }
+            buckets.put(start, new ActivityBucketDTO(start, 0, 0, new ArrayList<>()));
+        }
+
+        for (UserActivityStatsRepository.DailyCategoryStats day : activityStatsRepository.findDailyByCategory(userId, from, to)) {
+            ActivityBucketDTO bucket = buckets.get(granularity.periodStart(day.getDay()));
+            bucket.setActivities(bucket.getActivities() + day.getActivities());
+            bucket.setMinutes(bucket.getMinutes() + day.getMinutes());
+
+            Long categoryId = day.getCategoryId() == UserActivityStats.NO_CATEGORY ? null : day.getCategoryId();
+            CategoryActivityStatsDTO category = bucket.getCategories().stream()
+                    .filter(existing -> Objects.equals(existing.getCategoryId(), categoryId))
+                    .findFirst()
+                    .orElse(null);
+            if (category == null) {
+                category = new CategoryActivityStatsDTO(categoryId, day.getCategoryName(), day.getCategoryColor(), 0, 0);
+                bucket.getCategories().add(category);
+            }
+            category.setActivities(category.getActivities() + day.getActivities());
+            category.setMinutes(category.getMinutes() + day.getMinutes());
+        }
+
+        return new ActivityTimeseriesDTO(granularity.name().toLowerCase(Locale.ROOT), from, to, new ArrayList<>(buckets.values()));
+    }
+
+    /**
+     * Removes the statistics of a deleted user.
+     *
+     * @param userId the ID of the deleted user
+     */
+    public void deleteForUser(Long userId) {
+        userStatsRepository.deleteByUserId(userId);
+        activityStatsRepository.deleteByUserId(userId);
+    }
+
+    // Calendar-visible changes happen within the second, like the DTSTAMP they are written as
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * How often a user's calendar has changed.
+     *
+     * @param userId the ID of the user
+     * @param version the number of changes, which only grows
+     * @param changedAt when the last change was made, or {@code null} if it predates the version
+     */
+    public record CalendarVersion(Long userId, long version, Instant changedAt) {
+
+        /**
+         * Returns a weak ETag for the calendar at this version. The feed is written in a later transaction than the
+         * version is read in, so a change committed in between can make it newer than its tag. User IDs are never
+         * reused, so the tag of a deleted account cannot match a new one.
+         *
+         * @return the weak entity tag
+         */
+        public String eTag() {
+            return "W/\"" + userId + "-" + version + "\"";
+        }
+    }
+
+    // A row of the activity rollup
+    private record Period(Long userId, StatsGranularity granularity, LocalDate start, Long categoryId) {
+    }
+
+    /**
+     * What an activity adds to the rollup: its date, its category and its duration in whole minutes. Seconds are
+     * ignored the same way the rollup is recomputed in SQL.
+     *
+     * @param date the date of the activity
+     * @param categoryId the ID of its category, or {@link UserActivityStats#NO_CATEGORY}
+     * @param minutes the minutes between its start and end time
+     */
+    public record ActivityContribution(LocalDate date, Long categoryId, long minutes) {
+
+        public static ActivityContribution of(Activity activity) {
+            return new ActivityContribution(activity.getDate(),
+                    activity.getCategory() == null ? UserActivityStats.NO_CATEGORY : activity.getCategory().getId(),
+                    minuteOfDay(activity.getEndTime()) - minuteOfDay(activity.getStartTime()));
+        }
+
+        private static int minuteOfDay(LocalTime time) {
+            return time.getHour() * 60 + time.getMinute();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- Moves users, categories, activities and tasks from IDENTITY columns to the pooled sequences their entities
+-- take IDs from (allocation size 50, so Hibernate reserves 50 IDs per sequence call and can batch inserts).
+-- When Hibernate manages the schema, its schema update (ddl-auto=update) creates the sequences at 1 and
+-- IdSequenceMigration advances them past the existing IDs at startup. Run this script instead when it does not; it
+-- creates and advances the sequences itself and can be run more than once.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS categories_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS activities_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS tasks_seq START WITH 1 INCREMENT BY 50;
+
+-- Keep the IDs handed out before the switch from being reused
+SELECT setval('users_seq', ids.max_id) FROM (SELECT MAX(id) AS max_id FROM users) ids
+WHERE ids.max_id > (SELECT last_value FROM users_seq);
+SELECT setval('categories_seq', ids.max_id) FROM (SELECT MAX(id) AS max_id FROM categories) ids
+WHERE ids.max_id > (SELECT last_value FROM categories_seq);
+SELECT setval('activities_seq', ids.max_id) FROM (SELECT MAX(id) AS max_id FROM activities) ids
+WHERE ids.max_id > (SELECT last_value FROM activities_seq);
+SELECT setval('tasks_seq', ids.max_id) FROM (SELECT MAX(id) AS max_id FROM tasks) ids
+WHERE ids.max_id > (SELECT last_value FROM tasks_seq);
+
+-- The identity defaults are no longer used once Hibernate assigns the IDs
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE categories ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE activities ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE tasks ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+COMMIT;
@@ -0,0 +1,83 @@
+package com.smartcalender.app.config;
+
+import com.smartcalender.app.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1);
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        encoder.close();
+    }
+
+    @Test
+    public void testEncodeAndMatchesRunOnHashingThreads() {
+        release.countDown();
+
+        assertEquals("hashed:secret@password-hashing-1", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "hashed:secret"));
+        assertFalse(encoder.matches("other", "hashed:secret"));
+    }
+
+    @Test
+    public void testRejectsWhenThreadsAndQueueAreFull() throws Exception {
+        Future<String> running = callers.submit(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> queued = callers.submit(() -> encoder.encode("second"));
+        while (encoder.queued() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(ServiceBusyException.class, () -> encoder.encode("third"));
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).startsWith("hashed:first"));
+        assertTrue(queued.get(5, TimeUnit.SECONDS).startsWith("hashed:second"));
+    }
+
+    @Test
+    public void testFailuresOfTheDelegateAreRethrown() {
+        release.countDown();
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(""));
+    }
+
+    private class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (rawPassword.isEmpty()) {
+                throw new IllegalArgumentException("empty password");
+            }
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword + "@" + Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    }
+}
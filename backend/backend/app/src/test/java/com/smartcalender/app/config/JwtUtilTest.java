@@ -0,0 +1,98 @@
+package com.smartcalender.app.config;
+
+import com.smartcalender.app.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class JwtUtilTest {
+
+    private static final String SECRET = "dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=";
+
+    private JwtUtil jwtUtil;
+    private TokenRevocations tokenRevocations;
+
+    @BeforeEach
+    public void setUp() {
+        tokenRevocations = new TokenRevocations(mock(UserRepository.class), 60_000L);
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "tokenRevocations", tokenRevocations);
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+    }
+
+    @Test
+    public void testParseTokenReturnsSubjectAndAuthorities() {
+        UserDetails user = User.withUsername("alice").password("hash").authorities("USER").build();
+
+        JwtClaims claims = jwtUtil.parseToken(jwtUtil.generateToken(user)).orElseThrow();
+
+        assertEquals("alice", claims.subject());
+        assertEquals(List.of("USER"), claims.authorities());
+        assertTrue(claims.hasAuthorities());
+        assertTrue(claims.expiresAt().isAfter(new Date().toInstant()));
+    }
+
+    @Test
+    public void testParseTokenRejectsForgedAndExpiredTokens() {
+        UserDetails user = User.withUsername("alice").password("hash").authorities("USER").build();
+        String token = jwtUtil.generateToken(user);
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        String expired = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+
+        assertTrue(jwtUtil.parseToken(forged).isEmpty());
+        assertTrue(jwtUtil.parseToken(expired).isEmpty());
+        assertTrue(jwtUtil.parseToken("not a token").isEmpty());
+    }
+
+    @Test
+    public void testTokensWithoutAuthoritiesAreStillAccepted() {
+        String legacy = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+
+        JwtClaims claims = jwtUtil.parseToken(legacy).orElseThrow();
+
+        assertEquals("alice", claims.subject());
+        assertFalse(claims.hasAuthorities());
+    }
+
+    @Test
+    public void testTokensIssuedBeforeARevocationAreRejected() {
+        String earlier = Jwts.builder()
+                .setSubject("alice")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 10_000))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+        UserDetails bob = User.withUsername("bob").password("hash").authorities("USER").build();
+        String bobs = jwtUtil.generateToken(bob);
+        assertTrue(jwtUtil.parseToken(earlier).isPresent());
+
+        tokenRevocations.revokeTokensOf(new com.smartcalender.app.entity.User("alice", "hash"));
+
+        assertTrue(jwtUtil.parseToken(earlier).isEmpty());
+        assertTrue(jwtUtil.parseToken(bobs).isPresent());
+        UserDetails alice = User.withUsername("alice").password("hash").authorities("USER").build();
+        assertTrue(jwtUtil.parseToken(jwtUtil.generateToken(alice)).isPresent());
+    }
+}
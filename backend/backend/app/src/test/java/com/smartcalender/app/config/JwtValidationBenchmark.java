@@ -0,0 +1,87 @@
+package com.smartcalender.app.config;
+
+import com.smartcalender.app.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the cost of authenticating one request with the original token validation path,
+ * which built a new parser and verified the token three times (username, then username and expiration
+ * again during validation), against the single-parse path of {@link JwtUtil#parseToken(String)}.
+ *
+ * Not part of the regular test run, start it explicitly with:
+ * {@code mvn test -Dtest=JwtValidationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=";
+
+    private Key key;
+    private JwtUtil jwtUtil;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "tokenRevocations", new TokenRevocations(mock(UserRepository.class), 3_600_000L));
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        user = User.withUsername("benchmark").password("hash").authorities("USER").build();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean originalPath() {
+        String username = legacyClaims().getSubject();
+        return legacyClaims().getSubject().equals(username) && !legacyClaims().getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParsePath() {
+        return jwtUtil.parseToken(token).isPresent();
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
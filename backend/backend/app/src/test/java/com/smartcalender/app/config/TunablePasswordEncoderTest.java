@@ -0,0 +1,80 @@
+package com.smartcalender.app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TunablePasswordEncoderTest {
+
+    @Test
+    public void testEncodeRecordsAlgorithmAndStrength() {
+        TunablePasswordEncoder encoder = new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 10);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{bcrypt:10}$2a$10$"));
+        assertEquals(new TunablePasswordEncoder.HashSpec(PasswordHashAlgorithm.BCRYPT, 10),
+                TunablePasswordEncoder.describe(hash).orElseThrow());
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    public void testLegacyBCryptHashesMatchAndAreUpgraded() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        TunablePasswordEncoder encoder = new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 10);
+
+        assertEquals(new TunablePasswordEncoder.HashSpec(PasswordHashAlgorithm.BCRYPT, 4),
+                TunablePasswordEncoder.describe(legacy).orElseThrow());
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    public void testSwitchingAlgorithmUpgradesEveryOldHash() {
+        String bcrypt = new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 12).encode("secret");
+        TunablePasswordEncoder pbkdf2 = new TunablePasswordEncoder(PasswordHashAlgorithm.PBKDF2, 310_000);
+        TunablePasswordEncoder argon2 = new TunablePasswordEncoder(PasswordHashAlgorithm.ARGON2, 2);
+
+        String pbkdf2Hash = pbkdf2.encode("secret");
+        String argon2Hash = argon2.encode("secret");
+
+        assertTrue(pbkdf2Hash.startsWith("{pbkdf2:310000}"));
+        assertTrue(argon2Hash.startsWith("{argon2:2}$argon2id$"));
+        assertTrue(pbkdf2.upgradeEncoding(bcrypt));
+        assertTrue(pbkdf2.matches("secret", bcrypt));
+        assertTrue(argon2.matches("secret", pbkdf2Hash));
+        assertTrue(pbkdf2.matches("secret", argon2Hash));
+        assertFalse(argon2.upgradeEncoding(argon2Hash));
+    }
+
+    @Test
+    public void testStrongerHashesOfTheSameAlgorithmAreKept() {
+        String stronger = new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 11).encode("secret");
+        TunablePasswordEncoder encoder = new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 10);
+
+        assertTrue(encoder.matches("secret", stronger));
+        assertFalse(encoder.upgradeEncoding(stronger));
+    }
+
+    @Test
+    public void testUnknownFormatsNeverMatch() {
+        TunablePasswordEncoder encoder = new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 10);
+
+        assertFalse(encoder.matches("password", "password"));
+        assertFalse(encoder.matches("secret", "{md5:1}abc"));
+        assertFalse(encoder.matches("secret", null));
+        assertFalse(encoder.upgradeEncoding("password"));
+    }
+
+    @Test
+    public void testCalibrationNeverGoesBelowTheMinimumStrength() {
+        assertEquals(10, TunablePasswordEncoder.calibrate(PasswordHashAlgorithm.BCRYPT, Duration.ofNanos(1)));
+        assertTrue(TunablePasswordEncoder.calibrate(PasswordHashAlgorithm.BCRYPT, Duration.ofMillis(400)) >= 10);
+        assertThrows(IllegalArgumentException.class, () -> new TunablePasswordEncoder(PasswordHashAlgorithm.BCRYPT, 4));
+    }
+}
@@ -0,0 +1,79 @@
+package com.smartcalender.app.config;
+
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil;
+    private TokenRevocations tokenRevocations;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        jwtUtil = mock(JwtUtil.class);
+        tokenRevocations = new TokenRevocations(mock(UserRepository.class), 60_000L);
+        cache = new VerifiedTokenCache(jwtUtil, tokenRevocations, 2);
+        when(jwtUtil.parseToken("alice-token")).thenReturn(Optional.of(claims("alice", Instant.now().plusSeconds(60))));
+        when(jwtUtil.parseToken("bob-token")).thenReturn(Optional.of(claims("bob", Instant.now().plusSeconds(60))));
+        when(jwtUtil.parseToken("forged")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void testRepeatedTokensAreVerifiedOnce() {
+        assertEquals("alice", cache.verify("alice-token").orElseThrow().subject());
+        assertEquals("alice", cache.verify("alice-token").orElseThrow().subject());
+
+        verify(jwtUtil, times(1)).parseToken("alice-token");
+    }
+
+    @Test
+    public void testRejectedAndExpiredTokensAreNotServed() {
+        when(jwtUtil.parseToken("expiring")).thenReturn(Optional.of(claims("alice", Instant.now().minusSeconds(1))));
+
+        assertTrue(cache.verify("forged").isEmpty());
+        assertTrue(cache.verify("forged").isEmpty());
+        cache.verify("expiring");
+        cache.verify("expiring");
+
+        verify(jwtUtil, times(2)).parseToken("forged");
+        verify(jwtUtil, times(2)).parseToken("expiring");
+    }
+
+    @Test
+    public void testRevokedTokensAreNotServedFromTheCache() {
+        cache.verify("alice-token");
+        cache.verify("bob-token");
+
+        tokenRevocations.revokeTokensOf(new User("alice", "hash"));
+
+        assertTrue(cache.verify("alice-token").isEmpty());
+        assertTrue(cache.verify("bob-token").isPresent());
+        verify(jwtUtil, times(1)).parseToken("alice-token");
+        verify(jwtUtil, times(1)).parseToken("bob-token");
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        when(jwtUtil.parseToken("carol-token")).thenReturn(Optional.of(claims("carol", Instant.now().plusSeconds(60))));
+
+        cache.verify("alice-token");
+        cache.verify("bob-token");
+        cache.verify("carol-token");
+
+        assertEquals(2, cache.size());
+    }
+
+    private JwtClaims claims(String subject, Instant expiresAt) {
+        return new JwtClaims(subject, Instant.now().minusSeconds(10), expiresAt, List.of("USER"));
+    }
+}
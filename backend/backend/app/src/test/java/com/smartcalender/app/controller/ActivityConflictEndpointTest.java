@@ -0,0 +1,138 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Recurrence;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.service.ActivityOccurrenceCache;
+import com.smartcalender.app.service.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "planner")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:activityconflicts",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email-outbox.poll-interval-ms=3600000",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class ActivityConflictEndpointTest {
+
+    // A Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 5, 5);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityOccurrenceCache occurrenceCache;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    private User user;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("planner", "password"));
+        other = userRepository.save(new User("other", "password"));
+
+        Activity standup = new Activity("Standup", null, MONDAY, LocalTime.of(9, 0), LocalTime.of(9, 30), null, null, user);
+        standup.setRecurrence(Recurrence.WEEKLY);
+        activityRepository.save(standup);
+        activityRepository.save(new Activity("Dentist", null, MONDAY.plusWeeks(1),
+                LocalTime.of(9, 15), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("Review", null, MONDAY.plusWeeks(2),
+                LocalTime.of(9, 30), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("Workshop", null, MONDAY.plusWeeks(3),
+                LocalTime.of(8, 0), LocalTime.of(11, 0), null, null, user));
+        activityRepository.save(new Activity("Someone else's meeting", null, MONDAY,
+                LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, other));
+    }
+
+    @AfterEach
+    void tearDown() {
+        activityRepository.deleteAll();
+        userRepository.deleteAll();
+        occurrenceCache.invalidateUser(user.getId());
+        occurrenceCache.invalidateUser(other.getId());
+        principalCache.invalidate("planner");
+    }
+
+    @Test
+    void occurrencesOfRecurringActivitiesConflictWithOneOffActivities() throws Exception {
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-01").param("end", "2025-05-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.body.length()").value(2))
+                .andExpect(jsonPath("$.body[0].date").value("2025-05-12"))
+                .andExpect(jsonPath("$.body[0].first.name").value("Standup"))
+                .andExpect(jsonPath("$.body[0].first.date").value("2025-05-12"))
+                .andExpect(jsonPath("$.body[0].second.name").value("Dentist"))
+                .andExpect(jsonPath("$.body[0].overlapStart").value("09:15:00"))
+                .andExpect(jsonPath("$.body[0].overlapEnd").value("09:30:00"))
+                .andExpect(jsonPath("$.body[1].date").value("2025-05-26"))
+                .andExpect(jsonPath("$.body[1].first.name").value("Workshop"))
+                .andExpect(jsonPath("$.body[1].second.name").value("Standup"))
+                .andExpect(jsonPath("$.body[1].overlapStart").value("09:00:00"))
+                .andExpect(jsonPath("$.body[1].overlapEnd").value("09:30:00"));
+    }
+
+    @Test
+    void rangeBoundsAreInclusive() throws Exception {
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-12").param("end", "2025-05-12"))
+                .andExpect(jsonPath("$.body.length()").value(1))
+                .andExpect(jsonPath("$.body[0].second.name").value("Dentist"));
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-13").param("end", "2025-05-25"))
+                .andExpect(jsonPath("$.body.length()").value(0));
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-26").param("end", "2025-06-30"))
+                .andExpect(jsonPath("$.body.length()").value(1))
+                .andExpect(jsonPath("$.body[0].first.name").value("Workshop"));
+
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-26").param("end", "2025-05-25"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void backToBackActivitiesDoNotConflict() throws Exception {
+        // The standup ends at 09:30 when the review starts
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-19").param("end", "2025-05-19"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.body.length()").value(0));
+    }
+
+    @Test
+    void otherUsersActivitiesAreExcluded() throws Exception {
+        // Another user's meeting overlaps the first standup
+        mockMvc.perform(get("/api/activities/conflicts").param("start", "2025-05-05").param("end", "2025-05-05"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.body.length()").value(0));
+    }
+}
@@ -0,0 +1,173 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.config.JwtUtil;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the latency of a calendar endpoint on its own and during a login storm, where many clients keep
+ * posting valid credentials to {@code /api/auth/login}. Password hashing runs on its bounded pool, so the storm
+ * can only occupy the hashing threads and the excess logins are turned away with 503 and a Retry-After header
+ * instead of stalling every request thread. Every storm client logs in as its own user and the principal cache
+ * holds a single entry, so every login looks its user up in the database, and the waiting logins must not hold
+ * database connections the calendar requests need.
+ *
+ * Not part of the regular test run, start it explicitly with:
+ * {@code mvn test -Dtest=AuthStormLatencyBenchmark}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:authstorm",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.springframework.security=WARN",
+        "email-verification.required=false",
+        "password-hashing.threads=1",
+        "password-hashing.queue-capacity=4",
+        "principal-cache.max-entries=1",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class AuthStormLatencyBenchmark {
+
+    private static final int STORM_CLIENTS = 64;
+    private static final int SAMPLES = 300;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void calendarLatencySurvivesLoginStorm() throws Exception {
+        User user = new User("storm", passwordEncoder.encode("password"));
+        user.setEmailVerified(true);
+        userRepository.save(user);
+        for (int i = 0; i < 50; i++) {
+            activityRepository.save(new Activity("Activity " + i, null, LocalDate.of(2024, 1, 1).plusDays(i),
+                    LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+        }
+        String token = jwtUtil.generateToken(org.springframework.security.core.userdetails.User
+                .withUsername("storm").password("").authorities("USER").build());
+        HttpRequest calendar = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/activities/all"))
+                .header("Authorization", "Bearer " + token)
+                .build();
+
+        // Warm up the JIT, caches and connection pool
+        sample(calendar, SAMPLES);
+        long[] baseline = sample(calendar, SAMPLES);
+
+        List<HttpRequest> logins = new ArrayList<>();
+        for (int i = 0; i < STORM_CLIENTS; i++) {
+            User stormer = new User("stormer" + i, passwordEncoder.encode("password"));
+            stormer.setEmailVerified(true);
+            userRepository.save(stormer);
+            logins.add(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"stormer" + i + "\",\"password\":\"password\"}"))
+                    .build());
+        }
+        AtomicBoolean storming = new AtomicBoolean(true);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService storm = Executors.newFixedThreadPool(STORM_CLIENTS);
+        for (HttpRequest login : logins) {
+            storm.submit(() -> {
+                while (storming.get()) {
+                    HttpResponse<Void> response = client.send(login, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 503) {
+                        rejected.incrementAndGet();
+                        // Rejected clients back off as told by the Retry-After header
+                        long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                        Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+                    } else {
+                        accepted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long[] underStorm;
+        try {
+            Thread.sleep(1_000);
+            underStorm = sample(calendar, SAMPLES);
+        } finally {
+            storming.set(false);
+            storm.shutdown();
+            storm.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        System.out.printf("%n%-12s %10s %10s %10s%n", "phase", "p50 (ms)", "p95 (ms)", "p99 (ms)");
+        print("baseline", baseline);
+        print("storm", underStorm);
+        System.out.printf("logins accepted: %d, rejected with 503: %d%n%n", accepted.get(), rejected.get());
+
+        assertTrue(accepted.get() > 0);
+        assertTrue(rejected.get() > 0);
+        assertTrue(percentile(underStorm, 95) < 10 * Math.max(percentile(baseline, 95), 5_000_000L),
+                "calendar p95 under the login storm degraded by more than an order of magnitude");
+    }
+
+    private long[] sample(HttpRequest request, int count) throws Exception {
+        List<Long> nanos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            nanos.add(System.nanoTime() - start);
+            assertEquals(200, response.statusCode());
+        }
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static void print(String phase, long[] sorted) {
+        System.out.printf("%-12s %10.2f %10.2f %10.2f%n", phase,
+                percentile(sorted, 50) / 1e6, percentile(sorted, 95) / 1e6, percentile(sorted, 99) / 1e6);
+    }
+}
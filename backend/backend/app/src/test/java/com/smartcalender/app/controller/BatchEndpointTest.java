@@ -0,0 +1,234 @@
+package com.smartcalender.app.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcalender.app.dto.ActivityBatchOperation;
+import com.smartcalender.app.dto.BatchAction;
+import com.smartcalender.app.dto.CreateActivityRequest;
+import com.smartcalender.app.dto.CreateTaskRequest;
+import com.smartcalender.app.dto.TaskBatchOperation;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserActivityStatsRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.repository.UserStatsRepository;
+import com.smartcalender.app.service.PrincipalCache;
+import com.smartcalender.app.service.SearchIndex;
+import com.smartcalender.app.service.SuggestionIndex;
+import com.smartcalender.app.service.UserStatsReconciler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "batcher")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email-outbox.poll-interval-ms=3600000",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class BatchEndpointTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 5, 12);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private UserActivityStatsRepository activityStatsRepository;
+
+    @Autowired
+    private UserStatsReconciler reconciler;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    private User user;
+    private Activity standup;
+    private Activity lunch;
+    private Task milk;
+    private Task old;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("batcher", "password"));
+        standup = activityRepository.save(new Activity("Standup", null, DATE,
+                LocalTime.of(9, 0), LocalTime.of(9, 15), null, null, user));
+        lunch = activityRepository.save(new Activity("Lunch", null, DATE,
+                LocalTime.of(12, 0), LocalTime.of(13, 0), null, null, user));
+        milk = taskRepository.save(new Task("Buy milk", null, DATE, null, null, user));
+        old = taskRepository.save(new Task("Old chore", null, null, null, null, user));
+        reconciler.reconcile(user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        userStatsRepository.deleteAll();
+        activityStatsRepository.deleteAll();
+        userRepository.deleteAll();
+        searchIndex.invalidateUser(user.getId());
+        suggestionIndex.invalidateUser(user.getId());
+        principalCache.invalidate("batcher");
+    }
+
+    @Test
+    void activityBatchReportsEveryOperationAndWarnsAfterTheWholeBatch() throws Exception {
+        // Warm the indexes so the batch has to keep them up to date
+        mockMvc.perform(get("/api/user/search").param("query", "lunch")).andExpect(jsonPath("$.totalResults").value(1));
+        mockMvc.perform(get("/api/user/search/suggest").param("q", "stand")).andExpect(jsonPath("$.length()").value(1));
+
+        List<ActivityBatchOperation> operations = List.of(
+                new ActivityBatchOperation(BatchAction.CREATE, null, activity("Review", 12, 30, 13, 30)),
+                new ActivityBatchOperation(BatchAction.CREATE, null, activity("Demo", 13, 0, 14, 0)),
+                new ActivityBatchOperation(BatchAction.UPDATE, standup.getId(), activity("Standup moved", 13, 15, 13, 45)),
+                new ActivityBatchOperation(BatchAction.DELETE, lunch.getId(), null),
+                new ActivityBatchOperation(BatchAction.DELETE, 999_999L, null),
+                new ActivityBatchOperation(BatchAction.CREATE, null, activity("Backwards", 15, 0, 14, 0)),
+                new ActivityBatchOperation(null, null, activity("No action", 8, 0, 9, 0)));
+
+        mockMvc.perform(post("/api/activities/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].item.name").value("Review"))
+                // Lunch is deleted by a later operation, the other two saved activities overlap Review
+                .andExpect(jsonPath("$[0].item.warnings.length()").value(2))
+                .andExpect(jsonPath("$[1].item.warnings.length()").value(2))
+                .andExpect(jsonPath("$[2].status").value(200))
+                .andExpect(jsonPath("$[2].id").value(standup.getId()))
+                .andExpect(jsonPath("$[2].item.startTime").value("13:15:00"))
+                .andExpect(jsonPath("$[2].item.warnings.length()").value(2))
+                .andExpect(jsonPath("$[3].status").value(200))
+                .andExpect(jsonPath("$[3].item").doesNotExist())
+                .andExpect(jsonPath("$[4].status").value(404))
+                .andExpect(jsonPath("$[5].status").value(400))
+                .andExpect(jsonPath("$[5].error").value("validTimeRange: Start time must be before end time"))
+                .andExpect(jsonPath("$[6].status").value(400));
+
+        assertEquals(3, activityRepository.count());
+        assertFalse(reconciler.reconcile(user.getId()));
+        mockMvc.perform(get("/api/user/search").param("query", "lunch")).andExpect(jsonPath("$.totalResults").value(0));
+        mockMvc.perform(get("/api/user/search").param("query", "demo")).andExpect(jsonPath("$.totalResults").value(1));
+        mockMvc.perform(get("/api/user/search/suggest").param("q", "stand"))
+                .andExpect(jsonPath("$[0].name").value("Standup moved"));
+    }
+
+    @Test
+    void taskBatchAppliesValidOperationsAndKeepsStatsInStep() throws Exception {
+        CreateTaskRequest report = task("Write report");
+        report.setCompleted(true);
+        CreateTaskRequest oatMilk = task("Buy oat milk");
+        oatMilk.setCompleted(true);
+        CreateTaskRequest categorized = task("Filed away");
+        categorized.setCategoryId(999_999L);
+
+        List<TaskBatchOperation> operations = List.of(
+                new TaskBatchOperation(BatchAction.CREATE, null, report),
+                new TaskBatchOperation(BatchAction.UPDATE, milk.getId(), oatMilk),
+                new TaskBatchOperation(BatchAction.DELETE, old.getId(), null),
+                new TaskBatchOperation(BatchAction.UPDATE, null, task("No ID")),
+                new TaskBatchOperation(BatchAction.CREATE, null, categorized),
+                new TaskBatchOperation(BatchAction.UPDATE, old.getId(), task("Deleted above")));
+
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].item.completed").value(true))
+                .andExpect(jsonPath("$[1].item.name").value("Buy oat milk"))
+                .andExpect(jsonPath("$[2].status").value(200))
+                .andExpect(jsonPath("$[3].status").value(400))
+                .andExpect(jsonPath("$[4].status").value(404))
+                .andExpect(jsonPath("$[5].status").value(404));
+
+        assertEquals(2, taskRepository.count());
+        assertTrue(taskRepository.findById(milk.getId()).orElseThrow().isCompleted());
+        assertFalse(reconciler.reconcile(user.getId()));
+        mockMvc.perform(get("/api/user/me/stats/tasks"))
+                .andExpect(jsonPath("$.totalTasks").value(2))
+                .andExpect(jsonPath("$.completedTasks").value(2));
+    }
+
+    @Test
+    void oversizedBatchIsRejected() throws Exception {
+        List<TaskBatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i <= 500; i++) {
+            operations.add(new TaskBatchOperation(BatchAction.CREATE, null, task("Task " + i)));
+        }
+
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isBadRequest());
+        assertEquals(2, taskRepository.count());
+    }
+
+    private static CreateActivityRequest activity(String name, int startHour, int startMinute, int endHour, int endMinute) {
+        CreateActivityRequest request = new CreateActivityRequest();
+        request.setName(name);
+        request.setDate(DATE);
+        request.setStartTime(LocalTime.of(startHour, startMinute));
+        request.setEndTime(LocalTime.of(endHour, endMinute));
+        return request;
+    }
+
+    private static CreateTaskRequest task(String name) {
+        CreateTaskRequest request = new CreateTaskRequest();
+        request.setName(name);
+        return request;
+    }
+}
@@ -0,0 +1,212 @@
+package com.smartcalender.app.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Category;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.CategoryRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.repository.UserStatsRepository;
+import com.smartcalender.app.service.IcsEventReader;
+import com.smartcalender.app.service.PrincipalCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the streaming export endpoints write every row of the user as a JSON array, in listing order, and that
+ * the calendar feed is answered from the calendar version while the calendar is unchanged.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "exporter")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class ExportEndpointTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category work;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("exporter", "password"));
+        work = new Category("Work", "#112233");
+        work.setUser(user);
+        categoryRepository.save(work);
+
+        activityRepository.save(new Activity("Review", null, DAY.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("Standup", null, DAY, LocalTime.of(9, 30), LocalTime.of(10, 0), null, work, user));
+        activityRepository.save(new Activity("Planning", null, DAY, LocalTime.of(9, 0), LocalTime.of(11, 0), null, work, user));
+
+        taskRepository.save(new Task("Someday", null, null, null, null, user));
+        taskRepository.save(new Task("Report", null, DAY, null, work, user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userStatsRepository.deleteAll();
+        userRepository.deleteAll();
+        principalCache.invalidate("exporter");
+    }
+
+    @Test
+    void exportActivitiesStreamsEveryActivityWithWarnings() throws Exception {
+        JsonNode activities = export("/api/activities/export");
+
+        assertEquals(3, activities.size());
+        assertEquals("Planning", activities.get(0).get("name").asText());
+        assertEquals("Work", activities.get(0).get("categoryName").asText());
+        assertTrue(activities.get(0).get("warnings").get(0).asText().contains("'Standup'"));
+        assertEquals("Standup", activities.get(1).get("name").asText());
+        assertEquals("Review", activities.get(2).get("name").asText());
+        assertEquals(0, activities.get(2).get("warnings").size());
+    }
+
+    @Test
+    void exportTasksStreamsEveryTask() throws Exception {
+        JsonNode tasks = export("/api/tasks/export");
+
+        assertEquals(2, tasks.size());
+        assertEquals("Report", tasks.get(0).get("name").asText());
+        assertEquals("Work", tasks.get(0).get("categoryName").asText());
+        assertEquals("#112233", tasks.get(0).get("categoryColor").asText());
+        assertEquals("Someday", tasks.get(1).get("name").asText());
+    }
+
+    @Test
+    void calendarFeedStreamsActivitiesAndTasks() throws Exception {
+        MvcResult result = feed(null);
+        String calendar = result.getResponse().getContentAsString();
+
+        assertTrue(result.getResponse().getContentType().startsWith("text/calendar"));
+        assertTrue(calendar.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(calendar.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(calendar.contains("BEGIN:VTODO\r\nUID:task-"));
+        assertTrue(calendar.contains("DUE;VALUE=DATE:20240506\r\nSUMMARY:Report\r\nSTATUS:NEEDS-ACTION\r\nEND:VTODO"));
+        assertTrue(calendar.contains("SUMMARY:Someday\r\nSTATUS:NEEDS-ACTION\r\nEND:VTODO"));
+
+        IcsEventReader reader = new IcsEventReader(new StringReader(calendar), ZoneId.systemDefault());
+        List<IcsEventReader.IcsEvent> events = new ArrayList<>();
+        for (IcsEventReader.IcsEvent event = reader.next(); event != null; event = reader.next()) {
+            events.add(event);
+        }
+        assertEquals(List.of("Planning", "Standup", "Review"), events.stream().map(IcsEventReader.IcsEvent::summary).toList());
+        assertEquals(LocalDateTime.of(2024, 5, 6, 9, 30), events.get(1).start());
+        assertEquals(LocalDateTime.of(2024, 5, 6, 10, 0), events.get(1).end());
+        assertTrue(calendar.contains("SUMMARY:Standup\r\nCATEGORIES:Work\r\n"));
+    }
+
+    @Test
+    void calendarFeedIsNotModifiedUntilTheCalendarChanges() throws Exception {
+        String eTag = feed(null).getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(eTag.startsWith("W/\""));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/user/me/calendar.ics").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        // Only the version is read
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+
+        mockMvc.perform(put("/api/categories/edit/" + work.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Deep work\"}"))
+                .andExpect(status().isOk());
+
+        MvcResult changed = feed(eTag);
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getResponse().getContentAsString().contains("CATEGORIES:Deep work\r\n"));
+    }
+
+    private MvcResult feed(String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder feed = get("/api/user/me/calendar.ics");
+        if (ifNoneMatch != null) {
+            feed.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MvcResult started = mockMvc.perform(feed).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+    }
+
+    private JsonNode export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url)).andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
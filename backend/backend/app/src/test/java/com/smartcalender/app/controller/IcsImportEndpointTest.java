@@ -0,0 +1,211 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.dto.IcsImportDTO;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Recurrence;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.UserActivityStatsRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.repository.UserStatsRepository;
+import com.smartcalender.app.service.IcsImportService;
+import com.smartcalender.app.service.PrincipalCache;
+import com.smartcalender.app.service.SearchIndex;
+import com.smartcalender.app.service.SuggestionIndex;
+import com.smartcalender.app.service.UserStatsReconciler;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "importer")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:icsimport",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email-outbox.poll-interval-ms=3600000",
+        "ics-import.batch-size=2",
+        "ics-import.zone=Europe/Stockholm",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class IcsImportEndpointTest {
+
+    private static final String CALENDAR = """
+            BEGIN:VCALENDAR
+            PRODID:-//Google Inc//Google Calendar 70.9054//EN
+            BEGIN:VEVENT
+            DTSTART:20250512T070000Z
+            DTEND:20250512T080000Z
+            RRULE:FREQ=WEEKLY;BYDAY=MO
+            SUMMARY:Weekly sync
+            END:VEVENT
+            BEGIN:VEVENT
+            DTSTART;VALUE=DATE:20250601
+            DTEND;VALUE=DATE:20250602
+            SUMMARY:National holiday
+            END:VEVENT
+            BEGIN:VEVENT
+            DTSTART;TZID=Europe/Stockholm:20250513T120000
+            DTEND;TZID=Europe/Stockholm:20250513T130000
+            RRULE:FREQ=DAILY;UNTIL=20250520T000000Z
+            SUMMARY:Lunch walk
+            END:VEVENT
+            BEGIN:VEVENT
+            DTSTART;TZID=Europe/Stockholm:20250514T100000
+            DTEND;TZID=Europe/Stockholm:20250514T110000
+            STATUS:CANCELLED
+            SUMMARY:Cancelled review
+            END:VEVENT
+            BEGIN:VEVENT
+            DTSTART;TZID=Europe/Stockholm:20250515T220000
+            DTEND;TZID=Europe/Stockholm:20250516T020000
+            SUMMARY:Night shift
+            END:VEVENT
+            END:VCALENDAR
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private UserActivityStatsRepository activityStatsRepository;
+
+    @Autowired
+    private UserStatsReconciler reconciler;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private IcsImportService importService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("importer", "password"));
+        reconciler.reconcile(user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        activityRepository.deleteAll();
+        userStatsRepository.deleteAll();
+        activityStatsRepository.deleteAll();
+        userRepository.deleteAll();
+        searchIndex.invalidateUser(user.getId());
+        suggestionIndex.invalidateUser(user.getId());
+        principalCache.invalidate("importer");
+    }
+
+    @Test
+    void importSavesEventsAsActivities() throws Exception {
+        // Warm the search index so the import has to keep it up to date
+        mockMvc.perform(get("/api/user/search").param("query", "holiday")).andExpect(jsonPath("$.totalResults").value(0));
+
+        mockMvc.perform(post("/api/activities/import/ics").contentType("text/calendar").content(CALENDAR))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(4))
+                .andExpect(jsonPath("$.skipped").value(1))
+                .andExpect(jsonPath("$.unsupportedRecurrences").value(1));
+
+        List<Activity> activities = activityRepository.findByUser(user).stream()
+                .sorted(Comparator.comparing(Activity::getDate))
+                .toList();
+        assertEquals(List.of("Weekly sync", "Lunch walk", "Night shift", "National holiday"),
+                activities.stream().map(Activity::getName).toList());
+
+        Activity sync = activities.get(0);
+        assertEquals(LocalDate.of(2025, 5, 12), sync.getDate());
+        assertEquals(LocalTime.of(9, 0), sync.getStartTime());
+        assertEquals(Recurrence.WEEKLY, sync.getRecurrence());
+        assertEquals(Recurrence.NONE, activities.get(1).getRecurrence());
+        assertEquals(LocalTime.of(23, 59), activities.get(2).getEndTime());
+        assertEquals(LocalTime.MIDNIGHT, activities.get(3).getStartTime());
+
+        assertFalse(reconciler.reconcile(user.getId()));
+        mockMvc.perform(get("/api/user/search").param("query", "holiday")).andExpect(jsonPath("$.totalResults").value(1));
+        mockMvc.perform(get("/api/activities/between").param("start", "2025-05-19").param("end", "2025-05-19"))
+                .andExpect(jsonPath("$.body[0].name").value("Weekly sync"))
+                .andExpect(jsonPath("$.body[0].date").value("2025-05-19"));
+    }
+
+    @Test
+    void batchesAreClearedFromTheRequestsPersistenceContext() {
+        // Bind one EntityManager for the whole import, as open-in-view does for a request
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            IcsImportDTO result = importService.importActivities(
+                    org.springframework.security.core.userdetails.User.withUsername("importer").password("").build(),
+                    new ByteArrayInputStream(CALENDAR.getBytes(StandardCharsets.UTF_8)));
+
+            assertEquals(4, result.getImported());
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+        assertEquals(4, activityRepository.count());
+    }
+
+    @Test
+    void invalidDataKeepsTheBatchesSavedBeforeIt() throws Exception {
+        String broken = CALENDAR.replace("DTSTART;TZID=Europe/Stockholm:20250515T220000", "DTSTART:tomorrow");
+
+        mockMvc.perform(post("/api/activities/import/ics").contentType("text/calendar").content(broken))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message", endsWith("(2 events were imported before the error)")));
+
+        assertEquals(2, activityRepository.count());
+        assertFalse(reconciler.reconcile(user.getId()));
+    }
+}
@@ -0,0 +1,184 @@
+package com.smartcalender.app.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.service.KeysetCursor;
+import com.smartcalender.app.service.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walks the paginated list endpoints page by page and checks that every row is returned exactly once,
+ * in order, and that overlap warnings are not lost at page boundaries.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "pages")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:keysetpagination",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class KeysetPaginationTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(10);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("pages", "password"));
+
+        // Saved out of order, so the listing order cannot come from insertion order
+        activityRepository.save(new Activity("E", null, DAY.plusDays(2), LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("C", null, DAY, LocalTime.of(12, 0), LocalTime.of(13, 0), null, null, user));
+        activityRepository.save(new Activity("B", null, DAY, LocalTime.of(9, 30), LocalTime.of(11, 0), null, null, user));
+        activityRepository.save(new Activity("A", null, DAY, LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("D", null, DAY.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("Past", null, LocalDate.now().minusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+
+        taskRepository.save(new Task("Undated 1", null, null, null, null, user));
+        taskRepository.save(new Task("T3", null, DAY.plusDays(1), null, null, user));
+        taskRepository.save(new Task("T1", null, DAY, null, null, user));
+        taskRepository.save(new Task("Undated 2", null, null, null, null, user));
+        taskRepository.save(new Task("T2", null, DAY, null, null, user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        userRepository.deleteAll();
+        principalCache.invalidate("pages");
+    }
+
+    @Test
+    void allActivitiesArePagedInDateAndStartTimeOrder() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (JsonNode activity : walk("/api/activities/all", 2, true)) {
+            names.add(activity.get("name").asText());
+        }
+        assertEquals(List.of("Past", "A", "B", "C", "D", "E"), names);
+    }
+
+    @Test
+    void futureActivitiesArePagedFromTomorrow() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (JsonNode activity : walk("/api/activities/future", 2, true)) {
+            names.add(activity.get("name").asText());
+        }
+        assertEquals(List.of("A", "B", "C", "D", "E"), names);
+    }
+
+    @Test
+    void overlapWarningsSpanPageBoundaries() throws Exception {
+        List<JsonNode> activities = walk("/api/activities/future", 1, true);
+
+        assertEquals("A", activities.get(0).get("name").asText());
+        assertTrue(activities.get(0).get("warnings").get(0).asText().contains("'B'"));
+        assertEquals("B", activities.get(1).get("name").asText());
+        assertTrue(activities.get(1).get("warnings").get(0).asText().contains("'A'"));
+        assertEquals(0, activities.get(2).get("warnings").size());
+    }
+
+    @Test
+    void tasksArePagedByDateWithUndatedTasksLast() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (JsonNode task : walk("/api/tasks/all", 2, false)) {
+            names.add(task.get("name").asText());
+        }
+        assertEquals(List.of("T1", "T2", "T3", "Undated 1", "Undated 2"), names);
+    }
+
+    @Test
+    void listingsAreNotPagedForClientsThatDoNotAskForIt() throws Exception {
+        User user = userRepository.findByUsername("pages").orElseThrow();
+        List<Task> more = new ArrayList<>();
+        for (int i = 0; i < KeysetCursor.DEFAULT_PAGE_SIZE; i++) {
+            more.add(new Task("Bulk " + i, null, DAY, null, null, user));
+        }
+        taskRepository.saveAll(more);
+
+        MvcResult tasks = mockMvc.perform(get("/api/tasks/all")).andExpect(status().isOk()).andReturn();
+        assertEquals(KeysetCursor.DEFAULT_PAGE_SIZE + 5, objectMapper.readTree(tasks.getResponse().getContentAsString()).size());
+        assertNull(tasks.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER));
+
+        MvcResult activities = mockMvc.perform(get("/api/activities/all")).andExpect(status().isOk()).andReturn();
+        assertEquals(6, objectMapper.readTree(activities.getResponse().getContentAsString()).get("body").size());
+        assertNull(activities.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void invalidCursorIsRejected() throws Exception {
+        mockMvc.perform(get("/api/tasks/all").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Follows the continuation tokens of a paginated endpoint until the last page and returns all rows.
+     */
+    private List<JsonNode> walk(String url, int size, boolean wrapped) throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get(url).param("size", String.valueOf(size));
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString());
+            JsonNode page = wrapped ? body.get("body") : body;
+
+            assertTrue(page.size() <= size);
+            page.forEach(rows::add);
+            cursor = result.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return rows;
+    }
+}
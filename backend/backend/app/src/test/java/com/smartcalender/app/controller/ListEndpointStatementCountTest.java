@@ -0,0 +1,151 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Category;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.CategoryRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.service.PrincipalCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asserts how many SQL statements the list endpoints issue. Each user owns several categories, so any
+ * association that is not fetched together with the rows shows up as extra statements.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "statements")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statementcount",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "email-outbox.poll-interval-ms=3600000",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class ListEndpointStatementCountTest {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 3, 10);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    private Statistics statistics;
+    private Category work;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("statements", "password"));
+        work = null;
+        for (int i = 0; i < 3; i++) {
+            Category category = new Category("Category " + i, "#00000" + i);
+            category.setUser(user);
+            categoryRepository.save(category);
+            if (work == null) {
+                work = category;
+            }
+
+            for (int j = 0; j < 2; j++) {
+                activityRepository.save(new Activity("Activity " + i + j, null, DAY.plusDays(j),
+                        LocalTime.of(9 + i, 0), LocalTime.of(10 + i, 30), null, category, user));
+                taskRepository.save(new Task("Task " + i + j, null, DAY.plusDays(j), null, category, user));
+            }
+        }
+
+        // Authentication resolves the principal before the controller runs, which warms the cache
+        principalCache.get("statements");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+        principalCache.invalidate("statements");
+    }
+
+    @Test
+    void allActivitiesLoadInOneStatement() throws Exception {
+        assertStatements("/api/activities/all", 1);
+    }
+
+    @Test
+    void futureActivitiesLoadInOneStatement() throws Exception {
+        assertStatements("/api/activities/future", 1);
+    }
+
+    @Test
+    void activitiesBetweenLoadSeedsAndRecurringSeries() throws Exception {
+        assertStatements("/api/activities/between?start=" + DAY + "&end=" + DAY.plusDays(6), 2);
+    }
+
+    @Test
+    void activitiesByCategoryLoadCategoryAndCoveredDates() throws Exception {
+        assertStatements("/api/activities/category/" + work.getId(), 2);
+    }
+
+    @Test
+    void allTasksLoadInOneStatement() throws Exception {
+        assertStatements("/api/tasks/all", 1);
+    }
+
+    @Test
+    void allCategoriesLoadInOneStatement() throws Exception {
+        assertStatements("/api/categories/all", 1);
+    }
+
+    /**
+     * Calls an endpoint and asserts the number of prepared statements. The user is served from the principal cache.
+     */
+    private void assertStatements(String url, long expected) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertEquals(expected, statistics.getPrepareStatementCount(), "Statements issued by " + url);
+    }
+}
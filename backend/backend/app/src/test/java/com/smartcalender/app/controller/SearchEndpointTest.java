@@ -0,0 +1,187 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.dto.CreateTaskRequest;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.service.ActivityService;
+import com.smartcalender.app.service.PrincipalCache;
+import com.smartcalender.app.service.SearchIndex;
+import com.smartcalender.app.service.SuggestionIndex;
+import com.smartcalender.app.service.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "searcher")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email-outbox.poll-interval-ms=3600000",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class SearchEndpointTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 5, 12);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    private final UserDetails currentUser = new org.springframework.security.core.userdetails.User("searcher", "password", List.of());
+
+    private User user;
+    private Activity planning;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("searcher", "password"));
+        planning = activityRepository.save(new Activity("Sprint planning", "Plan the next sprint", DATE,
+                LocalTime.of(9, 0), LocalTime.of(10, 0), "Room 2", null, user));
+        activityRepository.save(new Activity("Lunch", "Plans for the summer party", DATE,
+                LocalTime.of(12, 0), LocalTime.of(13, 0), null, null, user));
+        taskRepository.save(new Task("Planning poker cards", null, DATE, null, null, user));
+        taskRepository.save(new Task("Buy milk", null, DATE, null, null, user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        userRepository.deleteAll();
+        searchIndex.invalidateUser(user.getId());
+        suggestionIndex.invalidateUser(user.getId());
+        principalCache.invalidate("searcher");
+    }
+
+    @Test
+    void searchRanksAndPaginatesAcrossActivitiesAndTasks() throws Exception {
+        mockMvc.perform(get("/api/user/search").param("query", "plan").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalResults").value(3))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.task[0].name").value("Planning poker cards"))
+                .andExpect(jsonPath("$.activity[0].name").value("Sprint planning"))
+                .andExpect(jsonPath("$.activity.length()").value(1))
+                .andExpect(jsonPath("$.hits.length()").value(2))
+                .andExpect(jsonPath("$.hits[0].type").value("task"))
+                .andExpect(jsonPath("$.hits[1].type").value("activity"))
+                .andExpect(jsonPath("$.hits[1].id").value(planning.getId()));
+
+        // The description match ranks last
+        mockMvc.perform(get("/api/user/search").param("query", "plan").param("size", "2").param("page", "1"))
+                .andExpect(jsonPath("$.activity[0].name").value("Lunch"))
+                .andExpect(jsonPath("$.task.length()").value(0))
+                .andExpect(jsonPath("$.hits[0].type").value("activity"));
+
+        mockMvc.perform(get("/api/user/search").param("query", "room plan"))
+                .andExpect(jsonPath("$.totalResults").value(1))
+                .andExpect(jsonPath("$.activity[0].location").value("Room 2"));
+    }
+
+    @Test
+    void searchPagesHoldTwentyHitsByDefault() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            taskRepository.save(new Task("Errand " + i, null, DATE, null, null, user));
+        }
+
+        mockMvc.perform(get("/api/user/search").param("query", "errand"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalResults").value(25))
+                .andExpect(jsonPath("$.task.length()").value(20))
+                .andExpect(jsonPath("$.hits.length()").value(20));
+
+        mockMvc.perform(get("/api/user/search").param("query", "errand").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchSeesCommittedChanges() throws Exception {
+        mockMvc.perform(get("/api/user/search").param("query", "milk"))
+                .andExpect(jsonPath("$.totalResults").value(1));
+
+        CreateTaskRequest request = new CreateTaskRequest();
+        request.setName("Milk the cows");
+        taskService.createTask(request, currentUser);
+        activityService.deleteActivity(currentUser, planning.getId());
+
+        mockMvc.perform(get("/api/user/search").param("query", "milk"))
+                .andExpect(jsonPath("$.totalResults").value(2));
+        mockMvc.perform(get("/api/user/search").param("query", "sprint"))
+                .andExpect(jsonPath("$.totalResults").value(0));
+    }
+
+    @Test
+    void suggestCompletesNamesAndSeesCommittedChanges() throws Exception {
+        mockMvc.perform(get("/api/user/search/suggest").param("q", "pla"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Planning poker cards"))
+                .andExpect(jsonPath("$[0].type").value("task"))
+                .andExpect(jsonPath("$[1].name").value("Sprint planning"))
+                .andExpect(jsonPath("$[1].type").value("activity"));
+
+        CreateTaskRequest request = new CreateTaskRequest();
+        request.setName("Sprint planning");
+        taskService.createTask(request, currentUser);
+        taskService.createTask(request, currentUser);
+
+        mockMvc.perform(get("/api/user/search/suggest").param("q", "sprint"))
+                .andExpect(jsonPath("$[0].name").value("Sprint planning"))
+                .andExpect(jsonPath("$[0].type").value("task"))
+                .andExpect(jsonPath("$[1].type").value("activity"));
+    }
+
+    @Test
+    void negativePageIsRejected() throws Exception {
+        mockMvc.perform(get("/api/user/search").param("query", "plan").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+}
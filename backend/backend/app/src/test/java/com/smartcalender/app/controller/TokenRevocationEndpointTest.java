@@ -0,0 +1,104 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.config.JwtUtil;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.service.PrincipalCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that access tokens issued before a password change are refused afterwards, even though they were
+ * already verified and cached.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tokenrevocation",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email-outbox.poll-interval-ms=3600000",
+        "JWT_SECRET=" + TokenRevocationEndpointTest.SECRET,
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class TokenRevocationEndpointTest {
+
+    static final String SECRET = "dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(new User("revoker", passwordEncoder.encode("OldPassword1")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        principalCache.invalidate("revoker");
+    }
+
+    @Test
+    void tokenIssuedBeforeAPasswordChangeIsRefusedAfterIt() throws Exception {
+        // Tokens carry their issue time to the second, so the token is issued well before the change
+        String token = Jwts.builder()
+                .claim("authorities", List.of("USER"))
+                .setSubject("revoker")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 60_000))
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+        mockMvc.perform(get("/api/user/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("revoker"));
+
+        mockMvc.perform(put("/api/auth/change-password")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"oldPassword\": \"OldPassword1\", \"newPassword\": \"NewPassword2\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/user/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is4xxClientError());
+
+        String fresh = jwtUtil.generateToken(org.springframework.security.core.userdetails.User
+                .withUsername("revoker").password("").authorities("USER").build());
+        mockMvc.perform(get("/api/user/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + fresh))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,310 @@
+package com.smartcalender.app.controller;
+
+import com.smartcalender.app.dto.ActivityDTO;
+import com.smartcalender.app.dto.ConvertTaskRequest;
+import com.smartcalender.app.dto.CreateActivityRequest;
+import com.smartcalender.app.dto.CreateTaskRequest;
+import com.smartcalender.app.dto.TaskDTO;
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Category;
+import com.smartcalender.app.entity.StatsGranularity;
+import com.smartcalender.app.entity.Task;
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.entity.UserActivityStats;
+import com.smartcalender.app.repository.ActivityRepository;
+import com.smartcalender.app.repository.CategoryRepository;
+import com.smartcalender.app.repository.TaskRepository;
+import com.smartcalender.app.repository.UserActivityStatsRepository;
+import com.smartcalender.app.repository.UserRepository;
+import com.smartcalender.app.repository.UserStatsRepository;
+import com.smartcalender.app.service.ActivityService;
+import com.smartcalender.app.service.PrincipalCache;
+import com.smartcalender.app.service.TaskService;
+import com.smartcalender.app.service.UserStatsReconciler;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the dashboard stats endpoints, that each is answered by a single primary-key read of the rollup,
+ * and that the task and activity mutators keep the rollup in step with the rows the reconciler counts.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "stats")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:userstats",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "email-outbox.poll-interval-ms=3600000",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+class UserStatsEndpointTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate LAST_WEEK = TODAY.with(DayOfWeek.MONDAY).minusDays(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private UserActivityStatsRepository activityStatsRepository;
+
+    @Autowired
+    private UserStatsReconciler reconciler;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    private final UserDetails currentUser = new org.springframework.security.core.userdetails.User("stats", "password", List.of());
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("stats", "password"));
+
+        activityRepository.save(new Activity("Standup", null, TODAY, LocalTime.of(9, 0), LocalTime.of(10, 0), null, null, user));
+        activityRepository.save(new Activity("Workshop", null, TODAY, LocalTime.of(13, 0), LocalTime.of(14, 30), null, null, user));
+        activityRepository.save(new Activity("Retro", null, LAST_WEEK, LocalTime.of(8, 0), LocalTime.of(9, 0), null, null, user));
+
+        Task done = new Task("Done", null, TODAY, null, null, user);
+        done.setCompleted(true);
+        taskRepository.save(done);
+        taskRepository.save(new Task("Open", null, TODAY, null, null, user));
+        taskRepository.save(new Task("Someday", null, null, null, null, user));
+        // The rows above bypass the services, like data written before the rollup existed
+        reconciler.reconcileAll();
+
+        principalCache.get("stats");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+        userStatsRepository.deleteAll();
+        activityStatsRepository.deleteAll();
+        principalCache.invalidate("stats");
+    }
+
+    @Test
+    void taskStatsCountCompletedAndActiveTasks() throws Exception {
+        mockMvc.perform(get("/api/user/me/stats/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalTasks").value(3))
+                .andExpect(jsonPath("$.completedTasks").value(1))
+                .andExpect(jsonPath("$.activeTasks").value(2));
+
+        assertReadInOneStatement();
+    }
+
+    @Test
+    void activityStatsCountTodayWeekAndMonth() throws Exception {
+        int thisMonth = LAST_WEEK.getMonth() == TODAY.getMonth() ? 3 : 2;
+
+        mockMvc.perform(get("/api/user/me/stats/activities"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalActivitiesToday").value(2))
+                .andExpect(jsonPath("$.totalActivitiesThisWeek").value(2))
+                .andExpect(jsonPath("$.totalActivitiesThisMonth").value(thisMonth))
+                // 150 minutes this week
+                .andExpect(jsonPath("$.averageHoursPerWeek").value(3));
+
+        assertReadInOneStatement();
+    }
+
+    @Test
+    void statsOfAUserWithoutRowsAreZero() throws Exception {
+        taskRepository.deleteAll();
+        activityRepository.deleteAll();
+        userStatsRepository.deleteAll();
+        activityStatsRepository.deleteAll();
+
+        mockMvc.perform(get("/api/user/me/stats/tasks"))
+                .andExpect(jsonPath("$.totalTasks").value(0));
+        mockMvc.perform(get("/api/user/me/stats/activities"))
+                .andExpect(jsonPath("$.totalActivitiesToday").value(0))
+                .andExpect(jsonPath("$.averageHoursPerWeek").value(0));
+    }
+
+    @Test
+    void mutatorsKeepTheRollupInStep() throws Exception {
+        CreateTaskRequest taskRequest = new CreateTaskRequest();
+        taskRequest.setName("Write report");
+        TaskDTO task = taskService.createTask(taskRequest, currentUser);
+        TaskDTO other = taskService.createTask(taskRequest, currentUser);
+        taskService.toggleTaskCompletion(task.getId(), currentUser);
+        taskService.toggleTaskCompletion(task.getId(), currentUser);
+        taskService.toggleTaskCompletion(task.getId(), currentUser);
+        taskService.deleteTask(task.getId(), currentUser);
+
+        ConvertTaskRequest convertRequest = new ConvertTaskRequest();
+        convertRequest.setDate(TODAY);
+        convertRequest.setStartTime(LocalTime.of(15, 0));
+        convertRequest.setEndTime(LocalTime.of(15, 30));
+        taskService.convertTaskToActivity(other.getId(), convertRequest, currentUser);
+
+        CreateActivityRequest activityRequest = new CreateActivityRequest();
+        activityRequest.setName("Lunch");
+        activityRequest.setDate(TODAY);
+        activityRequest.setStartTime(LocalTime.of(11, 0));
+        activityRequest.setEndTime(LocalTime.of(12, 0));
+        ActivityDTO lunch = activityService.createActivity(activityRequest, currentUser).getBody();
+        ActivityDTO moved = activityService.createActivity(activityRequest, currentUser).getBody();
+        lunch.setEndTime(LocalTime.of(12, 15));
+        activityService.editActivity(currentUser, lunch.getId(), lunch);
+        moved.setDate(LAST_WEEK);
+        activityService.editActivity(currentUser, moved.getId(), moved);
+        activityService.deleteActivity(currentUser, moved.getId());
+
+        mockMvc.perform(get("/api/user/me/stats/tasks"))
+                .andExpect(jsonPath("$.totalTasks").value(3))
+                .andExpect(jsonPath("$.completedTasks").value(1));
+        mockMvc.perform(get("/api/user/me/stats/activities"))
+                .andExpect(jsonPath("$.totalActivitiesToday").value(4))
+                .andExpect(jsonPath("$.totalActivitiesThisWeek").value(4))
+                // 150 + 30 + 75 minutes
+                .andExpect(jsonPath("$.averageHoursPerWeek").value(4));
+
+        assertEquals(0, reconciler.reconcileAll());
+    }
+
+    @Test
+    void reconcilerRepairsDrift() throws Exception {
+        Long userId = userRepository.findByUsername("stats").orElseThrow().getId();
+        userStatsRepository.deleteAll();
+        activityStatsRepository.deleteById(new UserActivityStats.Key(userId, StatsGranularity.DAY, TODAY,
+                UserActivityStats.NO_CATEGORY));
+
+        assertEquals(1, reconciler.reconcileAll());
+        assertEquals(0, reconciler.reconcileAll());
+
+        mockMvc.perform(get("/api/user/me/stats/tasks"))
+                .andExpect(jsonPath("$.totalTasks").value(3));
+        mockMvc.perform(get("/api/user/me/stats/activities"))
+                .andExpect(jsonPath("$.totalActivitiesToday").value(2));
+    }
+
+    @Test
+    void timeseriesBucketsActivitiesByPeriodAndCategory() throws Exception {
+        User user = userRepository.findByUsername("stats").orElseThrow();
+        Category work = new Category("Work", "#ff0000");
+        work.setUser(user);
+        work = categoryRepository.save(work);
+        activityService.createActivity(activityRequest(TODAY, LocalTime.of(16, 0), LocalTime.of(16, 45), work.getId()), currentUser);
+        statistics.clear();
+
+        mockMvc.perform(get("/api/user/me/stats/timeseries")
+                        .param("granularity", "week")
+                        .param("from", LAST_WEEK.toString())
+                        .param("to", TODAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("week"))
+                .andExpect(jsonPath("$.buckets.length()").value(2))
+                .andExpect(jsonPath("$.buckets[0].start").value(LAST_WEEK.with(DayOfWeek.MONDAY).toString()))
+                .andExpect(jsonPath("$.buckets[0].activities").value(1))
+                .andExpect(jsonPath("$.buckets[0].minutes").value(60))
+                .andExpect(jsonPath("$.buckets[1].activities").value(3))
+                .andExpect(jsonPath("$.buckets[1].minutes").value(195))
+                .andExpect(jsonPath("$.buckets[1].categories.length()").value(2))
+                .andExpect(jsonPath("$.buckets[1].categories[0].categoryId").isEmpty())
+                .andExpect(jsonPath("$.buckets[1].categories[0].minutes").value(150))
+                .andExpect(jsonPath("$.buckets[1].categories[1].categoryName").value("Work"))
+                .andExpect(jsonPath("$.buckets[1].categories[1].minutes").value(45));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, reconciler.reconcileAll());
+    }
+
+    @Test
+    void timeseriesRejectsInvalidRanges() throws Exception {
+        mockMvc.perform(get("/api/user/me/stats/timeseries")
+                        .param("granularity", "hour").param("from", TODAY.toString()).param("to", TODAY.toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/user/me/stats/timeseries")
+                        .param("from", TODAY.toString()).param("to", TODAY.minusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/user/me/stats/timeseries")
+                        .param("from", TODAY.minusYears(3).toString()).param("to", TODAY.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void thisMonthIgnoresTheSameMonthOfOtherYears() throws Exception {
+        int thisMonth = LAST_WEEK.getMonth() == TODAY.getMonth() ? 3 : 2;
+        activityService.createActivity(activityRequest(TODAY.minusYears(1), LocalTime.of(9, 0), LocalTime.of(10, 0), null), currentUser);
+
+        mockMvc.perform(get("/api/user/me/stats/activities"))
+                .andExpect(jsonPath("$.totalActivitiesThisMonth").value(thisMonth));
+    }
+
+    private static CreateActivityRequest activityRequest(LocalDate date, LocalTime start, LocalTime end, Long categoryId) {
+        CreateActivityRequest request = new CreateActivityRequest();
+        request.setName("Activity");
+        request.setDate(date);
+        request.setStartTime(start);
+        request.setEndTime(end);
+        request.setCategoryId(categoryId);
+        return request;
+    }
+
+    private void assertReadInOneStatement() {
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(Task.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Activity.class.getName()).getLoadCount());
+    }
+}
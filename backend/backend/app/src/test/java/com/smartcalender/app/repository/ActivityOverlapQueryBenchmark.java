@@ -0,0 +1,128 @@
+package com.smartcalender.app.repository;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the latency of the activity create path (insert followed by the overlap query)
+ * as the number of activities owned by a user grows from 100 to 100 000.
+ * Activities are seeded at a constant density of three per day, so the number of conflicts
+ * per create stays the same and only the size of the user's history changes.
+ *
+ * Not part of the regular test run, start it explicitly with:
+ * {@code mvn test -Dtest=ActivityOverlapQueryBenchmark}
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class ActivityOverlapQueryBenchmark {
+
+    private static final int[] SIZES = {100, 1_000, 10_000, 100_000};
+    private static final int CREATES_PER_SIZE = 500;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2000, 1, 1);
+    private static final LocalTime[][] SLOTS = {
+            {LocalTime.of(9, 0), LocalTime.of(10, 0)},
+            {LocalTime.of(11, 0), LocalTime.of(12, 0)},
+            {LocalTime.of(14, 0), LocalTime.of(15, 0)}
+    };
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void createLatencyStaysFlatAsHistoryGrows() {
+        User user = userRepository.save(new User("benchmark", "password"));
+        Random random = new Random(42);
+        Map<Integer, Double> microsPerCreate = new LinkedHashMap<>();
+        int seeded = 0;
+
+        for (int size : SIZES) {
+            seeded = seed(user, seeded, size);
+            int days = size / SLOTS.length;
+
+            // Warm up the statement cache and JIT before measuring
+            for (int i = 0; i < CREATES_PER_SIZE; i++) {
+                create(user, FIRST_DAY.plusDays(random.nextInt(days)));
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < CREATES_PER_SIZE; i++) {
+                int conflicts = create(user, FIRST_DAY.plusDays(random.nextInt(days)));
+                assertTrue(conflicts >= 1);
+            }
+            double micros = (System.nanoTime() - start) / 1_000.0 / CREATES_PER_SIZE;
+            microsPerCreate.put(size, micros);
+
+            entityManager.flush();
+            entityManager.clear();
+            user = entityManager.find(User.class, user.getId());
+        }
+
+        System.out.println("activities  us/create");
+        microsPerCreate.forEach((size, micros) -> System.out.printf("%10d  %9.1f%n", size, micros));
+
+        double smallest = microsPerCreate.get(SIZES[0]);
+        double largest = microsPerCreate.get(SIZES[SIZES.length - 1]);
+        assertEquals(SIZES.length, microsPerCreate.size());
+        assertTrue(largest < smallest * 5,
+                "Create latency grew from " + smallest + " us to " + largest + " us");
+    }
+
+    private int seed(User user, int from, int to) {
+        List<Activity> batch = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            LocalTime[] slot = SLOTS[i % SLOTS.length];
+            batch.add(new Activity("Seed " + i, null, FIRST_DAY.plusDays(i / SLOTS.length),
+                    slot[0], slot[1], null, null, user));
+            if (batch.size() == 1_000) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+        return to;
+    }
+
+    private void flush(List<Activity> batch) {
+        activityRepository.saveAll(batch);
+        entityManager.flush();
+        for (Activity activity : batch) {
+            entityManager.detach(activity);
+        }
+        batch.clear();
+    }
+
+    private int create(User user, LocalDate date) {
+        Activity activity = new Activity("Created", null, date,
+                LocalTime.of(9, 30), LocalTime.of(10, 30), null, null, user);
+        Activity saved = activityRepository.save(activity);
+        int conflicts = activityRepository.findOverlapping(user, saved.getDate(),
+                saved.getStartTime(), saved.getEndTime(), saved.getId()).size();
+        entityManager.detach(saved);
+        return conflicts;
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Activity;
+import com.smartcalender.app.entity.Recurrence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityOccurrenceCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ActivityOccurrenceCache cache;
+    private List<LocalDate[]> loads;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ActivityOccurrenceCache(2, meterRegistry);
+        loads = new ArrayList<>();
+    }
+
+    @Test
+    public void testRepeatedMonthIsServedFromCache() {
+        LocalDate start = LocalDate.of(2024, 3, 4);
+        LocalDate end = LocalDate.of(2024, 3, 10);
+
+        List<Activity> first = cache.between(1L, start, end, this::load);
+        List<Activity> second = cache.between(1L, start, end, this::load);
+
+        assertEquals(1, loads.size());
+        assertEquals(LocalDate.of(2024, 3, 1), loads.get(0)[0]);
+        assertEquals(LocalDate.of(2024, 3, 31), loads.get(0)[1]);
+        assertEquals(7, first.size());
+        assertEquals(first, second);
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    public void testInvalidationIsLimitedToAffectedMonths() {
+        cache.between(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 30), this::load);
+        assertEquals(2, loads.size());
+
+        cache.invalidate(1L, LocalDate.of(2024, 4, 15), Recurrence.NONE);
+        cache.between(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 30), this::load);
+        assertEquals(3, loads.size());
+
+        cache.invalidate(1L, LocalDate.of(2024, 1, 1), Recurrence.WEEKLY);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBucketIsEvicted() {
+        cache.between(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), this::load);
+        cache.between(2L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), this::load);
+        cache.between(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), this::load);
+        cache.between(3L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), this::load);
+        assertEquals(3, loads.size());
+
+        cache.between(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), this::load);
+        cache.between(2L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), this::load);
+        assertEquals(4, loads.size());
+        assertEquals(2, cache.size());
+    }
+
+    private List<Activity> load(LocalDate from, LocalDate to) {
+        loads.add(new LocalDate[]{from, to});
+        Activity daily = new Activity("Daily", null, LocalDate.of(2020, 1, 1),
+                LocalTime.of(8, 0), LocalTime.of(9, 0), null, null, null);
+        daily.setRecurrence(Recurrence.DAILY);
+        return RecurrenceExpander.occurrences(daily, from, to).toList();
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("activity.occurrence.cache.requests").tag("result", result).counter().count();
+    }
+}
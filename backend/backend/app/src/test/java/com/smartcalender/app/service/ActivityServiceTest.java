@@ -4,7 +4,7 @@ import com.smartcalender.app.dto.ActivityDTO;
 import com.smartcalender.app.dto.CreateActivityRequest;
 import com.smartcalender.app.entity.Activity;
 import com.smartcalender.app.repository.ActivityRepository;
-import com.smartcalender.app.repository.UserRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -33,7 +33,22 @@ public class ActivityServiceTest {
     private ActivityRepository activityRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
+
+    @Mock
+    private ActivityOccurrenceCache occurrenceCache;
+
+    @Mock
+    private UserStatsService userStatsService;
+
+    @Mock
+    private SearchIndex searchIndex;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    @Mock
+    private Validator validator;
 
     @InjectMocks
     private ActivityService activityService;
@@ -50,10 +65,10 @@ public class ActivityServiceTest {
         createRequest.setEndTime(LocalTime.now());
         createRequest.setLocation("Test Location");
 
-        when(userRepository.findByUsername(any()))
+        when(principalCache.findByUsername(any()))
                 .thenReturn(Optional.of(new com.smartcalender.app.entity.User()));
 
-        when(activityRepository.findByUser(any()))
+        when(activityRepository.findOverlapping(any(), any(), any(), any(), any()))
                 .thenReturn(new ArrayList<>());
 
         when(activityRepository.save(any(Activity.class)))
@@ -65,9 +80,10 @@ public class ActivityServiceTest {
         assertEquals(createRequest.getName(), activity.getName());
 
         // Verify interactions
-        verify(userRepository, times(1)).findByUsername(currentUser.getUsername());
+        verify(principalCache, times(1)).findByUsername(currentUser.getUsername());
         verify(activityRepository, times(1)).save(any(Activity.class));
-        verify(activityRepository, times(1)).findByUser(any());
+        verify(activityRepository, times(1)).findOverlapping(any(), any(), any(), any(), any());
+        verify(activityRepository, never()).findByUser(any());
     }
 
     @Test
@@ -83,7 +99,7 @@ public class ActivityServiceTest {
         createRequest.setLocation("Test Location");
 
         com.smartcalender.app.entity.User mockUser = new com.smartcalender.app.entity.User();
-        when(userRepository.findByUsername(any()))
+        when(principalCache.findByUsername(any()))
                 .thenReturn(Optional.of(mockUser));
 
         Activity existingActivity = mock(Activity.class);
@@ -94,7 +110,7 @@ public class ActivityServiceTest {
         when(existingActivity.getEndTime()).thenReturn(LocalTime.of(11, 30));
         when(existingActivity.getUser()).thenReturn(mockUser);
 
-        when(activityRepository.findByUser(any()))
+        when(activityRepository.findOverlapping(any(), any(), any(), any(), any()))
                 .thenReturn(List.of(existingActivity));
 
         when(activityRepository.save(any(Activity.class)))
@@ -118,8 +134,46 @@ public class ActivityServiceTest {
         assertNotNull(activity.getWarnings());
         assertFalse(activity.getWarnings().isEmpty());
 
-        verify(userRepository, times(1)).findByUsername(currentUser.getUsername());
+        verify(principalCache, times(1)).findByUsername(currentUser.getUsername());
         verify(activityRepository, times(1)).save(any(Activity.class));
-        verify(activityRepository, times(1)).findByUser(any());
+        verify(activityRepository, times(1)).findOverlapping(any(), any(), any(), any(), any());
+        verify(activityRepository, never()).findByUser(any());
+    }
+
+    @Test
+    public void testGetAllActivitiesComputesOverlapsInSinglePass() {
+        UserDetails currentUser = new User("username", "password",
+                new ArrayList<>());
+
+        com.smartcalender.app.entity.User mockUser = new com.smartcalender.app.entity.User();
+        when(principalCache.findByUsername(any()))
+                .thenReturn(Optional.of(mockUser));
+
+        LocalDate today = LocalDate.now();
+        ActivityDTO morning = activityDTO(1L, "Morning", today, LocalTime.of(9, 0), LocalTime.of(10, 30));
+        ActivityDTO meeting = activityDTO(2L, "Meeting", today, LocalTime.of(10, 0), LocalTime.of(11, 0));
+        ActivityDTO lunch = activityDTO(3L, "Lunch", today, LocalTime.of(11, 0), LocalTime.of(12, 0));
+        ActivityDTO tomorrow = activityDTO(4L, "Tomorrow", today.plusDays(1), LocalTime.of(10, 0), LocalTime.of(11, 0));
+
+        when(activityRepository.findDTOPageByUser(any(), any()))
+                .thenReturn(List.of(lunch, tomorrow, meeting, morning));
+
+        List<ActivityDTO> activities = activityService.getAllActivities(currentUser, null, null).items();
+
+        assertNotNull(activities);
+        assertEquals(4, activities.size());
+        assertEquals(0, activities.get(0).getWarnings().size());
+        assertEquals(0, activities.get(1).getWarnings().size());
+        assertEquals(1, activities.get(2).getWarnings().size());
+        assertTrue(activities.get(2).getWarnings().get(0).contains("'Morning'"));
+        assertEquals(1, activities.get(3).getWarnings().size());
+        assertTrue(activities.get(3).getWarnings().get(0).contains("'Meeting'"));
+
+        verify(activityRepository, times(1)).findDTOPageByUser(any(), any());
+        verify(activityRepository, never()).findByUser(any());
+    }
+
+    private ActivityDTO activityDTO(Long id, String name, LocalDate date, LocalTime start, LocalTime end) {
+        return new ActivityDTO(id, name, null, null, date, start, end, null, null, null, 1L, null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.OutboxEmail;
+import com.smartcalender.app.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "email.transport=stub",
+        "email-outbox.poll-interval-ms=3600000",
+        "email-outbox.max-attempts=2",
+        "email-outbox.initial-backoff=PT1M",
+        "email-outbox.max-backoff=PT4M",
+        "JWT_SECRET=dGVzdFNlY3JldEtleUZvclRlc3RpbmdQdXJwb3Nlc09ubHlNaW5pbXVtMjU2Qml0c0xvbmdLZXk=",
+        "JWT_EXPIRATION=86400000",
+        "EMAIL_API_KEY=test-email-api-key-for-testing"
+})
+public class EmailOutboxDispatcherTest {
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private StubEmailSender stubEmailSender;
+
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stubEmailSender.setFailing(false);
+        stubEmailSender.clear();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    public void testCommittedEmailIsSentAndRemovedFromTheOutbox() {
+        transactionTemplate.executeWithoutResult(status ->
+                emailService.sendVerificationEmail("alice@example.com", "Verify", "https://example.com/verify", "123456"));
+
+        dispatcher.dispatch();
+
+        List<EmailMessage> sent = stubEmailSender.sent();
+        assertEquals(1, sent.size());
+        assertEquals("alice@example.com", sent.get(0).to());
+        assertEquals(EmailService.VERIFICATION_TEMPLATE_ID, sent.get(0).templateId());
+        assertEquals("123456", sent.get(0).params().get("otp"));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    public void testRolledBackEmailIsNeverSent() {
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendPasswordResetEmail("bob@example.com", "Reset", "https://example.com/reset");
+            status.setRollbackOnly();
+        });
+
+        dispatcher.dispatch();
+
+        assertTrue(stubEmailSender.sent().isEmpty());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    public void testFailedSendIsRetriedWithBackoffAndThenGivenUp() {
+        stubEmailSender.setFailing(true);
+        Instant before = Instant.now();
+        transactionTemplate.executeWithoutResult(status ->
+                emailService.sendPasswordResetEmail("carol@example.com", "Reset", "https://example.com/reset"));
+
+        dispatcher.dispatch();
+
+        OutboxEmail email = outboxRepository.findAll().get(0);
+        assertEquals(OutboxEmail.Status.PENDING, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertFalse(email.getNextAttemptAt().isBefore(before.plus(Duration.ofMinutes(1))));
+        assertEquals("Stub email sender is failing", email.getLastError());
+
+        // Not due yet
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(1, outboxRepository.findAll().get(0).getAttempts());
+
+        email.setNextAttemptAt(Instant.now().minusSeconds(1));
+        outboxRepository.save(email);
+        dispatcher.dispatch();
+
+        email = outboxRepository.findAll().get(0);
+        assertEquals(OutboxEmail.Status.FAILED, email.getStatus());
+        assertEquals(2, email.getAttempts());
+        assertTrue(stubEmailSender.sent().isEmpty());
+    }
+
+    @Test
+    public void testEmailsSharingATemplateAreSentInOneCall() {
+        double sentBefore = meterRegistry.counter("email.sent").count();
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendVerificationEmail("a@example.com", "Verify", "https://example.com/a", "111111");
+            emailService.sendPasswordResetEmail("b@example.com", "Reset", "https://example.com/b");
+            emailService.sendVerificationEmail("c@example.com", "Verify", "https://example.com/c", "333333");
+            emailService.sendVerificationEmail("d@example.com", "Verify", "https://example.com/d", "444444");
+        });
+
+        dispatcher.dispatch();
+
+        List<List<EmailMessage>> calls = stubEmailSender.calls();
+        assertEquals(2, calls.size());
+        assertEquals(List.of("a@example.com", "c@example.com", "d@example.com"),
+                calls.get(0).stream().map(EmailMessage::to).toList());
+        assertEquals("333333", calls.get(0).get(1).params().get("otp"));
+        assertEquals(List.of("b@example.com"), calls.get(1).stream().map(EmailMessage::to).toList());
+        assertEquals(0, outboxRepository.count());
+        assertEquals(sentBefore + 4, meterRegistry.counter("email.sent").count());
+        assertEquals(0.0, meterRegistry.get("email.outbox.queue.depth").gauge().value());
+    }
+
+    @Test
+    public void testRejectedBatchFallsBackToSingleSends() {
+        double failuresBefore = meterRegistry.counter("email.send.failures").count();
+        stubEmailSender.reject("bad@example.com");
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendVerificationEmail("good@example.com", "Verify", "https://example.com/good", "111111");
+            emailService.sendVerificationEmail("bad@example.com", "Verify", "https://example.com/bad", "222222");
+            emailService.sendVerificationEmail("fine@example.com", "Verify", "https://example.com/fine", "333333");
+        });
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of("good@example.com", "fine@example.com"),
+                stubEmailSender.sent().stream().map(EmailMessage::to).toList());
+        OutboxEmail bad = outboxRepository.findAll().get(0);
+        assertEquals("bad@example.com", bad.getRecipient());
+        assertEquals(1, bad.getAttempts());
+        assertEquals(failuresBefore + 1, meterRegistry.counter("email.send.failures").count());
+        assertEquals(1.0, meterRegistry.get("email.outbox.queue.depth").gauge().value());
+    }
+
+    @Test
+    public void testUnreadableParamsFailOnlyTheirEmail() {
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendVerificationEmail("first@example.com", "Verify", "https://example.com/first", "111111");
+            outboxRepository.save(new OutboxEmail("broken@example.com", "Verify", EmailService.VERIFICATION_TEMPLATE_ID,
+                    "{not json", Instant.now()));
+            emailService.sendVerificationEmail("last@example.com", "Verify", "https://example.com/last", "333333");
+        });
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of(List.of("first@example.com", "last@example.com")),
+                stubEmailSender.calls().stream().map(call -> call.stream().map(EmailMessage::to).toList()).toList());
+        OutboxEmail broken = outboxRepository.findAll().get(0);
+        assertEquals("broken@example.com", broken.getRecipient());
+        assertEquals(1, broken.getAttempts());
+        assertEquals("Invalid template parameters", broken.getLastError());
+    }
+
+    @Test
+    public void testBackoffDoublesUpToTheMaximum() {
+        assertEquals(Duration.ofMinutes(1), dispatcher.backoff(1));
+        assertEquals(Duration.ofMinutes(2), dispatcher.backoff(2));
+        assertEquals(Duration.ofMinutes(4), dispatcher.backoff(3));
+        assertEquals(Duration.ofMinutes(4), dispatcher.backoff(40));
+    }
+}
@@ -0,0 +1,30 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Recurrence;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportServiceTest {
+
+    @Test
+    public void testSimpleSeriesRepeatAtTheirFrequency() {
+        assertEquals("FREQ=DAILY", ExportService.repeatRule(LocalDate.of(2025, 1, 31), Recurrence.DAILY));
+        assertEquals("FREQ=WEEKLY", ExportService.repeatRule(LocalDate.of(2025, 1, 31), Recurrence.WEEKLY));
+        assertEquals("FREQ=MONTHLY", ExportService.repeatRule(LocalDate.of(2025, 1, 28), Recurrence.MONTHLY));
+        assertEquals("FREQ=YEARLY", ExportService.repeatRule(LocalDate.of(2025, 1, 31), Recurrence.YEARLY));
+    }
+
+    @Test
+    public void testSeriesOnDaysShortMonthsLackFallOnTheirLastDay() {
+        // As the app expands them: Jan 31, Feb 28, Mar 31, Apr 30
+        assertEquals("FREQ=MONTHLY;BYMONTHDAY=28,29,30,31;BYSETPOS=-1",
+                ExportService.repeatRule(LocalDate.of(2025, 1, 31), Recurrence.MONTHLY));
+        assertEquals("FREQ=MONTHLY;BYMONTHDAY=28,29;BYSETPOS=-1",
+                ExportService.repeatRule(LocalDate.of(2025, 1, 29), Recurrence.MONTHLY));
+        assertEquals("FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=28,29;BYSETPOS=-1",
+                ExportService.repeatRule(LocalDate.of(2024, 2, 29), Recurrence.YEARLY));
+    }
+}
@@ -0,0 +1,135 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.exception.ExternalCalendarSyncException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IcsEventReaderTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    @Test
+    public void testEventsAreUnfoldedAndUnescaped() throws IOException {
+        List<IcsEventReader.IcsEvent> events = read("""
+                \uFEFFBEGIN:VCALENDAR\r
+                VERSION:2.0\r
+                BEGIN:VTIMEZONE\r
+                TZID:Europe/Stockholm\r
+                BEGIN:STANDARD\r
+                DTSTART:19701025T030000\r
+                END:STANDARD\r
+                END:VTIMEZONE\r
+                BEGIN:VEVENT\r
+                SUMMARY:Team \r
+                 meeting\\, weekly\r
+                DESCRIPTION:First line\\nSecond line\r
+                LOCATION;LANGUAGE=sv:Rum 4\\; plan 2\r
+                DTSTART;TZID=Europe/Stockholm:20250512T090000\r
+                DTEND;TZID=Europe/Stockholm:20250512T100000\r
+                RRULE:FREQ=WEEKLY;BYDAY=MO\r
+                BEGIN:VALARM\r
+                DTSTART:20000101T000000\r
+                DESCRIPTION:Reminder\r
+                END:VALARM\r
+                END:VEVENT\r
+                BEGIN:VTODO\r
+                SUMMARY:Not an event\r
+                END:VTODO\r
+                END:VCALENDAR\r
+                """);
+
+        assertEquals(1, events.size());
+        IcsEventReader.IcsEvent event = events.get(0);
+        assertEquals("Team meeting, weekly", event.summary());
+        assertEquals("First line\nSecond line", event.description());
+        assertEquals("Rum 4; plan 2", event.location());
+        assertEquals(LocalDateTime.of(2025, 5, 12, 9, 0), event.start());
+        assertEquals(LocalDateTime.of(2025, 5, 12, 10, 0), event.end());
+        assertEquals("FREQ=WEEKLY;BYDAY=MO", event.rule());
+        assertFalse(event.allDay());
+        assertEquals(9, event.line());
+    }
+
+    @Test
+    public void testTimesAreConvertedToTheTargetZone() throws IOException {
+        List<IcsEventReader.IcsEvent> events = read("""
+                BEGIN:VEVENT
+                DTSTART:20250512T070000Z
+                DURATION:PT1H30M
+                END:VEVENT
+                BEGIN:VEVENT
+                DTSTART;TZID="America/New_York":20250512T090000
+                DTEND;TZID="America/New_York":20250512T093000
+                END:VEVENT
+                BEGIN:VEVENT
+                DTSTART;TZID=W. Europe Standard Time:20250512T090000
+                DURATION:P1W
+                STATUS:CANCELLED
+                END:VEVENT
+                BEGIN:VEVENT
+                DTSTART;VALUE=DATE:20250513
+                RECURRENCE-ID;VALUE=DATE:20250513
+                END:VEVENT
+                """);
+
+        assertEquals(LocalDateTime.of(2025, 5, 12, 9, 0), events.get(0).start());
+        assertEquals(LocalDateTime.of(2025, 5, 12, 10, 30), events.get(0).end());
+        assertEquals(LocalDateTime.of(2025, 5, 12, 15, 0), events.get(1).start());
+        assertEquals(LocalDateTime.of(2025, 5, 12, 15, 30), events.get(1).end());
+        // Unknown zones are read as local times
+        assertEquals(LocalDateTime.of(2025, 5, 12, 9, 0), events.get(2).start());
+        assertEquals(LocalDateTime.of(2025, 5, 19, 9, 0), events.get(2).end());
+        assertTrue(events.get(2).cancelled());
+        assertTrue(events.get(3).allDay());
+        assertTrue(events.get(3).override());
+        assertEquals(LocalDateTime.of(2025, 5, 14, 0, 0), events.get(3).end());
+    }
+
+    @Test
+    public void testInvalidDataReportsTheLine() {
+        ExternalCalendarSyncException error = assertThrows(ExternalCalendarSyncException.class, () -> read("""
+                BEGIN:VCALENDAR
+                BEGIN:VEVENT
+                DTSTART:20250512T090000
+                END:VEVENT
+                BEGIN:VEVENT
+                DTSTART:2025-05-12
+                END:VEVENT
+                """));
+        assertEquals("Invalid iCalendar data on line 7: Invalid DTSTART '2025-05-12'", error.getMessage());
+
+        error = assertThrows(ExternalCalendarSyncException.class, () -> read("""
+                BEGIN:VEVENT
+                DTSTART:20250512T090000
+                """));
+        assertTrue(error.getMessage().endsWith("Calendar ends inside the event starting on line 1"));
+
+        error = assertThrows(ExternalCalendarSyncException.class, () -> read("BEGIN:VEVENT\nSUMMARY\n"));
+        assertEquals("Invalid iCalendar data on line 2: Line has no ':'", error.getMessage());
+    }
+
+    @Test
+    public void testOverlongLinesAreRejected() {
+        String description = "x".repeat(IcsEventReader.MAX_LINE_LENGTH);
+        assertThrows(ExternalCalendarSyncException.class, () -> read("BEGIN:VEVENT\nDESCRIPTION:" + description + "\n"));
+    }
+
+    private static List<IcsEventReader.IcsEvent> read(String ics) throws IOException {
+        List<IcsEventReader.IcsEvent> events = new ArrayList<>();
+        try (IcsEventReader reader = new IcsEventReader(new StringReader(ics), STOCKHOLM)) {
+            IcsEventReader.IcsEvent event;
+            while ((event = reader.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+}
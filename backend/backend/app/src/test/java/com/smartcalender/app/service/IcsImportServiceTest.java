@@ -0,0 +1,45 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Recurrence;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IcsImportServiceTest {
+
+    // A Monday
+    private static final LocalDate START = LocalDate.of(2025, 5, 12);
+
+    @Test
+    public void testOpenEndedRulesMapOntoRecurrences() {
+        assertEquals(Recurrence.DAILY, IcsImportService.recurrence("FREQ=DAILY", START));
+        assertEquals(Recurrence.WEEKLY, IcsImportService.recurrence("FREQ=WEEKLY;WKST=MO;BYDAY=MO", START));
+        assertEquals(Recurrence.MONTHLY, IcsImportService.recurrence("freq=monthly;interval=1;bymonthday=12", START));
+        assertEquals(Recurrence.YEARLY, IcsImportService.recurrence("FREQ=YEARLY;BYMONTH=5;BYMONTHDAY=12", START));
+    }
+
+    @Test
+    public void testRulesRecurrencesCannotExpressAreRejected() {
+        assertNull(IcsImportService.recurrence("FREQ=WEEKLY;INTERVAL=2", START));
+        assertNull(IcsImportService.recurrence("FREQ=WEEKLY;BYDAY=MO,WE", START));
+        assertNull(IcsImportService.recurrence("FREQ=MONTHLY;BYDAY=2MO", START));
+        assertNull(IcsImportService.recurrence("FREQ=DAILY;COUNT=5", START));
+        assertNull(IcsImportService.recurrence("FREQ=DAILY;UNTIL=20250601T000000Z", START));
+        assertNull(IcsImportService.recurrence("FREQ=HOURLY", START));
+        assertNull(IcsImportService.recurrence("FREQ=NONE", START));
+    }
+
+    @Test
+    public void testPartsThatNarrowTheFrequencyAreRejected() {
+        // These repeat every Monday, every 12th or every May rather than at their FREQ
+        assertNull(IcsImportService.recurrence("FREQ=DAILY;BYDAY=MO", START));
+        assertNull(IcsImportService.recurrence("FREQ=MONTHLY;BYDAY=MO", START));
+        assertNull(IcsImportService.recurrence("FREQ=DAILY;BYMONTHDAY=12", START));
+        assertNull(IcsImportService.recurrence("FREQ=WEEKLY;BYMONTHDAY=12", START));
+        assertNull(IcsImportService.recurrence("FREQ=DAILY;BYMONTH=5", START));
+        assertNull(IcsImportService.recurrence("FREQ=MONTHLY;BYMONTH=5", START));
+        assertEquals(Recurrence.YEARLY, IcsImportService.recurrence("FREQ=YEARLY;BYMONTH=5", START));
+    }
+}
@@ -0,0 +1,58 @@
+package com.smartcalender.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IcsWriterTest {
+
+    @Test
+    public void testValuesAreFormattedAndEscaped() throws IOException {
+        StringWriter out = new StringWriter();
+        IcsWriter writer = new IcsWriter(out);
+
+        writer.text("SUMMARY", "Lunch, then walk; bring \\ umbrella\r\nor not");
+        writer.text("LOCATION", " ");
+        writer.text("DESCRIPTION", null);
+        writer.date("DUE", LocalDate.of(2025, 5, 12));
+        writer.dateTime("DTSTART", LocalDateTime.of(2025, 5, 12, 9, 30));
+        writer.utc("DTSTAMP", Instant.parse("2025-05-12T07:30:15.250Z"));
+
+        assertEquals("SUMMARY:Lunch\\, then walk\\; bring \\\\ umbrella\\nor not\r\n"
+                + "DUE;VALUE=DATE:20250512\r\n"
+                + "DTSTART:20250512T093000\r\n"
+                + "DTSTAMP:20250512T073015Z\r\n", out.toString());
+    }
+
+    @Test
+    public void testLongLinesAreFoldedWithoutSplittingCharacters() throws IOException {
+        String summary = "Fika på kontoret 🎉 ".repeat(12).strip();
+        StringWriter out = new StringWriter();
+        IcsWriter writer = new IcsWriter(out);
+        writer.property("BEGIN", "VEVENT");
+        writer.text("SUMMARY", summary);
+        writer.dateTime("DTSTART", LocalDateTime.of(2025, 5, 12, 15, 0));
+        writer.property("END", "VEVENT");
+
+        String[] lines = out.toString().split("\r\n");
+        assertTrue(lines.length > 5);
+        for (String line : lines) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= IcsWriter.MAX_LINE_OCTETS, line);
+            assertFalse(Character.isLowSurrogate(line.charAt(line.startsWith(" ") ? 1 : 0)), line);
+        }
+
+        IcsEventReader reader = new IcsEventReader(new StringReader(out.toString()), ZoneId.of("UTC"));
+        IcsEventReader.IcsEvent event = reader.next();
+        assertEquals(summary, event.summary());
+        assertEquals(LocalDateTime.of(2025, 5, 12, 15, 0), event.start());
+    }
+}
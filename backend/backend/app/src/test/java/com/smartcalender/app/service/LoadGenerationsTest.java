@@ -0,0 +1,39 @@
+package com.smartcalender.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadGenerationsTest {
+
+    @Test
+    public void testLoadsRacingAChangeAreNotStored() {
+        LoadGenerations generations = new LoadGenerations();
+
+        LoadGenerations.Load stale = generations.start(1L);
+        LoadGenerations.Load other = generations.start(2L);
+        generations.changed(1L);
+        LoadGenerations.Load fresh = generations.start(1L);
+
+        assertFalse(generations.finish(stale));
+        assertTrue(generations.finish(other));
+        assertTrue(generations.finish(fresh));
+    }
+
+    @Test
+    public void testCountersAreOnlyKeptWhileLoadsAreInFlight() {
+        LoadGenerations generations = new LoadGenerations();
+        for (long userId = 0; userId < 100; userId++) {
+            generations.changed(userId);
+        }
+        assertEquals(0, generations.size());
+
+        LoadGenerations.Load first = generations.start(1L);
+        LoadGenerations.Load second = generations.start(1L);
+        generations.changed(1L);
+        assertFalse(generations.finish(first));
+        assertEquals(1, generations.size());
+        assertFalse(generations.finish(second));
+        assertEquals(0, generations.size());
+    }
+}
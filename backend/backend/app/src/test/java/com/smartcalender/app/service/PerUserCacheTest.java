@@ -0,0 +1,75 @@
+package com.smartcalender.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerUserCacheTest {
+
+    private PerUserCache<List<String>> cache;
+    private Counter hits;
+    private Counter misses;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hits = registry.counter("test.requests", "result", "hit");
+        misses = registry.counter("test.requests", "result", "miss");
+        cache = new PerUserCache<>(2, hits, misses);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedUsersAreEvicted() {
+        cache.get(1L, ArrayList::new);
+        cache.get(2L, ArrayList::new);
+        cache.get(1L, ArrayList::new);
+        cache.get(3L, ArrayList::new);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, hits.count());
+        assertEquals(3, misses.count());
+        cache.get(1L, ArrayList::new);
+        assertEquals(2, hits.count());
+    }
+
+    @Test
+    public void testChangesApplyToLoadedValuesOnly() {
+        List<String> loaded = cache.get(1L, () -> new ArrayList<>(List.of("a")));
+        cache.afterCommit(1L, value -> value.add("b"));
+        cache.afterCommit(2L, value -> fail("Users without a loaded value are built from the database"));
+
+        assertEquals(List.of("a", "b"), loaded);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLoadsRacingAChangeAreNotStored() {
+        List<String> stale = cache.get(1L, () -> {
+            cache.afterCommit(1L, value -> value.add("b"));
+            return new ArrayList<>(List.of("a"));
+        });
+
+        assertEquals(List.of("a"), stale);
+        assertEquals(0, cache.size());
+
+        cache.get(1L, ArrayList::new);
+        cache.invalidate(1L);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFailedLoadsAreNotStored() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("Database unavailable");
+        }));
+        assertEquals(0, cache.size());
+        assertEquals(List.of("a"), cache.get(1L, () -> new ArrayList<>(List.of("a"))));
+        assertEquals(1, cache.size());
+    }
+}
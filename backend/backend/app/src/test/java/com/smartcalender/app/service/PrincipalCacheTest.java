@@ -0,0 +1,62 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.User;
+import com.smartcalender.app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PrincipalCacheTest {
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        User user = new User("alice", "hash");
+        user.setId(7L);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(userRepository.findByUsername("nobody")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void testRepeatedLookupsHitTheDatabaseOnce() {
+        PrincipalCache cache = new PrincipalCache(userRepository, 10, Duration.ofMinutes(5));
+
+        PrincipalCache.CachedPrincipal first = cache.get("alice").orElseThrow();
+        PrincipalCache.CachedPrincipal second = cache.get("alice").orElseThrow();
+
+        assertEquals(7L, first.id());
+        assertEquals("hash", first.password());
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    public void testInvalidationAndExpiryForceReload() {
+        PrincipalCache cache = new PrincipalCache(userRepository, 10, Duration.ofMinutes(5));
+        cache.get("alice");
+        cache.invalidate("alice");
+        cache.get("alice");
+        verify(userRepository, times(2)).findByUsername("alice");
+
+        PrincipalCache expiring = new PrincipalCache(userRepository, 10, Duration.ZERO);
+        expiring.get("alice");
+        expiring.get("alice");
+        verify(userRepository, times(4)).findByUsername("alice");
+    }
+
+    @Test
+    public void testUnknownUsersAreNotCached() {
+        PrincipalCache cache = new PrincipalCache(userRepository, 10, Duration.ofMinutes(5));
+
+        assertTrue(cache.get("nobody").isEmpty());
+        assertTrue(cache.get("nobody").isEmpty());
+        verify(userRepository, times(2)).findByUsername("nobody");
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartcalender.app.service;
+
+import com.smartcalender.app.entity.Recurrence;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurrenceExpanderTest {
+
+    @Test
+    public void testDailySeriesOnlyProducesWindow() {
+        LocalDate seed = LocalDate.of(2015, 1, 1);
+        AtomicInteger produced = new AtomicInteger();
+
+        List<LocalDate> dates = RecurrenceExpander.dates(seed, Recurrence.DAILY,
+                        LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 9))
+                .peek(date -> produced.incrementAndGet())
+                .toList();
+
+        assertEquals(7, dates.size());
+        assertEquals(7, produced.get());
+        assertEquals(LocalDate.of(2024, 6, 3), dates.get(0));
+        assertEquals(LocalDate.of(2024, 6, 9), dates.get(6));
+    }
+
+    @Test
+    public void testWeeklySeriesStartsOnFirstOccurrenceInWindow() {
+        LocalDate seed = LocalDate.of(2024, 1, 3);
+
+        List<LocalDate> dates = RecurrenceExpander.dates(seed, Recurrence.WEEKLY,
+                LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 31)).toList();
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 17),
+                LocalDate.of(2024, 1, 24), LocalDate.of(2024, 1, 31)), dates);
+    }
+
+    @Test
+    public void testMonthlySeriesClampsToEndOfShortMonths() {
+        LocalDate seed = LocalDate.of(2024, 1, 31);
+
+        List<LocalDate> dates = RecurrenceExpander.dates(seed, Recurrence.MONTHLY,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 4, 30)).toList();
+
+        assertEquals(List.of(LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 31),
+                LocalDate.of(2024, 4, 30)), dates);
+    }
+
+    @Test
+    public void testYearlySeriesBeforeSeedIsEmpty() {
+        LocalDate seed = LocalDate.of(2024, 5, 1);
+
+        assertEquals(0, RecurrenceExpander.dates(seed, Recurrence.YEARLY,
+                LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)).count());
+        assertEquals(List.of(LocalDate.of(2030, 5, 1)), RecurrenceExpander.dates(seed, Recurrence.YEARLY,
+                LocalDate.of(2030, 1, 1), LocalDate.of(2030, 12, 31)).toList());
+    }
+
+    @Test
+    public void testNonRecurringSeriesYieldsSeedInWindow() {
+        LocalDate seed = LocalDate.of(2024, 5, 1);
+
+        assertEquals(List.of(seed), RecurrenceExpander.dates(seed, null, seed, seed).toList());
+        assertEquals(0, RecurrenceExpander.dates(seed, Recurrence.NONE,
+                seed.plusDays(1), seed.plusDays(7)).count());
+    }
+}
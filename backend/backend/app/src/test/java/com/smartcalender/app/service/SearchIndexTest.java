@@ -0,0 +1,91 @@
+package com.smartcalender.app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+
+    private SearchIndex index;
+    private List<SearchDocument> documents;
+    private int loads;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SearchIndex(2, new SimpleMeterRegistry());
+        documents = new ArrayList<>(List.of(
+                activity(1L, "Team meeting", "Weekly sync", "Room 4"),
+                activity(2L, "Lunch", "Meet Anna at the café", "Södermalm"),
+                task(3L, "Prepare meeting notes", null, null),
+                task(4L, "Buy milk", "Meetings need coffee", null)));
+        loads = 0;
+    }
+
+    @Test
+    public void testHitsAreRankedByFieldAndExactness() {
+        List<SearchIndex.Hit> hits = search(1L, "meeting");
+
+        // Exact name matches first, by name, then the prefix match in a description; "Meet" is shorter than the term
+        assertEquals(List.of(3L, 1L, 4L), ids(hits));
+        assertTrue(hits.get(1).score() > hits.get(2).score());
+    }
+
+    @Test
+    public void testEveryTermMustMatchAsWordOrPrefix() {
+        assertEquals(List.of(1L), ids(search(1L, "tea meet")));
+        assertEquals(List.of(2L), ids(search(1L, "SODER")));
+        assertEquals(List.of(2L), ids(search(1L, "cafe")));
+        assertTrue(search(1L, "team lunch").isEmpty());
+        assertTrue(search(1L, "  ,. ").isEmpty());
+    }
+
+    @Test
+    public void testIndexIsLoadedOnceAndKeptUpToDate() {
+        search(1L, "milk");
+        index.put(1L, task(5L, "Milk the cows", null, null));
+        index.put(1L, task(4L, "Buy bread", null, null));
+        index.remove(1L, SearchDocument.Type.ACTIVITY, 2L);
+
+        assertEquals(List.of(5L), ids(search(1L, "milk")));
+        assertEquals(List.of(4L), ids(search(1L, "bread")));
+        assertTrue(search(1L, "lunch").isEmpty());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void testLeastRecentlySearchingUserIsEvicted() {
+        search(1L, "milk");
+        search(2L, "milk");
+        search(3L, "milk");
+        search(2L, "milk");
+        assertEquals(3, loads);
+
+        search(1L, "milk");
+        assertEquals(4, loads);
+        assertEquals(2, index.size());
+    }
+
+    private List<SearchIndex.Hit> search(Long userId, String query) {
+        return index.search(userId, query, () -> {
+            loads++;
+            return List.copyOf(documents);
+        });
+    }
+
+    private static List<Long> ids(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.document().id()).toList();
+    }
+
+    private static SearchDocument activity(Long id, String name, String description, String location) {
+        return new SearchDocument(SearchDocument.Type.ACTIVITY, id, name, description, location);
+    }
+
+    private static SearchDocument task(Long id, String name, String description, String location) {
+        return new SearchDocument(SearchDocument.Type.TASK, id, name, description, location);
+    }
+}
@@ -0,0 +1,103 @@
+package com.smartcalender.app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+    private List<SuggestionIndex.Suggestion> names;
+    private int loads;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SuggestionIndex(2, 3, new SimpleMeterRegistry());
+        names = new ArrayList<>(List.of(
+                new SuggestionIndex.Suggestion("Team meeting", SuggestionIndex.Kind.ACTIVITY, 5),
+                new SuggestionIndex.Suggestion("Meal prep", SuggestionIndex.Kind.TASK, 2),
+                new SuggestionIndex.Suggestion("Medical", SuggestionIndex.Kind.CATEGORY, 1),
+                new SuggestionIndex.Suggestion("Mechanic", SuggestionIndex.Kind.ACTIVITY, 1),
+                new SuggestionIndex.Suggestion("Café", SuggestionIndex.Kind.ACTIVITY, 3)));
+        loads = 0;
+    }
+
+    @Test
+    public void testSuggestionsAreRankedByCountAndLimited() {
+        List<SuggestionIndex.Suggestion> suggestions = suggest(1L, "me");
+
+        // Two names share the lowest count, so the alphabetically first wins the last place
+        assertEquals(List.of("Team meeting", "Meal prep", "Mechanic"), names(suggestions));
+        assertEquals(5, suggestions.get(0).count());
+        assertEquals(SuggestionIndex.Kind.ACTIVITY, suggestions.get(0).kind());
+    }
+
+    @Test
+    public void testPrefixMatchesTheStartOfAnyWord() {
+        assertEquals(List.of("Team meeting"), names(suggest(1L, "TEAM M")));
+        assertEquals(List.of("Team meeting"), names(suggest(1L, "meet")));
+        assertEquals(List.of("Café"), names(suggest(1L, "cafe")));
+        assertTrue(suggest(1L, "eeting").isEmpty());
+        assertTrue(suggest(1L, "  ").isEmpty());
+    }
+
+    @Test
+    public void testTrieIsLoadedOnceAndKeptUpToDate() {
+        assertEquals(List.of("Mechanic"), names(suggest(1L, "mech")));
+        index.add(1L, SuggestionIndex.Kind.TASK, "Mechanic");
+        index.add(1L, SuggestionIndex.Kind.TASK, "Mechanic");
+        index.rename(1L, SuggestionIndex.Kind.ACTIVITY, "Mechanic", "Mechanical keyboard");
+        index.remove(1L, SuggestionIndex.Kind.ACTIVITY, "Café");
+
+        List<SuggestionIndex.Suggestion> suggestions = suggest(1L, "mech");
+        assertEquals(List.of("Mechanic", "Mechanical keyboard"), names(suggestions));
+        assertEquals(SuggestionIndex.Kind.TASK, suggestions.get(0).kind());
+        assertEquals(2, suggestions.get(0).count());
+        assertEquals(List.of("Mechanical keyboard"), names(suggest(1L, "keyb")));
+        assertEquals(List.of("Café"), names(suggest(1L, "caf")));
+        assertEquals(2, suggest(1L, "caf").get(0).count());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void testRemovingTheLastItemDropsTheName() {
+        suggest(1L, "med");
+        index.remove(1L, SuggestionIndex.Kind.CATEGORY, "medical");
+
+        assertTrue(suggest(1L, "med").isEmpty());
+        assertEquals(List.of("Meal prep"), names(suggest(1L, "mea")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTriesAreEvicted() {
+        suggest(1L, "me");
+        suggest(2L, "me");
+        suggest(1L, "me");
+        suggest(3L, "me");
+        assertEquals(2, index.size());
+
+        suggest(1L, "me");
+        assertEquals(3, loads);
+        suggest(2L, "me");
+        assertEquals(4, loads);
+
+        index.invalidateUser(2L);
+        assertEquals(1, index.size());
+    }
+
+    private List<SuggestionIndex.Suggestion> suggest(Long userId, String prefix) {
+        return index.suggest(userId, prefix, () -> {
+            loads++;
+            return names;
+        });
+    }
+
+    private static List<String> names(List<SuggestionIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionIndex.Suggestion::name).toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.smartcalender.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testBurstUpToCapacityThenHeldToTheRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+        assertEquals(0, bucket.reserve(5));
+        assertEquals(100_000_000L, bucket.reserve(1));
+        assertEquals(300_000_000L, bucket.reserve(2));
+    }
+
+    @Test
+    public void testTokensRefillButNeverAboveCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+        bucket.reserve(5);
+
+        now.addAndGet(200_000_000L);
+        assertEquals(0, bucket.reserve(2));
+
+        now.addAndGet(60_000_000_000L);
+        assertEquals(0, bucket.reserve(5));
+        assertTrue(bucket.reserve(1) > 0);
+    }
+
+    @Test
+    public void testRejectsMorePermitsThanTheCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+        assertThrows(IllegalArgumentException.class, () -> bucket.reserve(6));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5));
+    }
+}